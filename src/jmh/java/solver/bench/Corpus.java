@@ -0,0 +1,69 @@
+package solver.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the puzzle corpora bundled with the benchmarks. Each corpus is a text resource with one puzzle per line in the
+ * 81 character format, where blank cells are written as '0' or '.'. Empty lines and lines starting with '#' are
+ * ignored.
+ * */
+final class Corpus {
+
+	private Corpus() {
+	}
+
+	/**
+	 * Load a bundled corpus by name.
+	 *
+	 * @param name the name of the corpus, e.g. "easy" for corpus/easy.txt
+	 * @return the puzzles of the corpus, as 9x9 arrays
+	 * @throws IllegalArgumentException if the corpus does not exist or contains a malformed line
+	 * */
+	static int[][][] load(String name) {
+		String resource = "/corpus/" + name + ".txt";
+		InputStream stream = Corpus.class.getResourceAsStream(resource);
+		if(stream == null)
+			throw new IllegalArgumentException("no such corpus: " + name);
+
+		List<int[][]> puzzles = new ArrayList<>();
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.US_ASCII))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#"))
+					continue;
+
+				puzzles.add(parse(line));
+			}
+		} catch(IOException e) {
+			throw new IllegalStateException("unable to read corpus " + name, e);
+		}
+
+		return puzzles.toArray(new int[0][][]);
+	}
+
+	private static int[][] parse(String line) {
+		if(line.length() != 81)
+			throw new IllegalArgumentException("puzzle must have 81 cells: " + line);
+
+		int[][] puzzle = new int[9][9];
+		for(int index = 0; index < 81; index++) {
+			char cell = line.charAt(index);
+			if(cell == '.' || cell == '0')
+				continue;
+
+			if(cell < '1' || cell > '9')
+				throw new IllegalArgumentException("invalid cell '" + cell + "' in puzzle: " + line);
+
+			puzzle[index / 9][index % 9] = cell - '0';
+		}
+
+		return puzzle;
+	}
+}
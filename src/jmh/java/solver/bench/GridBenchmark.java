@@ -0,0 +1,72 @@
+package solver.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import solver.impl.SudokuGrid;
+import solver.impl.SudokuSolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the grid queries called from the solve loop. Grids are built once per trial, both from the simplified
+ * puzzles of the corpus and from their solutions, so the partial and complete cases are measured separately.
+ * */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GridBenchmark {
+
+	@Param({"easy", "hard", "minimal17", "pathological"})
+	public String corpus;
+
+	private SudokuGrid[] partialGrids;
+	private SudokuGrid[] solvedGrids;
+	private int index;
+
+	@Setup
+	public void setup() {
+		int[][][] puzzles = Corpus.load(this.corpus);
+		this.partialGrids = new SudokuGrid[puzzles.length];
+		this.solvedGrids = new SudokuGrid[puzzles.length];
+
+		for(int puzzle = 0; puzzle < puzzles.length; puzzle++) {
+			this.partialGrids[puzzle] = new SudokuGrid(puzzles[puzzle]);
+			this.solvedGrids[puzzle] = new SudokuGrid(new SudokuSolver().solve(puzzles[puzzle]));
+		}
+
+		this.index = 0;
+	}
+
+	@Benchmark
+	public boolean isSolvedPartial() {
+		return this.partialGrids[this.nextIndex()].isSolved();
+	}
+
+	@Benchmark
+	public boolean isSolvedComplete() {
+		return this.solvedGrids[this.nextIndex()].isSolved();
+	}
+
+	@Benchmark
+	public boolean isValid() {
+		return this.partialGrids[this.nextIndex()].isValid();
+	}
+
+	private int nextIndex() {
+		int current = this.index;
+		this.index = (this.index + 1) % this.partialGrids.length;
+		return current;
+	}
+}
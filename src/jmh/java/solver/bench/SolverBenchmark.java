@@ -0,0 +1,74 @@
+package solver.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import solver.impl.ClauseLearningSolver;
+import solver.impl.SudokuGrid;
+import solver.impl.SudokuSolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of solving a puzzle from scratch, and of building a grid from a puzzle (which includes
+ * simplifying the grid). Each invocation takes the next puzzle of the corpus, so the score is an average over the
+ * whole corpus.
+ * */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+	@Param({"easy", "hard", "minimal17", "pathological"})
+	public String corpus;
+
+	private int[][][] puzzles;
+	private int index;
+
+	//Built once, as its encoding is built once per grid size and reused by every solve
+	private ClauseLearningSolver clauseLearningSolver;
+
+	@Setup
+	public void setup() {
+		this.puzzles = Corpus.load(this.corpus);
+		this.index = 0;
+		this.clauseLearningSolver = new ClauseLearningSolver();
+	}
+
+	@Benchmark
+	public int[][] solve() {
+		return new SudokuSolver().solve(this.nextPuzzle());
+	}
+
+	@Benchmark
+	public int[][] solveMostConstrained() {
+		return new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED).solve(this.nextPuzzle());
+	}
+
+	@Benchmark
+	public int[][] solveClauseLearning() {
+		return this.clauseLearningSolver.solve(this.nextPuzzle());
+	}
+
+	@Benchmark
+	public SudokuGrid construct() {
+		return new SudokuGrid(this.nextPuzzle());
+	}
+
+	private int[][] nextPuzzle() {
+		int[][] puzzle = this.puzzles[this.index];
+		this.index = (this.index + 1) % this.puzzles.length;
+		return puzzle;
+	}
+}
@@ -7,6 +7,14 @@ public interface Grid {
 
     int quadrantContains(int quadrant, int num, boolean lazy);
 
+    int getRowMask(int row);
+
+    int getColMask(int col);
+
+    int getQuadrantMask(int quadrant);
+
+    int getCandidateMask(int col, int row);
+
     boolean isSolved();
 
     boolean isValid();
@@ -21,5 +29,7 @@ public interface Grid {
 
     int getQuadrantId(int col, int row);
 
+    int getSize();
+
     int[][] getGrid();
 }
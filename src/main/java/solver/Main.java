@@ -0,0 +1,560 @@
+package solver;
+
+import solver.impl.BatchSolver;
+import solver.impl.CancellationToken;
+import solver.impl.ClauseLearningSolver;
+import solver.impl.DancingLinksSolver;
+import solver.impl.DifficultyRater;
+import solver.impl.DifficultyRating;
+import solver.impl.PuzzleGenerator;
+import solver.impl.SearchCheckpoint;
+import solver.impl.Shard;
+import solver.impl.ShardPlanner;
+import solver.impl.SolutionCount;
+import solver.impl.SolveLimits;
+import solver.impl.SudokuSolver;
+import solver.impl.Technique;
+import solver.io.BinaryEncoding;
+import solver.io.BinaryPuzzleReader;
+import solver.io.BinaryPuzzleWriter;
+import solver.io.PuzzleReader;
+import solver.io.PuzzleWriter;
+import solver.server.SolveServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Command line entry point.
+ *
+ * <pre>
+ * solve &lt;input&gt; &lt;output&gt; [most-constrained|row-major|dancing-links|clause-learning]
+ *     Solve every puzzle of an 81 character puzzle file, writing one solution per line to the output file. Puzzles
+ *     without a solution are written as a line of blank cells. Files whose name ends in ".bin" are read or written
+ *     in the binary puzzle format, solutions as PACKED grids and puzzles without a solution as blank grids.
+ *
+ * pack &lt;input&gt; &lt;output&gt; [packed|clues]
+ *     Convert an 81 character puzzle file to a binary puzzle file, by default in the CLUES encoding.
+ *
+ * unpack &lt;input&gt; &lt;output&gt;
+ *     Convert a binary puzzle file to an 81 character puzzle file.
+ *
+ * count &lt;input&gt; &lt;checkpoint&gt; [limit]
+ *     Count the solutions of the first puzzle of an 81 character puzzle file, up to a limit. The state of the count is
+ *     saved to the checkpoint file every minute, and when the process is stopped, and the count resumes from the file
+ *     if it exists. The file is deleted once the count is complete. Only 9x9 puzzles can be counted here, since the
+ *     puzzle file format holds 9x9 grids; SudokuSolver.countSolutions and resumeCount also count larger grids.
+ *
+ * shard-plan &lt;input&gt; &lt;shards&gt; &lt;output-prefix&gt; [seed]
+ *     Split the search space of the first puzzle of an 81 character puzzle file into shards of roughly equal estimated
+ *     size, writing each shard to &lt;output-prefix&gt;-&lt;shard&gt;.txt as a puzzle file of its subtrees. Like count,
+ *     the shard commands only take 9x9 puzzles, since the puzzle file format holds 9x9 grids; ShardPlanner also plans
+ *     larger grids.
+ *
+ * shard-count &lt;shard&gt; &lt;result&gt;
+ *     Count the solutions of every puzzle of a shard file, writing the count and statistics to a result file.
+ *
+ * shard-merge &lt;result&gt;...
+ *     Add up the counts of the result files of every shard of a plan, printing the count of the puzzle.
+ *
+ * generate &lt;output&gt; &lt;count&gt; [clues] [seed]
+ *     Generate puzzles with a unique solution on every core, writing one puzzle per line to the output file. Clues are
+ *     removed down to the given number, or until the puzzle is minimal if no number or 0 is given. The same seed
+ *     always generates the same puzzles.
+ *
+ * rate &lt;input&gt; &lt;output&gt;
+ *     Rate the difficulty of every puzzle of an 81 character puzzle file on every core, writing each puzzle followed
+ *     by its score and the hardest technique it needs, or by "unsolvable". A puzzle without empty cells needs
+ *     technique "none". The output can be read as a puzzle file.
+ *
+ * serve [port] [workers]
+ *     Serve puzzle solving over HTTP on the loopback interface, with one solving thread per core unless a number of
+ *     workers is given. See SolveServer for the requests it answers.
+ * </pre>
+ * */
+public class Main {
+
+	//Number of puzzles read and solved together, into solution arrays reused for every chunk
+	private static final int CHUNK_SIZE = 4096;
+
+	//Seconds between checkpoints of a count
+	private static final long CHECKPOINT_INTERVAL = 60;
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1) {
+			usage();
+			return;
+		}
+
+		switch(args[0]) {
+			case "solve":
+				if(args.length < 3 || args.length > 4) {
+					usage();
+					return;
+				}
+
+				solve(args[1], args[2], args.length == 4 ? args[3] : "most-constrained");
+				break;
+			case "pack":
+				if(args.length < 3 || args.length > 4) {
+					usage();
+					return;
+				}
+
+				pack(args[1], args[2], args.length == 4 ? args[3] : "clues");
+				break;
+			case "unpack":
+				if(args.length != 3) {
+					usage();
+					return;
+				}
+
+				unpack(args[1], args[2]);
+				break;
+			case "count":
+				if(args.length < 3 || args.length > 4) {
+					usage();
+					return;
+				}
+
+				count(args[1], args[2], args.length == 4 ? Long.parseLong(args[3]) : Long.MAX_VALUE);
+				break;
+			case "shard-plan":
+				if(args.length < 4 || args.length > 5) {
+					usage();
+					return;
+				}
+
+				planShards(args[1], Integer.parseInt(args[2]), args[3],
+						args.length == 5 ? Long.parseLong(args[4]) : System.nanoTime());
+				break;
+			case "shard-count":
+				if(args.length != 3) {
+					usage();
+					return;
+				}
+
+				countShard(args[1], args[2]);
+				break;
+			case "shard-merge":
+				if(args.length < 2) {
+					usage();
+					return;
+				}
+
+				mergeShards(Arrays.copyOfRange(args, 1, args.length));
+				break;
+			case "generate":
+				if(args.length < 3 || args.length > 5) {
+					usage();
+					return;
+				}
+
+				generate(args[1], Long.parseLong(args[2]), args.length >= 4 ? Integer.parseInt(args[3]) : 0,
+						args.length == 5 ? Long.parseLong(args[4]) : System.nanoTime());
+				break;
+			case "rate":
+				if(args.length != 3) {
+					usage();
+					return;
+				}
+
+				rate(args[1], args[2]);
+				break;
+			case "serve":
+				if(args.length > 3) {
+					usage();
+					return;
+				}
+
+				serve(args.length >= 2 ? Integer.parseInt(args[1]) : 8080,
+						args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors());
+				break;
+			default:
+				usage();
+		}
+	}
+
+	private static void solve(String input, String output, String engine) throws IOException {
+		if(isBinary(input) || isBinary(output)) {
+			solveBinary(input, output, engine);
+			return;
+		}
+
+		BatchSolver batchSolver = new BatchSolver(ForkJoinPool.commonPool(), solverFactory(engine));
+
+		int[][][] chunk = new int[CHUNK_SIZE][9][9];
+		int[][][] solutions = new int[CHUNK_SIZE][9][9];
+		boolean[] solved = new boolean[CHUNK_SIZE];
+		long puzzles = 0;
+		long failures = 0;
+		long start = System.nanoTime();
+
+		try(PuzzleReader reader = new PuzzleReader(Paths.get(input));
+			PuzzleWriter writer = new PuzzleWriter(Paths.get(output))) {
+			int count;
+			do {
+				count = 0;
+				while(count < CHUNK_SIZE && reader.next(chunk[count]))
+					count++;
+
+				failures += count - batchSolver.solveAll(chunk, solutions, solved, count);
+				for(int index = 0; index < count; index++) {
+					if(solved[index])
+						writer.write(solutions[index]);
+					else
+						writer.writeBlank();
+				}
+
+				puzzles += count;
+			} while(count == CHUNK_SIZE);
+		}
+
+		System.err.printf("solved %d of %d puzzles in %d ms%n", puzzles - failures, puzzles,
+				(System.nanoTime() - start) / 1000000);
+	}
+
+	private static void solveBinary(String input, String output, String engine) throws IOException {
+		BatchSolver batchSolver = new BatchSolver(ForkJoinPool.commonPool(), solverFactory(engine));
+
+		byte[][] chunk = new byte[CHUNK_SIZE][81];
+		byte[][] solutions = new byte[CHUNK_SIZE][81];
+		int[][] grid = new int[9][9];
+		boolean[] solved = new boolean[CHUNK_SIZE];
+		long puzzles = 0;
+		long failures = 0;
+		long start = System.nanoTime();
+
+		try(BinaryPuzzleReader binaryReader = isBinary(input) ? new BinaryPuzzleReader(Paths.get(input)) : null;
+			PuzzleReader reader = binaryReader == null ? new PuzzleReader(Paths.get(input)) : null;
+			BinaryPuzzleWriter binaryWriter = isBinary(output)
+					? new BinaryPuzzleWriter(Paths.get(output), BinaryEncoding.PACKED) : null;
+			PuzzleWriter writer = binaryWriter == null ? new PuzzleWriter(Paths.get(output)) : null) {
+			int count;
+			do {
+				count = 0;
+				while(count < CHUNK_SIZE && next(binaryReader, reader, grid, chunk[count]))
+					count++;
+
+				failures += count - batchSolver.solveAll(chunk, solutions, solved, count);
+				for(int index = 0; index < count; index++) {
+					//Both formats write a grid of blank cells for a puzzle without a solution
+					if(!solved[index])
+						Arrays.fill(solutions[index], (byte) 0);
+
+					if(binaryWriter != null)
+						binaryWriter.write(solutions[index]);
+					else
+						writer.write(solutions[index]);
+				}
+
+				puzzles += count;
+			} while(count == CHUNK_SIZE);
+		}
+
+		System.err.printf("solved %d of %d puzzles in %d ms%n", puzzles - failures, puzzles,
+				(System.nanoTime() - start) / 1000000);
+	}
+
+	/**
+	 * Read the next puzzle of either a binary or a text file into an array of cells.
+	 * */
+	private static boolean next(BinaryPuzzleReader binaryReader, PuzzleReader reader, int[][] grid, byte[] cells)
+			throws IOException {
+		if(binaryReader != null)
+			return binaryReader.next(cells);
+
+		if(!reader.next(grid))
+			return false;
+
+		for(int cell = 0; cell < 81; cell++)
+			cells[cell] = (byte) grid[cell / 9][cell % 9];
+
+		return true;
+	}
+
+	private static void pack(String input, String output, String encoding) throws IOException {
+		int[][] grid = new int[9][9];
+		long start = System.nanoTime();
+
+		try(PuzzleReader reader = new PuzzleReader(Paths.get(input));
+			BinaryPuzzleWriter writer = new BinaryPuzzleWriter(Paths.get(output),
+					BinaryEncoding.valueOf(encoding.toUpperCase(Locale.ROOT)))) {
+			while(reader.next(grid))
+				writer.write(grid);
+
+			System.err.printf("packed %d puzzles in %d ms%n", writer.getCount(), (System.nanoTime() - start) / 1000000);
+		}
+	}
+
+	private static void unpack(String input, String output) throws IOException {
+		byte[] cells = new byte[81];
+		long start = System.nanoTime();
+
+		try(BinaryPuzzleReader reader = new BinaryPuzzleReader(Paths.get(input));
+			PuzzleWriter writer = new PuzzleWriter(Paths.get(output))) {
+			while(reader.next(cells))
+				writer.write(cells);
+
+			System.err.printf("unpacked %d puzzles in %d ms%n", reader.getCount(),
+					(System.nanoTime() - start) / 1000000);
+		}
+	}
+
+	private static boolean isBinary(String file) {
+		return file.endsWith(".bin");
+	}
+
+	private static void count(String input, String checkpointFile, long limit) throws IOException {
+		Path checkpointPath = Paths.get(checkpointFile);
+		SudokuSolver solver = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+		solver.setPropagating(true);
+
+		//Stopping the process cancels the count, and waits for its checkpoint to be written
+		CancellationToken token = new CancellationToken();
+		Thread counter = Thread.currentThread();
+		Thread hook = new Thread(() -> {
+			token.cancel();
+			try {
+				counter.join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		Runtime.getRuntime().addShutdownHook(hook);
+
+		long start = System.nanoTime();
+		SolutionCount count;
+		if(Files.exists(checkpointPath)) {
+			SearchCheckpoint checkpoint = SearchCheckpoint.read(checkpointPath);
+			System.err.printf("resuming after %d solutions and %d nodes%n", checkpoint.getSolutions(),
+					checkpoint.getNodes());
+			count = solver.resumeCount(checkpoint, limit, countLimits(token));
+		} else {
+			int[][] grid = new int[9][9];
+			try(PuzzleReader reader = new PuzzleReader(Paths.get(input))) {
+				if(!reader.next(grid))
+					throw new IllegalArgumentException("no puzzle in " + input);
+			}
+
+			count = solver.countSolutions(grid, limit, countLimits(token));
+		}
+
+		while(count.isInterrupted()) {
+			SearchCheckpoint checkpoint = solver.checkpoint();
+			checkpoint.write(checkpointPath);
+			System.err.printf("checkpoint after %d solutions and %d nodes%n", count.getCount(), count.getNodes());
+			if(token.isCancelled())
+				return;
+
+			count = solver.resumeCount(checkpoint, limit, countLimits(token));
+		}
+
+		Runtime.getRuntime().removeShutdownHook(hook);
+		Files.deleteIfExists(checkpointPath);
+		System.out.println(count.getCount() + (count.isLimitReached() ? " or more" : ""));
+		System.err.printf("counted %d solutions in %d nodes in %d ms%n", count.getCount(), count.getNodes(),
+				(System.nanoTime() - start) / 1000000);
+	}
+
+	private static SolveLimits countLimits(CancellationToken token) {
+		SolveLimits limits = new SolveLimits();
+		limits.setTimeout(CHECKPOINT_INTERVAL, TimeUnit.SECONDS);
+		limits.setCancellationToken(token);
+		return limits;
+	}
+
+	private static void planShards(String input, int shards, String outputPrefix, long seed) throws IOException {
+		int[][] grid = new int[9][9];
+		try(PuzzleReader reader = new PuzzleReader(Paths.get(input))) {
+			if(!reader.next(grid))
+				throw new IllegalArgumentException("no puzzle in " + input);
+		}
+
+		long start = System.nanoTime();
+		List<Shard> plan = new ShardPlanner(seed).plan(grid, shards);
+		for(Shard shard : plan) {
+			try(PuzzleWriter writer = new PuzzleWriter(Paths.get(outputPrefix + "-" + shard.getIndex() + ".txt"))) {
+				for(int[][] puzzle : shard.getPuzzles())
+					writer.write(puzzle);
+			}
+
+			System.err.printf("shard %d: %d subtrees, estimated %.3g nodes%n", shard.getIndex(),
+					shard.getPuzzles().size(), shard.getEstimate());
+		}
+
+		System.err.printf("planned %d shards in %d ms%n", shards, (System.nanoTime() - start) / 1000000);
+	}
+
+	private static void countShard(String input, String output) throws IOException {
+		SudokuSolver solver = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+		solver.setPropagating(true);
+
+		int[][] grid = new int[9][9];
+		long puzzles = 0;
+		long solutions = 0;
+		long nodes = 0;
+		boolean complete = true;
+		long start = System.nanoTime();
+		try(PuzzleReader reader = new PuzzleReader(Paths.get(input))) {
+			while(reader.next(grid)) {
+				SolutionCount count = solver.countSolutions(grid, Long.MAX_VALUE);
+				puzzles++;
+				solutions += count.getCount();
+				nodes += count.getNodes();
+				complete &= !count.isLimitReached();
+			}
+		}
+
+		Properties result = new Properties();
+		result.setProperty("puzzles", Long.toString(puzzles));
+		result.setProperty("solutions", Long.toString(solutions));
+		result.setProperty("nodes", Long.toString(nodes));
+		result.setProperty("millis", Long.toString((System.nanoTime() - start) / 1000000));
+		result.setProperty("complete", Boolean.toString(complete));
+		try(OutputStream out = Files.newOutputStream(Paths.get(output))) {
+			result.store(out, "shard " + input);
+		}
+
+		System.err.printf("counted %d solutions of %d puzzles in %s ms%n", solutions, puzzles,
+				result.getProperty("millis"));
+	}
+
+	private static void mergeShards(String[] inputs) throws IOException {
+		long solutions = 0;
+		long nodes = 0;
+		long slowest = 0;
+		long total = 0;
+		boolean complete = true;
+		for(String input : inputs) {
+			Properties result = new Properties();
+			try(InputStream in = Files.newInputStream(Paths.get(input))) {
+				result.load(in);
+			}
+
+			if(result.getProperty("solutions") == null)
+				throw new IllegalArgumentException("not a shard result: " + input);
+
+			long millis = Long.parseLong(result.getProperty("millis", "0"));
+			solutions += Long.parseLong(result.getProperty("solutions"));
+			nodes += Long.parseLong(result.getProperty("nodes", "0"));
+			complete &= Boolean.parseBoolean(result.getProperty("complete", "false"));
+			slowest = Math.max(slowest, millis);
+			total += millis;
+		}
+
+		System.out.println(solutions + (complete ? "" : " or more"));
+		System.err.printf("%d shards, %d nodes, slowest %d ms, mean %d ms%n", inputs.length, nodes, slowest,
+				total / inputs.length);
+	}
+
+	private static void generate(String output, long count, int clues, long seed) throws IOException {
+		SplittableRandom seeds = new SplittableRandom(seed);
+		long start = System.nanoTime();
+
+		try(PuzzleWriter writer = new PuzzleWriter(Paths.get(output))) {
+			for(long generated = 0; generated < count; generated += CHUNK_SIZE) {
+				int chunk = (int) Math.min(CHUNK_SIZE, count - generated);
+				for(int[][] puzzle : PuzzleGenerator.generateAll(9, chunk, clues, seeds.nextLong()))
+					writer.write(puzzle);
+			}
+		}
+
+		System.err.printf("generated %d puzzles in %d ms%n", count, (System.nanoTime() - start) / 1000000);
+	}
+
+	private static void rate(String input, String output) throws IOException {
+		int[][][] chunk = new int[CHUNK_SIZE][9][9];
+		DifficultyRating[] ratings = new DifficultyRating[CHUNK_SIZE];
+		long[] hardest = new long[Technique.values().length];
+		StringBuilder note = new StringBuilder();
+		long puzzles = 0;
+		long failures = 0;
+		long start = System.nanoTime();
+
+		try(PuzzleReader reader = new PuzzleReader(Paths.get(input));
+			PuzzleWriter writer = new PuzzleWriter(Paths.get(output))) {
+			int count;
+			do {
+				count = 0;
+				while(count < CHUNK_SIZE && reader.next(chunk[count]))
+					count++;
+
+				failures += count - DifficultyRater.rateAll(chunk, ratings, count);
+				for(int index = 0; index < count; index++) {
+					DifficultyRating rating = ratings[index];
+					note.setLength(0);
+					if(rating == null) {
+						note.append("unsolvable");
+					} else {
+						//A puzzle without empty cells needs no technique
+						Technique technique = rating.getHardestTechnique();
+						note.append(rating.getScore()).append(' ');
+						note.append(technique == null ? "none" : technique.name());
+						if(technique != null)
+							hardest[technique.ordinal()]++;
+					}
+
+					writer.write(chunk[index], note);
+				}
+
+				puzzles += count;
+			} while(count == CHUNK_SIZE);
+		}
+
+		System.err.printf("rated %d of %d puzzles in %d ms%n", puzzles - failures, puzzles,
+				(System.nanoTime() - start) / 1000000);
+		for(Technique technique : Technique.values()) {
+			if(hardest[technique.ordinal()] > 0)
+				System.err.printf("%-20s %d%n", technique, hardest[technique.ordinal()]);
+		}
+	}
+
+	private static void serve(int port, int workers) throws IOException {
+		SolveServer server = new SolveServer(new InetSocketAddress("127.0.0.1", port), workers);
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		System.err.println("listening on " + server.getAddress());
+	}
+
+	private static Supplier<Solver> solverFactory(String engine) {
+		switch(engine) {
+			case "most-constrained":
+				return () -> new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+			case "row-major":
+				return () -> new SudokuSolver(SudokuSolver.SearchOrder.ROW_MAJOR);
+			case "dancing-links":
+				return DancingLinksSolver::new;
+			case "clause-learning":
+				return ClauseLearningSolver::new;
+			default:
+				throw new IllegalArgumentException("unknown engine: " + engine);
+		}
+	}
+
+	private static void usage() {
+		System.err.println("usage: solve <input> <output> [most-constrained|row-major|dancing-links|clause-learning]");
+		System.err.println("       pack <input> <output> [packed|clues]");
+		System.err.println("       unpack <input> <output>");
+		System.err.println("       count <input> <checkpoint> [limit]                 (9x9 puzzles only)");
+		System.err.println("       shard-plan <input> <shards> <output-prefix> [seed] (9x9 puzzles only)");
+		System.err.println("       shard-count <shard> <result>                       (9x9 puzzles only)");
+		System.err.println("       shard-merge <result>...");
+		System.err.println("       generate <output> <count> [clues] [seed]");
+		System.err.println("       rate <input> <output>");
+		System.err.println("       serve [port] [workers]");
+	}
+}
@@ -0,0 +1,60 @@
+package solver;
+
+public interface Solver {
+    int[][] solve(int[][] initGrid);
+
+    /**
+     * Solve a given sudoku grid, writing the solution into a caller-supplied array. Solvers that can solve without
+     * allocating override this; by default the solution returned by solve(int[][]) is copied.
+     *
+     * @param initGrid the sudoku grid to solve
+     * @param solution the array to write the solution into, with the same dimensions as the grid to solve
+     * @return the solution array, holding the solved sudoku grid
+     * @throws IllegalArgumentException if the grid or the solution array has invalid dimensions, the grid has invalid
+     * values, or cannot be solved
+     */
+    default int[][] solve(int[][] initGrid, int[][] solution) {
+        int[][] solved = this.solve(initGrid);
+        if(solution == null || solution.length != solved.length)
+            throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+        for(int row = 0; row < solved.length; row++) {
+            if(solution[row] == null || solution[row].length != solved[row].length)
+                throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+            System.arraycopy(solved[row], 0, solution[row], 0, solved[row].length);
+        }
+
+        return solution;
+    }
+
+    /**
+     * Solve a sudoku grid given as a flat array of cells, row by row, writing the solution into a caller-supplied
+     * array of the same length. Solvers that keep their grids in this form override this to solve without building a
+     * two-dimensional grid; by default the cells are copied into one and solved with solve(int[][]).
+     *
+     * @param cells the sudoku grid to solve, where empty cells have a value of 0
+     * @param solution the array to write the solution into
+     * @return the solution array, holding the solved sudoku grid
+     * @throws IllegalArgumentException if the grid or the solution array has an invalid length, the grid has invalid
+     * values, or cannot be solved
+     */
+    default byte[] solve(byte[] cells, byte[] solution) {
+        if(cells == null)
+            throw new IllegalArgumentException("provided grid is null");
+
+        int size = (int) Math.round(Math.sqrt(cells.length));
+        if(size * size != cells.length || solution == null || solution.length != cells.length)
+            throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+        int[][] grid = new int[size][size];
+        for(int cell = 0; cell < cells.length; cell++)
+            grid[cell / size][cell % size] = cells[cell];
+
+        int[][] solved = this.solve(grid);
+        for(int cell = 0; cell < solution.length; cell++)
+            solution[cell] = (byte) solved[cell / size][cell % size];
+
+        return solution;
+    }
+}
@@ -0,0 +1,54 @@
+package solver.impl;
+
+/**
+ * The outcome of solving a single puzzle of a batch. A result holds either the solved grid, or the exception that
+ * prevented the puzzle from being solved.
+ * */
+public class BatchResult {
+
+	private final int index;
+	private final int[][] solvedGrid;
+	private final RuntimeException failure;
+
+	BatchResult(int index, int[][] solvedGrid, RuntimeException failure) {
+		this.index = index;
+		this.solvedGrid = solvedGrid;
+		this.failure = failure;
+	}
+
+	/**
+	 * Get the position of the puzzle in the batch input.
+	 *
+	 * @return the position of the puzzle in the batch input
+	 * */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * Return whether the puzzle was solved.
+	 *
+	 * @return true if the puzzle was solved, false if solving it failed
+	 * */
+	public boolean isSolved() {
+		return this.failure == null;
+	}
+
+	/**
+	 * Get the solved grid.
+	 *
+	 * @return the solved grid, or null if solving the puzzle failed
+	 * */
+	public int[][] getSolvedGrid() {
+		return this.solvedGrid;
+	}
+
+	/**
+	 * Get the exception that prevented the puzzle from being solved.
+	 *
+	 * @return the exception thrown while solving the puzzle, or null if the puzzle was solved
+	 * */
+	public RuntimeException getFailure() {
+		return this.failure;
+	}
+}
@@ -0,0 +1,234 @@
+package solver.impl;
+
+import solver.Solver;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Solves batches of puzzles in parallel on a ForkJoinPool.
+ *
+ * Solvers are not thread safe, so each worker thread of the pool lazily creates its own solver and reuses it (and the
+ * grid it holds) for every puzzle it handles. Results are returned in input order. A puzzle that cannot be solved
+ * does not stop the batch; its result records the failure instead.
+ *
+ * Puzzles taken from an iterator, an Iterable or a Stream are read and solved in chunks of a few thousand, so solving
+ * starts before the whole input is read, and only one chunk of the input is held at a time.
+ * */
+public class BatchSolver {
+
+	//Number of puzzles below which a task solves its range instead of splitting it
+	private static final int SPLIT_THRESHOLD = 16;
+
+	//Number of puzzles taken from an iterator and solved together
+	private static final int CHUNK_SIZE = 4096;
+
+	private final ForkJoinPool pool;
+	private final ThreadLocal<Solver> solvers;
+
+	/**
+	 * Constructs a BatchSolver that runs on the common pool, with a most-constrained-first SudokuSolver per worker.
+	 * */
+	public BatchSolver() {
+		this(ForkJoinPool.commonPool(), () -> new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED));
+	}
+
+	/**
+	 * Constructs a BatchSolver that runs on a given pool.
+	 *
+	 * @param pool the pool used to solve puzzles
+	 * @param solverFactory creates the solver used by each worker thread
+	 * */
+	public BatchSolver(ForkJoinPool pool, Supplier<? extends Solver> solverFactory) {
+		if(pool == null)
+			throw new IllegalArgumentException("pool is null");
+
+		if(solverFactory == null)
+			throw new IllegalArgumentException("solver factory is null");
+
+		this.pool = pool;
+		this.solvers = ThreadLocal.withInitial(solverFactory);
+	}
+
+	/**
+	 * Solve a batch of puzzles. The puzzles are solved in chunks as they are taken from the input, but the result of
+	 * every puzzle is kept for the returned list; use solveAll(Iterator, Consumer) for inputs whose results do not
+	 * all need to be held at once.
+	 *
+	 * @param puzzles the puzzles to solve
+	 * @return one result per puzzle, in input order
+	 * */
+	public List<BatchResult> solveAll(Iterable<int[][]> puzzles) {
+		if(puzzles == null)
+			throw new IllegalArgumentException("puzzles is null");
+
+		List<BatchResult> results = new ArrayList<>();
+		this.solveAll(puzzles.iterator(), results::add);
+		return results;
+	}
+
+	/**
+	 * Solve a batch of puzzles. The puzzles are solved in chunks as they are taken from the stream, but the result of
+	 * every puzzle is kept for the returned list; use solveAll(Iterator, Consumer) for inputs whose results do not
+	 * all need to be held at once.
+	 *
+	 * @param puzzles the puzzles to solve
+	 * @return one result per puzzle, in input order
+	 * */
+	public List<BatchResult> solveAll(Stream<int[][]> puzzles) {
+		if(puzzles == null)
+			throw new IllegalArgumentException("puzzles is null");
+
+		List<BatchResult> results = new ArrayList<>();
+		this.solveAll(puzzles.iterator(), results::add);
+		return results;
+	}
+
+	/**
+	 * Solve puzzles as they are taken from an iterator, handing each result to a consumer in input order. A chunk of
+	 * puzzles is taken and solved, and its results are handed over, before the next chunk is taken, so the memory
+	 * used does not grow with the number of puzzles.
+	 *
+	 * @param puzzles the puzzles to solve
+	 * @param results receives one result per puzzle, in input order, on the calling thread
+	 * */
+	public void solveAll(Iterator<int[][]> puzzles, Consumer<? super BatchResult> results) {
+		if(puzzles == null || results == null)
+			throw new IllegalArgumentException("puzzles or results is null");
+
+		int[][][] chunk = new int[CHUNK_SIZE][][];
+		BatchResult[] solved = new BatchResult[CHUNK_SIZE];
+		int base = 0;
+		while(puzzles.hasNext()) {
+			int count = 0;
+			while(count < CHUNK_SIZE && puzzles.hasNext())
+				chunk[count++] = puzzles.next();
+
+			int offset = base;
+			this.pool.invoke(new SolveTask((solver, index) -> {
+				try {
+					solved[index] = new BatchResult(offset + index, solver.solve(chunk[index]), null);
+				} catch(RuntimeException e) {
+					solved[index] = new BatchResult(offset + index, null, e);
+				}
+			}, 0, count));
+
+			for(int index = 0; index < count; index++) {
+				results.accept(solved[index]);
+				chunk[index] = null;
+				solved[index] = null;
+			}
+
+			base += count;
+		}
+	}
+
+	/**
+	 * Solve the first puzzles of an array, writing each solution into a caller-supplied array. Once every worker has
+	 * solved a puzzle of the same size, a solver that solves without allocating, such as SudokuSolver or
+	 * DancingLinksSolver, allocates nothing per puzzle, so the same arrays can be reused for batch after batch.
+	 *
+	 * @param puzzles the puzzles to solve
+	 * @param solutions the arrays to write the solutions into, one per puzzle with the same dimensions
+	 * @param solved set to whether each puzzle was solved; the solution array of an unsolved puzzle is left as it was
+	 * @param count the number of puzzles to solve, from the start of the array
+	 * @return the number of puzzles solved
+	 * */
+	public int solveAll(int[][][] puzzles, int[][][] solutions, boolean[] solved, int count) {
+		if(puzzles == null || solutions == null || solved == null)
+			throw new IllegalArgumentException("puzzles, solutions or solved is null");
+
+		if(count < 0 || count > puzzles.length || count > solutions.length || count > solved.length)
+			throw new IllegalArgumentException("count is out of bounds: " + count);
+
+		return this.solveInto(solved, count, (solver, index) -> solver.solve(puzzles[index], solutions[index]));
+	}
+
+	/**
+	 * Solve the first puzzles of an array of flat cell arrays, writing each solution into a caller-supplied array. The
+	 * cells are handed to Solver.solve(byte[], byte[]), which SudokuSolver loads straight into its grid, so puzzles
+	 * decoded from a binary file are solved without building a two-dimensional grid for each.
+	 *
+	 * @param puzzles the puzzles to solve, each a flat array of cells, row by row
+	 * @param solutions the arrays to write the solutions into, one per puzzle with the same length
+	 * @param solved set to whether each puzzle was solved; the solution array of an unsolved puzzle is left as it was
+	 * @param count the number of puzzles to solve, from the start of the array
+	 * @return the number of puzzles solved
+	 * */
+	public int solveAll(byte[][] puzzles, byte[][] solutions, boolean[] solved, int count) {
+		if(puzzles == null || solutions == null || solved == null)
+			throw new IllegalArgumentException("puzzles, solutions or solved is null");
+
+		if(count < 0 || count > puzzles.length || count > solutions.length || count > solved.length)
+			throw new IllegalArgumentException("count is out of bounds: " + count);
+
+		return this.solveInto(solved, count, (solver, index) -> solver.solve(puzzles[index], solutions[index]));
+	}
+
+	/**
+	 * Solve a range of puzzles into caller-supplied solution arrays, then count the puzzles solved.
+	 *
+	 * @param solved set to whether each puzzle was solved
+	 * @param count the number of puzzles to solve, from the start of the batch
+	 * @param solve solves the puzzle at an index with the solver of the worker thread
+	 * @return the number of puzzles solved
+	 * */
+	private int solveInto(boolean[] solved, int count, ObjIntConsumer<Solver> solve) {
+		this.pool.invoke(new SolveTask((solver, index) -> {
+			try {
+				solve.accept(solver, index);
+				solved[index] = true;
+			} catch(RuntimeException e) {
+				solved[index] = false;
+			}
+		}, 0, count));
+
+		int solvedCount = 0;
+		for(int index = 0; index < count; index++) {
+			if(solved[index])
+				solvedCount++;
+		}
+
+		return solvedCount;
+	}
+
+	/**
+	 * Solves a range of the batch, splitting it in half until it is small enough to solve directly. Each puzzle of the
+	 * range is handed, by index, to a callback along with the solver of the worker thread, which solves it and records
+	 * the result.
+	 * */
+	private class SolveTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final ObjIntConsumer<Solver> solve;
+		private final int from;
+		private final int to;
+
+		SolveTask(ObjIntConsumer<Solver> solve, int from, int to) {
+			this.solve = solve;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(this.to - this.from > SPLIT_THRESHOLD) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new SolveTask(this.solve, this.from, middle), new SolveTask(this.solve, middle, this.to));
+				return;
+			}
+
+			Solver solver = BatchSolver.this.solvers.get();
+			for(int index = this.from; index < this.to; index++)
+				this.solve.accept(solver, index);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package solver.impl;
+
+import solver.Solver;
+
+/**
+ * A solver that looks puzzles up in a SolutionCache before handing them to another solver.
+ *
+ * Each puzzle is first brought into a normal form under the symmetries of the grid: relabelling of the values,
+ * permutations of the rows within bands and columns within stacks, permutations of the bands and stacks, and
+ * transposition. Repeated puzzles, and many puzzles that are transformed copies of each other, share a normal form. The
+ * solution of the normal form is looked up, or solved and stored, and then mapped back onto the puzzle.
+ *
+ * A puzzle with several solutions may be given a different one than the wrapped solver would give it, since its
+ * solution is derived from the first isomorphic puzzle that was solved. Puzzles that cannot be solved are not cached.
+ * Like the wrapped solver, a CachingSolver is not thread safe, but several can share one cache.
+ *
+ * @see Canonicalizer
+ * */
+public class CachingSolver implements Solver {
+
+	private final Solver solver;
+	private final SolutionCache cache;
+	private Canonicalizer canonicalizer;
+	private byte[] normalForm;
+	private int[][] normalPuzzle;
+	private int[][] normalSolution;
+
+	/**
+	 * Constructs a CachingSolver with a cache of its own.
+	 *
+	 * @param solver the solver used for puzzles that are not cached
+	 * @param capacity the maximum number of solutions kept
+	 * */
+	public CachingSolver(Solver solver, int capacity) {
+		this(solver, new SolutionCache(capacity));
+	}
+
+	/**
+	 * Constructs a CachingSolver using a given, possibly shared, cache.
+	 *
+	 * @param solver the solver used for puzzles that are not cached
+	 * @param cache the cache of solutions
+	 * */
+	public CachingSolver(Solver solver, SolutionCache cache) {
+		if(solver == null)
+			throw new IllegalArgumentException("solver is null");
+
+		if(cache == null)
+			throw new IllegalArgumentException("cache is null");
+
+		this.solver = solver;
+		this.cache = cache;
+	}
+
+	/**
+	 * Solve a given sudoku grid, from the cache if possible.
+	 *
+	 * @param initGrid the sudoku grid to solve
+	 * @return the solved sudoku grid
+	 * @throws IllegalArgumentException if the grid has invalid dimensions or values, or cannot be solved
+	 * */
+	public int[][] solve(int[][] initGrid) {
+		if(initGrid == null)
+			throw new IllegalArgumentException("provided grid is null");
+
+		return this.solve(initGrid, new int[initGrid.length][initGrid.length]);
+	}
+
+	/**
+	 * Solve a given sudoku grid, from the cache if possible, writing the solution into a caller-supplied array.
+	 *
+	 * @param initGrid the sudoku grid to solve
+	 * @param solution the array to write the solution into, with the same dimensions as the grid to solve
+	 * @return the solution array, holding the solved sudoku grid
+	 * @throws IllegalArgumentException if the grid or the solution array has invalid dimensions, the grid has invalid
+	 * values, or cannot be solved
+	 * */
+	@Override
+	public int[][] solve(int[][] initGrid, int[][] solution) {
+		if(initGrid == null)
+			throw new IllegalArgumentException("provided grid is null");
+
+		int size = GridLayout.forSize(initGrid.length).size;
+		for(int[] row : initGrid) {
+			if(row == null || row.length != size)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+			for(int value : row) {
+				if(value < 0 || value > size)
+					throw new IllegalArgumentException("provided grid has invalid cell; value: " + value);
+			}
+		}
+
+		if(solution == null || solution.length != size)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		for(int[] row : solution) {
+			if(row == null || row.length != size)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+		}
+
+		if(this.canonicalizer == null || this.canonicalizer.getSize() != size) {
+			this.canonicalizer = new Canonicalizer(size);
+			this.normalForm = new byte[size * size];
+			this.normalPuzzle = new int[size][size];
+			this.normalSolution = new int[size][size];
+		}
+
+		this.canonicalizer.canonicalize(initGrid, this.normalForm);
+		byte[] solved = this.cache.get(this.normalForm);
+		if(solved == null) {
+			for(int cell = 0; cell < this.normalForm.length; cell++)
+				this.normalPuzzle[cell / size][cell % size] = this.normalForm[cell];
+
+			this.solver.solve(this.normalPuzzle, this.normalSolution);
+
+			solved = new byte[size * size];
+			for(int cell = 0; cell < solved.length; cell++)
+				solved[cell] = (byte) this.normalSolution[cell / size][cell % size];
+
+			this.cache.put(this.normalForm, solved);
+		}
+
+		this.canonicalizer.restore(solved, solution);
+		return solution;
+	}
+
+	/**
+	 * Get the cache of solutions, with its hit, miss and eviction counts.
+	 *
+	 * @return the cache of solutions
+	 * */
+	public SolutionCache getCache() {
+		return this.cache;
+	}
+}
@@ -0,0 +1,28 @@
+package solver.impl;
+
+/**
+ * A flag shared between a solve and the code that may want to stop it early. Cancelling the token makes every solve
+ * watching it stop at its next limit check and report that it was cancelled.
+ *
+ * Tokens are thread safe, and can be cancelled from any thread. A cancelled token stays cancelled.
+ * */
+public class CancellationToken {
+
+	private volatile boolean cancelled;
+
+	/**
+	 * Request that every solve watching this token stop.
+	 * */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Return whether this token has been cancelled.
+	 *
+	 * @return true if cancel() has been called
+	 * */
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+}
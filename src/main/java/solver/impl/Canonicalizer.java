@@ -0,0 +1,246 @@
+package solver.impl;
+
+import java.util.Arrays;
+
+/**
+ * Brings sudoku puzzles into a normal form under the symmetries of the grid, so that puzzles which differ only by a
+ * relabelling of the values, a permutation of the rows within bands or of the columns within stacks, a permutation of
+ * the bands or stacks, or a transposition, share one representation.
+ *
+ * Rows and columns are ordered by scores that do not depend on the order or labels of the cells: the number of givens
+ * in a row, then the total number of givens in the columns of those givens, then the total number of occurrences of
+ * their values in the grid, and likewise for columns. Bands and stacks are ordered by the total scores of their rows
+ * and columns. Both orientations are tried, and the one giving the smaller normal form is kept. Values are then
+ * relabelled in order of first appearance. Rows or columns with equal scores keep their relative order, so some
+ * isomorphic puzzles have different normal forms; the normal form of a puzzle is always an isomorphic copy of it, so
+ * this only costs cache hits, never correctness.
+ *
+ * The transformation that produced the last normal form is kept, so a solution of the normal form can be mapped back
+ * onto the puzzle. Instances hold scratch space for one grid size and are not thread safe.
+ * */
+final class Canonicalizer {
+
+	private final GridLayout layout;
+
+	//Scratch space for ordering rows, columns, bands and stacks
+	private final int[] rowCounts;
+	private final int[] colCounts;
+	private final int[] valueCounts;
+	private final int[] rowScores;
+	private final int[] colScores;
+	private final int[] bandScores;
+	private final int[] bandOrder;
+	private final int[] labelOf;
+
+	//Transformation of each orientation: source row and column of each row and column, and the label of each value
+	private final int[][] rowMaps;
+	private final int[][] colMaps;
+	private final int[][] labels;
+	private final byte[] transposedForm;
+
+	//Orientation of the last normal form, 1 if transposed
+	private int orientation;
+
+	/**
+	 * Create a canonicalizer for grids of a given size.
+	 *
+	 * @param size the number of rows and columns of the grids
+	 * @throws IllegalArgumentException if the size is not supported
+	 * */
+	Canonicalizer(int size) {
+		this.layout = GridLayout.forSize(size);
+		this.rowCounts = new int[size];
+		this.colCounts = new int[size];
+		this.valueCounts = new int[size];
+		this.rowScores = new int[size];
+		this.colScores = new int[size];
+		this.bandScores = new int[this.layout.boxSize];
+		this.bandOrder = new int[this.layout.boxSize];
+		this.labelOf = new int[size];
+		this.rowMaps = new int[2][size];
+		this.colMaps = new int[2][size];
+		this.labels = new int[2][size + 1];
+		this.transposedForm = new byte[this.layout.cellCount];
+	}
+
+	/**
+	 * Get the number of rows and columns of the grids this canonicalizer handles.
+	 *
+	 * @return the size of the grids
+	 * */
+	int getSize() {
+		return this.layout.size;
+	}
+
+	/**
+	 * Compute the normal form of a puzzle, and keep the transformation for restore().
+	 *
+	 * @param grid a square grid of the size of this canonicalizer, with values 0-N
+	 * @param into receives the cells of the normal form, row by row
+	 * */
+	void canonicalize(int[][] grid, byte[] into) {
+		this.transform(grid, 0, into);
+		this.transform(grid, 1, this.transposedForm);
+
+		this.orientation = 0;
+		for(int cell = 0; cell < into.length; cell++) {
+			if(into[cell] != this.transposedForm[cell]) {
+				if(this.transposedForm[cell] < into[cell]) {
+					this.orientation = 1;
+					System.arraycopy(this.transposedForm, 0, into, 0, into.length);
+				}
+
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Map a solution of the last normal form back onto the puzzle it was computed from.
+	 *
+	 * @param solution the cells of the solved normal form, row by row
+	 * @param into receives the solution of the puzzle
+	 * */
+	void restore(byte[] solution, int[][] into) {
+		int size = this.layout.size;
+		int[] rowMap = this.rowMaps[this.orientation];
+		int[] colMap = this.colMaps[this.orientation];
+		int[] values = this.labels[this.orientation];
+		for(int row = 0; row < size; row++) {
+			for(int col = 0; col < size; col++) {
+				int value = values[solution[row * size + col]];
+				if(this.orientation == 0)
+					into[rowMap[row]][colMap[col]] = value;
+				else
+					into[colMap[col]][rowMap[row]] = value;
+			}
+		}
+	}
+
+	/**
+	 * Order the rows and columns of a grid in one orientation, and write the relabelled result.
+	 * */
+	private void transform(int[][] grid, int orientation, byte[] into) {
+		int size = this.layout.size;
+		Arrays.fill(this.rowCounts, 0);
+		Arrays.fill(this.colCounts, 0);
+		Arrays.fill(this.valueCounts, 0);
+		for(int row = 0; row < size; row++) {
+			for(int col = 0; col < size; col++) {
+				int value = value(grid, orientation, row, col);
+				if(value != 0) {
+					this.rowCounts[row]++;
+					this.colCounts[col]++;
+					this.valueCounts[value - 1]++;
+				}
+			}
+		}
+
+		//Count first; the givens in the lines crossing the givens break ties, then the frequencies of their values
+		int scale = this.layout.cellCount + 1;
+		for(int line = 0; line < size; line++) {
+			this.rowScores[line] = this.rowCounts[line] * scale;
+			this.colScores[line] = this.colCounts[line] * scale;
+		}
+
+		for(int row = 0; row < size; row++) {
+			for(int col = 0; col < size; col++) {
+				if(value(grid, orientation, row, col) != 0) {
+					this.rowScores[row] += this.colCounts[col];
+					this.colScores[col] += this.rowCounts[row];
+				}
+			}
+		}
+
+		for(int line = 0; line < size; line++) {
+			this.rowScores[line] *= scale;
+			this.colScores[line] *= scale;
+		}
+
+		for(int row = 0; row < size; row++) {
+			for(int col = 0; col < size; col++) {
+				int value = value(grid, orientation, row, col);
+				if(value != 0) {
+					this.rowScores[row] += this.valueCounts[value - 1];
+					this.colScores[col] += this.valueCounts[value - 1];
+				}
+			}
+		}
+
+		this.orderLines(this.rowScores, this.rowMaps[orientation]);
+		this.orderLines(this.colScores, this.colMaps[orientation]);
+
+		//Relabel values in order of first appearance; values that do not appear take the remaining labels in order
+		int[] rowMap = this.rowMaps[orientation];
+		int[] colMap = this.colMaps[orientation];
+		int[] values = this.labels[orientation];
+		int[] labelOf = this.labelOf;
+		Arrays.fill(labelOf, 0);
+		int next = 1;
+		for(int row = 0; row < size; row++) {
+			for(int col = 0; col < size; col++) {
+				int value = value(grid, orientation, rowMap[row], colMap[col]);
+				if(value != 0 && labelOf[value - 1] == 0)
+					labelOf[value - 1] = next++;
+
+				into[row * size + col] = (byte) (value == 0 ? 0 : labelOf[value - 1]);
+			}
+		}
+
+		for(int value = 0; value < size; value++) {
+			if(labelOf[value] == 0)
+				labelOf[value] = next++;
+
+			values[labelOf[value]] = value + 1;
+		}
+
+		values[0] = 0;
+	}
+
+	/**
+	 * Order the bands (or stacks) by descending total score, and the lines within each by descending score. Equal
+	 * scores keep their original order.
+	 *
+	 * @param scores the score of every line
+	 * @param into receives the source line of each position
+	 * */
+	private void orderLines(int[] scores, int[] into) {
+		int boxSize = this.layout.boxSize;
+		for(int band = 0; band < boxSize; band++) {
+			this.bandScores[band] = 0;
+			for(int line = band * boxSize; line < (band + 1) * boxSize; line++)
+				this.bandScores[band] += scores[line];
+
+			this.bandOrder[band] = band;
+		}
+
+		sortDescending(this.bandOrder, 0, boxSize, this.bandScores);
+		for(int position = 0; position < boxSize; position++) {
+			int band = this.bandOrder[position];
+			for(int offset = 0; offset < boxSize; offset++)
+				into[position * boxSize + offset] = band * boxSize + offset;
+
+			sortDescending(into, position * boxSize, (position + 1) * boxSize, scores);
+		}
+	}
+
+	/**
+	 * Stable insertion sort of a range of items by descending key.
+	 * */
+	private static void sortDescending(int[] items, int from, int to, int[] keys) {
+		for(int index = from + 1; index < to; index++) {
+			int item = items[index];
+			int position = index;
+			while(position > from && keys[items[position - 1]] < keys[item]) {
+				items[position] = items[position - 1];
+				position--;
+			}
+
+			items[position] = item;
+		}
+	}
+
+	private static int value(int[][] grid, int orientation, int row, int col) {
+		return orientation == 0 ? grid[row][col] : grid[col][row];
+	}
+}
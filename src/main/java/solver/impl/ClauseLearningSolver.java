@@ -0,0 +1,818 @@
+package solver.impl;
+
+import solver.Solver;
+
+import java.util.Arrays;
+
+/**
+ * A sudoku solver that encodes the grid as a boolean satisfiability problem and solves it by conflict-driven clause
+ * learning (CDCL). Chronological backtracking rediscovers the same contradiction in every subtree it appears in; a
+ * clause learned from a conflict rules it out everywhere, and the search jumps straight back to the decision that
+ * caused it, which pays off on large and adversarial grids.
+ *
+ * An NxN sudoku has one variable per cell and value. The encoding holds, for every cell, row, column and quadrant, a
+ * clause requiring at least one value (or position), and a binary clause for every pair forbidding both. It is built
+ * once per grid size, in a preallocated clause arena. Each solve loads the puzzle into a SudokuGrid, whose given and
+ * simplified cells and narrowed candidates become fixed assignments, then searches with two watched literals per
+ * clause, first unique implication point learning, non-chronological backjumping, variable activities, phase saving,
+ * and restarts on a Luby schedule of conflicts. Learned clauses are kept only for the puzzle they were learned on.
+ *
+ * Instances are not thread safe, but may be reused for any number of puzzles.
+ * */
+public class ClauseLearningSolver implements Solver {
+
+	//Conflicts of the shortest runs between restarts
+	private static final long RESTART_UNIT = 64;
+
+	//Factor by which the activities of variables fade after every conflict
+	private static final double ACTIVITY_DECAY = 0.95;
+	private static final double ACTIVITY_LIMIT = 1e100;
+
+	private static final int NO_REASON = -1;
+
+	private final RestartSchedule restarts = RestartSchedule.luby(RESTART_UNIT);
+
+	private GridLayout layout;
+	private SudokuGrid grid;
+	private byte[] cells;
+	private int variableCount;
+
+	//Clause arena: each clause is its length followed by its literals, and is referred to by the index of its length;
+	//the clauses of the encoding end at baseSize, and learned clauses follow
+	private int[] arena;
+	private int arenaSize;
+	private int baseSize;
+
+	//Clauses whose first or second literal is a given literal; literal 2v is variable v, and 2v + 1 its negation
+	private int[][] watches;
+	private int[] watchCount;
+
+	//Learned clauses and the number of decision levels each spanned when it was learned
+	private int[] learned;
+	private int[] learnedLevels;
+	private int learnedCount;
+	private int maxLearned;
+
+	//Value of every literal: 1 if true, -1 if false, 0 if unassigned
+	private byte[] values;
+	private int[] level;
+	private int[] reason;
+	private boolean[] negativePhase;
+
+	//Assigned literals in order, the start of every decision level on it, and the next literal to propagate
+	private int[] trail;
+	private int trailSize;
+	private int[] levelStart;
+	private int decisionLevel;
+	private int head;
+
+	//Unassigned variables ordered by activity, in a binary max-heap
+	private double[] activity;
+	private double activityIncrement;
+	private int[] heap;
+	private int heapSize;
+	private int[] heapIndex;
+
+	//Scratch space of conflict analysis
+	private boolean[] seen;
+	private int[] clause;
+	private int clauseSize;
+	private int[] analyzed;
+	private int[] levelStamp;
+	private int stamp;
+
+	private long conflicts;
+	private long decisions;
+
+	/**
+	 * Build the encoding for a 9x9 sudoku grid.
+	 * */
+	public ClauseLearningSolver() {
+		this(9);
+	}
+
+	/**
+	 * Build the encoding for a sudoku grid of a given size. Puzzles of other sizes can still be solved, but the
+	 * encoding is rebuilt whenever the size changes.
+	 *
+	 * @param size the number of rows and columns of the grid: 4, 9, 16 or 25
+	 * */
+	public ClauseLearningSolver(int size) {
+		this.build(GridLayout.forSize(size));
+	}
+
+	/**
+	 * Build the clauses of the encoding for a grid layout into a new arena, and watch the first two literals of each.
+	 *
+	 * @param layout the layout of the grids to solve
+	 * */
+	private void build(GridLayout layout) {
+		int size = layout.size;
+		int cellCount = layout.cellCount;
+		int variables = cellCount * size;
+		int groups = cellCount * 4;
+
+		this.layout = layout;
+		this.variableCount = variables;
+		this.cells = new byte[cellCount];
+		this.arena = new int[groups * (1 + size) + groups * size * (size - 1) / 2 * 3];
+		this.arenaSize = 0;
+		this.watches = new int[variables * 2][];
+		this.watchCount = new int[variables * 2];
+		this.learned = new int[64];
+		this.learnedLevels = new int[64];
+		this.learnedCount = 0;
+
+		this.values = new byte[variables * 2];
+		this.level = new int[variables];
+		this.reason = new int[variables];
+		this.negativePhase = new boolean[variables];
+		this.trail = new int[variables];
+		this.levelStart = new int[variables + 1];
+		this.activity = new double[variables];
+		this.heap = new int[variables];
+		this.heapIndex = new int[variables];
+		this.seen = new boolean[variables];
+		this.clause = new int[variables];
+		this.analyzed = new int[variables];
+		this.levelStamp = new int[variables + 1];
+
+		//Every cell holds a value, and every row, column and quadrant holds every value; group g of a cell or unit
+		//lists the variables of one constraint, of which exactly one is true
+		int[] group = new int[size];
+		for(int constraint = 0; constraint < groups; constraint++) {
+			int kind = constraint / cellCount;
+			int index = constraint % cellCount;
+			for(int member = 0; member < size; member++) {
+				if(kind == 0) {
+					group[member] = index * size + member;
+				} else {
+					//Units are numbered rows, then columns, then quadrants, as in the layout
+					int unit = (kind - 1) * size + index / size;
+					group[member] = layout.units[unit][member] * size + index % size;
+				}
+			}
+
+			int first = this.arenaSize;
+			this.arena[this.arenaSize++] = size;
+			for(int member = 0; member < size; member++)
+				this.arena[this.arenaSize++] = group[member] << 1;
+
+			this.countWatch(this.arena[first + 1]);
+			this.countWatch(this.arena[first + 2]);
+
+			for(int one = 0; one < size; one++) {
+				for(int other = one + 1; other < size; other++) {
+					this.arena[this.arenaSize++] = 2;
+					this.arena[this.arenaSize++] = group[one] << 1 | 1;
+					this.arena[this.arenaSize++] = group[other] << 1 | 1;
+					this.countWatch(group[one] << 1 | 1);
+					this.countWatch(group[other] << 1 | 1);
+				}
+			}
+		}
+
+		//Size the watch lists by the counts, then fill them
+		for(int literal = 0; literal < this.watches.length; literal++) {
+			this.watches[literal] = new int[Math.max(this.watchCount[literal], 4)];
+			this.watchCount[literal] = 0;
+		}
+
+		for(int clause = 0; clause < this.arenaSize; clause += 1 + this.arena[clause]) {
+			this.watch(this.arena[clause + 1], clause);
+			this.watch(this.arena[clause + 2], clause);
+		}
+
+		this.baseSize = this.arenaSize;
+	}
+
+	/**
+	 * Solve a given sudoku grid.
+	 *
+	 * @param initGrid the sudoku grid to solve, where empty cells have a value of 0
+	 * @return the solved sudoku grid
+	 * @throws IllegalArgumentException if the grid has invalid dimensions or values, or cannot be solved
+	 * */
+	public int[][] solve(int[][] initGrid) {
+		if(initGrid == null)
+			throw new IllegalArgumentException("provided grid is null");
+
+		return this.solve(initGrid, new int[initGrid.length][initGrid.length]);
+	}
+
+	/**
+	 * Solve a given sudoku grid, writing the solution into a caller-supplied array. Once the encoding is built for the
+	 * size of the grid, solving this way only allocates for the clauses it learns.
+	 *
+	 * @param initGrid the sudoku grid to solve, where empty cells have a value of 0
+	 * @param solution the array to write the solution into, with the same dimensions as the grid to solve
+	 * @return the solution array, holding the solved sudoku grid
+	 * @throws IllegalArgumentException if the grid or the solution array has invalid dimensions, the grid has invalid
+	 * values, or cannot be solved
+	 * */
+	@Override
+	public int[][] solve(int[][] initGrid, int[][] solution) {
+		if(initGrid == null)
+			throw new IllegalArgumentException("provided grid is null");
+
+		if(solution == null || solution.length != initGrid.length)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		for(int[] row : solution) {
+			if(row == null || row.length != initGrid.length)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+		}
+
+		if(this.grid == null)
+			this.grid = new SudokuGrid(initGrid);
+		else
+			this.grid.reset(initGrid);
+
+		this.solveGrid();
+		int size = this.layout.size;
+		for(int cell = 0; cell < this.layout.cellCount; cell++)
+			solution[cell / size][cell % size] = this.cells[cell];
+
+		return solution;
+	}
+
+	/**
+	 * Solve a sudoku grid given as a flat array of cells, row by row, writing the solution into a caller-supplied
+	 * array of the same length.
+	 *
+	 * @param cells the sudoku grid to solve, where empty cells have a value of 0
+	 * @param solution the array to write the solution into
+	 * @return the solution array, holding the solved sudoku grid
+	 * @throws IllegalArgumentException if the grid or the solution array has an invalid length, the grid has invalid
+	 * values, or cannot be solved
+	 * */
+	@Override
+	public byte[] solve(byte[] cells, byte[] solution) {
+		if(cells == null)
+			throw new IllegalArgumentException("provided grid is null");
+
+		if(solution == null || solution.length != cells.length)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		if(this.grid == null)
+			this.grid = new SudokuGrid(cells, true);
+		else
+			this.grid.reset(cells);
+
+		this.solveGrid();
+		System.arraycopy(this.cells, 0, solution, 0, solution.length);
+		return solution;
+	}
+
+	/**
+	 * Get the number of conflicts met by the last solve.
+	 *
+	 * @return the number of conflicts, each of which taught the solver a clause
+	 * */
+	public long getConflicts() {
+		return this.conflicts;
+	}
+
+	/**
+	 * Get the number of decisions made by the last solve.
+	 *
+	 * @return the number of decisions made
+	 * */
+	public long getDecisions() {
+		return this.decisions;
+	}
+
+	/**
+	 * Solve the loaded grid into the cells of the solver, and forget the clauses learned on it.
+	 *
+	 * @throws IllegalArgumentException if the grid cannot be solved
+	 * */
+	private void solveGrid() {
+		GridLayout layout = GridLayout.forSize(this.grid.getSize());
+		if(layout != this.layout)
+			this.build(layout);
+
+		this.conflicts = 0;
+		this.decisions = 0;
+		boolean solved = this.grid.getConflictCount() == 0 && this.search();
+		if(solved) {
+			int size = layout.size;
+			for(int variable = 0; variable < this.variableCount; variable++) {
+				if(this.values[variable << 1] > 0)
+					this.cells[variable / size] = (byte) (variable % size + 1);
+			}
+		}
+
+		//Leave the encoding as it was built for the next solve
+		this.unassign(-1);
+		this.forgetLearned();
+		if(!solved)
+			throw new IllegalArgumentException("invalid sudoku puzzle; cannot be solved");
+	}
+
+	/**
+	 * Fix the values and candidates of the loaded grid, then decide, propagate and learn until every variable is
+	 * assigned or a conflict arises without any decision to undo.
+	 *
+	 * @return true if the grid has a solution, which the assignment holds, false otherwise
+	 * */
+	private boolean search() {
+		int size = this.layout.size;
+		this.grid.getValues(this.cells);
+
+		//Cells more constrained by the puzzle start out more active, so they are decided first
+		this.activityIncrement = 1;
+		for(int cell = 0; cell < this.layout.cellCount; cell++) {
+			int mask = this.cells[cell] != 0 ? 1 << (this.cells[cell] - 1) : this.grid.getCandidates(cell);
+			for(int value = 0; value < size; value++) {
+				int variable = cell * size + value;
+				this.activity[variable] = size - Integer.bitCount(mask);
+				this.negativePhase[variable] = false;
+			}
+		}
+
+		this.heapSize = 0;
+		for(int variable = 0; variable < this.variableCount; variable++)
+			this.heapInsert(variable);
+
+		for(int cell = 0; cell < this.layout.cellCount; cell++) {
+			int mask = this.cells[cell] != 0 ? 1 << (this.cells[cell] - 1) : this.grid.getCandidates(cell);
+			for(int value = 0; value < size; value++) {
+				int literal = (cell * size + value) << 1 | ((mask & 1 << value) != 0 ? 0 : 1);
+				if((literal & 1) == 0 && this.cells[cell] == 0)
+					continue;
+
+				if(this.values[literal] < 0)
+					return false;
+
+				if(this.values[literal] == 0)
+					this.enqueue(literal, NO_REASON);
+			}
+		}
+
+		this.maxLearned = this.variableCount / 2;
+		int run = 0;
+		long runConflicts = 0;
+		long runLimit = this.restarts.getNodeLimit(run);
+		while(true) {
+			int conflict = this.propagate();
+			if(conflict != NO_REASON) {
+				this.conflicts++;
+				runConflicts++;
+				if(this.decisionLevel == 0)
+					return false;
+
+				int backjump = this.analyze(conflict);
+				this.unassign(backjump);
+				this.learn();
+				this.activityIncrement /= ACTIVITY_DECAY;
+				continue;
+			}
+
+			if(runConflicts >= runLimit) {
+				this.unassign(0);
+				runLimit = this.restarts.getNodeLimit(++run);
+				runConflicts = 0;
+				if(this.learnedCount >= this.maxLearned && !this.reduceLearned())
+					return false;
+
+				continue;
+			}
+
+			int literal = this.pickBranch();
+			if(literal < 0)
+				return true;
+
+			this.decisions++;
+			this.levelStart[this.decisionLevel++] = this.trailSize;
+			this.enqueue(literal, NO_REASON);
+		}
+	}
+
+	/**
+	 * Propagate every assigned literal not yet propagated. The clauses watching a literal that became false look for
+	 * another literal to watch; a clause that finds none implies its other watched literal, or is in conflict if that
+	 * literal is false too.
+	 *
+	 * @return the clause in conflict, or NO_REASON if there is none
+	 * */
+	private int propagate() {
+		int[] arena = this.arena;
+		byte[] values = this.values;
+		while(this.head < this.trailSize) {
+			int falseLiteral = this.trail[this.head++] ^ 1;
+			int[] list = this.watches[falseLiteral];
+			int count = this.watchCount[falseLiteral];
+			int kept = 0;
+			for(int index = 0; index < count; index++) {
+				int clause = list[index];
+				int start = clause + 1;
+
+				//Keep the false literal second, so the first is the one implied if no other literal is found
+				if(arena[start] == falseLiteral) {
+					arena[start] = arena[start + 1];
+					arena[start + 1] = falseLiteral;
+				}
+
+				int first = arena[start];
+				if(values[first] > 0) {
+					list[kept++] = clause;
+					continue;
+				}
+
+				int end = start + arena[clause];
+				int other = start + 2;
+				while(other < end && values[arena[other]] < 0)
+					other++;
+
+				if(other < end) {
+					arena[start + 1] = arena[other];
+					arena[other] = falseLiteral;
+					this.watch(arena[start + 1], clause);
+					continue;
+				}
+
+				list[kept++] = clause;
+				if(values[first] < 0) {
+					while(++index < count)
+						list[kept++] = list[index];
+
+					this.watchCount[falseLiteral] = kept;
+					this.head = this.trailSize;
+					return clause;
+				}
+
+				this.enqueue(first, clause);
+			}
+
+			this.watchCount[falseLiteral] = kept;
+		}
+
+		return NO_REASON;
+	}
+
+	/**
+	 * Learn a clause from a conflict by resolving it with the reasons of the literals assigned on the current
+	 * decision level, most recent first, until a single literal of that level is left: the first unique implication
+	 * point. The negation of that literal is first in the learned clause. Literals implied by other literals of the
+	 * clause are left out of it.
+	 *
+	 * @param conflict the clause in conflict
+	 * @return the deepest decision level at which the learned clause implies its first literal
+	 * */
+	private int analyze(int conflict) {
+		int pending = 0;
+		int literal = -1;
+		int index = this.trailSize - 1;
+		int reason = conflict;
+		this.clauseSize = 1;
+		do {
+			//The first literal of a reason is the one it implied, which is already accounted for
+			int end = reason + 1 + this.arena[reason];
+			for(int position = reason + (literal < 0 ? 1 : 2); position < end; position++) {
+				int other = this.arena[position];
+				int variable = other >> 1;
+				if(this.seen[variable] || this.level[variable] == 0)
+					continue;
+
+				this.seen[variable] = true;
+				this.bumpActivity(variable);
+				if(this.level[variable] >= this.decisionLevel)
+					pending++;
+				else
+					this.clause[this.clauseSize++] = other;
+			}
+
+			while(!this.seen[this.trail[index] >> 1])
+				index--;
+
+			literal = this.trail[index--];
+			reason = this.reason[literal >> 1];
+			this.seen[literal >> 1] = false;
+			pending--;
+		} while(pending > 0);
+
+		this.clause[0] = literal ^ 1;
+
+		//Drop literals whose reason holds only literals of the clause, or literals fixed by the puzzle
+		int analyzedCount = this.clauseSize - 1;
+		System.arraycopy(this.clause, 1, this.analyzed, 0, analyzedCount);
+		int kept = 1;
+		for(int position = 1; position < this.clauseSize; position++) {
+			int other = this.clause[position];
+			if(!this.isRedundant(other))
+				this.clause[kept++] = other;
+		}
+
+		this.clauseSize = kept;
+		for(int position = 0; position < analyzedCount; position++)
+			this.seen[this.analyzed[position] >> 1] = false;
+
+		//The second literal is one of the deepest remaining, so it is the last to become unassigned
+		int backjump = 0;
+		for(int position = 1; position < this.clauseSize; position++) {
+			int depth = this.level[this.clause[position] >> 1];
+			if(depth > backjump) {
+				backjump = depth;
+				int swap = this.clause[1];
+				this.clause[1] = this.clause[position];
+				this.clause[position] = swap;
+			}
+		}
+
+		return backjump;
+	}
+
+	/**
+	 * Test whether a literal of a learned clause is implied by the other literals of the clause.
+	 * */
+	private boolean isRedundant(int literal) {
+		int reason = this.reason[literal >> 1];
+		if(reason == NO_REASON)
+			return false;
+
+		int end = reason + 1 + this.arena[reason];
+		for(int position = reason + 2; position < end; position++) {
+			int variable = this.arena[position] >> 1;
+			if(!this.seen[variable] && this.level[variable] > 0)
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Add the clause learned by the last analysis, after backjumping, and assign its first literal, which is the only
+	 * one left unassigned.
+	 * */
+	private void learn() {
+		int literal = this.clause[0];
+		if(this.clauseSize == 1) {
+			this.enqueue(literal, NO_REASON);
+			return;
+		}
+
+		//Count the decision levels of the clause; clauses spanning few levels are the most useful to keep
+		this.stamp++;
+		int levels = 0;
+		for(int position = 0; position < this.clauseSize; position++) {
+			int depth = this.level[this.clause[position] >> 1];
+			if(this.levelStamp[depth] != this.stamp) {
+				this.levelStamp[depth] = this.stamp;
+				levels++;
+			}
+		}
+
+		int clause = this.addLearned(this.clause, this.clauseSize, levels);
+		this.watch(this.clause[0], clause);
+		this.watch(this.clause[1], clause);
+		this.enqueue(literal, clause);
+	}
+
+	/**
+	 * Append a learned clause to the arena.
+	 *
+	 * @return the clause
+	 * */
+	private int addLearned(int[] literals, int length, int levels) {
+		if(this.arenaSize + 1 + length > this.arena.length)
+			this.arena = Arrays.copyOf(this.arena, Math.max(this.arena.length * 2, this.arenaSize + 1 + length));
+
+		if(this.learnedCount == this.learned.length) {
+			this.learned = Arrays.copyOf(this.learned, this.learnedCount * 2);
+			this.learnedLevels = Arrays.copyOf(this.learnedLevels, this.learnedCount * 2);
+		}
+
+		int clause = this.arenaSize;
+		this.arena[this.arenaSize++] = length;
+		System.arraycopy(literals, 0, this.arena, this.arenaSize, length);
+		this.arenaSize += length;
+		this.learned[this.learnedCount] = clause;
+		this.learnedLevels[this.learnedCount++] = levels;
+		return clause;
+	}
+
+	/**
+	 * Drop the learned clauses spanning the most decision levels, keeping those spanning two or fewer, and allow more
+	 * learned clauses before the next reduction. Called on decision level 0 only: the clauses kept are compacted in
+	 * the arena, and literals fixed on level 0 are removed from them.
+	 *
+	 * @return false if a clause kept turned out to be in conflict on level 0
+	 * */
+	private boolean reduceLearned() {
+		int[] sorted = Arrays.copyOf(this.learnedLevels, this.learnedCount);
+		Arrays.sort(sorted);
+		int median = sorted[sorted.length / 2];
+
+		int count = this.learnedCount;
+		this.learnedCount = 0;
+		this.arenaSize = this.baseSize;
+		this.stripLearnedWatches();
+		for(int variable = 0; variable < this.variableCount; variable++)
+			this.reason[variable] = NO_REASON;
+
+		//Kept clauses only move down the arena, so they can be copied in place
+		for(int index = 0; index < count; index++) {
+			int levels = this.learnedLevels[index];
+			if(levels > 2 && levels >= median)
+				continue;
+
+			int clause = this.learned[index];
+			int end = clause + 1 + this.arena[clause];
+			int length = 0;
+			boolean satisfied = false;
+			for(int position = clause + 1; position < end && !satisfied; position++) {
+				int literal = this.arena[position];
+				satisfied = this.values[literal] > 0;
+				if(this.values[literal] == 0)
+					this.clause[length++] = literal;
+			}
+
+			if(satisfied)
+				continue;
+
+			if(length == 0)
+				return false;
+
+			if(length == 1) {
+				this.enqueue(this.clause[0], NO_REASON);
+				continue;
+			}
+
+			int kept = this.addLearned(this.clause, length, levels);
+			this.watch(this.clause[0], kept);
+			this.watch(this.clause[1], kept);
+		}
+
+		this.maxLearned += this.maxLearned / 10;
+		return true;
+	}
+
+	/**
+	 * Drop every learned clause.
+	 * */
+	private void forgetLearned() {
+		if(this.learnedCount == 0)
+			return;
+
+		this.stripLearnedWatches();
+		this.learnedCount = 0;
+		this.arenaSize = this.baseSize;
+	}
+
+	/**
+	 * Remove every learned clause from the watch lists.
+	 * */
+	private void stripLearnedWatches() {
+		for(int literal = 0; literal < this.watches.length; literal++) {
+			int[] list = this.watches[literal];
+			int count = this.watchCount[literal];
+			int kept = 0;
+			for(int index = 0; index < count; index++) {
+				if(list[index] < this.baseSize)
+					list[kept++] = list[index];
+			}
+
+			this.watchCount[literal] = kept;
+		}
+	}
+
+	/**
+	 * Choose the unassigned variable with the highest activity, in the phase it last had.
+	 *
+	 * @return the literal to decide, or -1 if every variable is assigned
+	 * */
+	private int pickBranch() {
+		while(this.heapSize > 0) {
+			int variable = this.heapRemoveMax();
+			if(this.values[variable << 1] == 0)
+				return variable << 1 | (this.negativePhase[variable] ? 1 : 0);
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Assign a literal on the current decision level.
+	 *
+	 * @param literal the literal to make true
+	 * @param reason the clause implying it, or NO_REASON for a decision or a fixed literal
+	 * */
+	private void enqueue(int literal, int reason) {
+		int variable = literal >> 1;
+		this.values[literal] = 1;
+		this.values[literal ^ 1] = -1;
+		this.level[variable] = this.decisionLevel;
+		this.reason[variable] = reason;
+		this.trail[this.trailSize++] = literal;
+	}
+
+	/**
+	 * Undo every assignment above a decision level, saving the phase of each variable and returning it to the heap.
+	 *
+	 * @param target the decision level to go back to; 0 keeps only the fixed literals, and -1 undoes those as well
+	 * */
+	private void unassign(int target) {
+		int bottom = target < 0 ? 0 : target < this.decisionLevel ? this.levelStart[target] : this.trailSize;
+
+		for(int index = this.trailSize - 1; index >= bottom; index--) {
+			int literal = this.trail[index];
+			int variable = literal >> 1;
+			this.values[literal] = 0;
+			this.values[literal ^ 1] = 0;
+			this.reason[variable] = NO_REASON;
+			this.negativePhase[variable] = (literal & 1) != 0;
+			if(this.heapIndex[variable] < 0)
+				this.heapInsert(variable);
+		}
+
+		this.trailSize = bottom;
+		this.head = Math.min(this.head, bottom);
+		this.decisionLevel = Math.min(this.decisionLevel, Math.max(target, 0));
+	}
+
+	private void countWatch(int literal) {
+		this.watchCount[literal]++;
+	}
+
+	private void watch(int literal, int clause) {
+		int count = this.watchCount[literal];
+		if(count == this.watches[literal].length)
+			this.watches[literal] = Arrays.copyOf(this.watches[literal], count * 2);
+
+		this.watches[literal][count] = clause;
+		this.watchCount[literal] = count + 1;
+	}
+
+	private void bumpActivity(int variable) {
+		this.activity[variable] += this.activityIncrement;
+		if(this.activity[variable] > ACTIVITY_LIMIT) {
+			for(int other = 0; other < this.variableCount; other++)
+				this.activity[other] /= ACTIVITY_LIMIT;
+
+			this.activityIncrement /= ACTIVITY_LIMIT;
+		}
+
+		if(this.heapIndex[variable] >= 0)
+			this.siftUp(this.heapIndex[variable]);
+	}
+
+	private void heapInsert(int variable) {
+		this.heap[this.heapSize] = variable;
+		this.heapIndex[variable] = this.heapSize;
+		this.siftUp(this.heapSize++);
+	}
+
+	private int heapRemoveMax() {
+		int top = this.heap[0];
+		this.heapIndex[top] = -1;
+		int last = this.heap[--this.heapSize];
+		if(this.heapSize > 0) {
+			this.heap[0] = last;
+			this.heapIndex[last] = 0;
+			this.siftDown(0);
+		}
+
+		return top;
+	}
+
+	private void siftUp(int index) {
+		int variable = this.heap[index];
+		double key = this.activity[variable];
+		while(index > 0) {
+			int parent = (index - 1) >> 1;
+			if(this.activity[this.heap[parent]] >= key)
+				break;
+
+			this.heap[index] = this.heap[parent];
+			this.heapIndex[this.heap[index]] = index;
+			index = parent;
+		}
+
+		this.heap[index] = variable;
+		this.heapIndex[variable] = index;
+	}
+
+	private void siftDown(int index) {
+		int variable = this.heap[index];
+		double key = this.activity[variable];
+		while(true) {
+			int child = index * 2 + 1;
+			if(child >= this.heapSize)
+				break;
+
+			if(child + 1 < this.heapSize && this.activity[this.heap[child + 1]] > this.activity[this.heap[child]])
+				child++;
+
+			if(this.activity[this.heap[child]] <= key)
+				break;
+
+			this.heap[index] = this.heap[child];
+			this.heapIndex[this.heap[index]] = index;
+			index = child;
+		}
+
+		this.heap[index] = variable;
+		this.heapIndex[variable] = index;
+	}
+}
@@ -0,0 +1,321 @@
+package solver.impl;
+
+import solver.Solver;
+
+/**
+ * A sudoku solver modeled after Knuth's Algorithm X, using Dancing Links to represent the exact cover problem.
+ *
+ * An NxN sudoku is an exact cover problem with N^3 candidates (one per cell and value) and 4N^2 constraints: each cell
+ * holds one value, and each row, column and quadrant holds each value once. The constraint matrix is built once per
+ * grid size, in a preallocated node arena. Each solve covers the given cells, searches, and then uncovers everything
+ * it covered, leaving the arena ready for the next solve of the same size without any allocation.
+ *
+ * Instances are not thread safe, but may be reused for any number of puzzles.
+ * */
+public class DancingLinksSolver implements Solver {
+
+	private static final int ROOT = 0;
+
+	private GridLayout layout;
+
+	//Node arena; nodes 1 to 4N^2 are the constraint column headers, followed by four nodes per candidate
+	private int[] left;
+	private int[] right;
+	private int[] up;
+	private int[] down;
+	private int[] column;
+	private int[] candidate;
+	private int[] columnSize;
+
+	//First node of each candidate row in the arena
+	private int[] candidateNode;
+
+	//Candidate rows covered for the given cells of the current puzzle, and the value of each cell in the solution
+	private int[] givens;
+	private int[] solution;
+	private int iterations;
+
+	/**
+	 * Build the constraint matrix for a 9x9 sudoku grid.
+	 * */
+	public DancingLinksSolver() {
+		this(9);
+	}
+
+	/**
+	 * Build the constraint matrix for a sudoku grid of a given size. Puzzles of other sizes can still be solved, but
+	 * the matrix is rebuilt whenever the size changes.
+	 *
+	 * @param size the number of rows and columns of the grid: 4, 9, 16 or 25
+	 * */
+	public DancingLinksSolver(int size) {
+		this.build(GridLayout.forSize(size));
+	}
+
+	/**
+	 * Build the constraint matrix for a grid layout into a new node arena.
+	 *
+	 * @param layout the layout of the grids to solve
+	 * */
+	private void build(GridLayout layout) {
+		int size = layout.size;
+		int cellCount = layout.cellCount;
+		int constraints = cellCount * 4;
+		int candidates = cellCount * size;
+		int nodes = 1 + constraints + candidates * 4;
+
+		this.layout = layout;
+		this.left = new int[nodes];
+		this.right = new int[nodes];
+		this.up = new int[nodes];
+		this.down = new int[nodes];
+		this.column = new int[nodes];
+		this.candidate = new int[nodes];
+		this.columnSize = new int[nodes];
+		this.candidateNode = new int[candidates];
+		this.givens = new int[cellCount];
+		this.solution = new int[cellCount];
+
+		//Link column headers in a circular list around the root
+		for(int node = 0; node <= constraints; node++) {
+			this.left[node] = node == 0 ? constraints : node - 1;
+			this.right[node] = node == constraints ? 0 : node + 1;
+			this.up[node] = node;
+			this.down[node] = node;
+			this.column[node] = node;
+		}
+
+		int node = constraints + 1;
+		int[] candidateConstraints = new int[4];
+		for(int cell = 0; cell < cellCount; cell++) {
+			int row = layout.rowOf[cell];
+			int col = layout.colOf[cell];
+			int quadrant = layout.quadrantOf[cell];
+			for(int value = 0; value < size; value++) {
+				int id = cell * size + value;
+				int first = node;
+				this.candidateNode[id] = first;
+
+				candidateConstraints[0] = 1 + cell;
+				candidateConstraints[1] = 1 + cellCount + row * size + value;
+				candidateConstraints[2] = 1 + cellCount * 2 + col * size + value;
+				candidateConstraints[3] = 1 + cellCount * 3 + quadrant * size + value;
+
+				for(int index = 0; index < 4; index++, node++) {
+					int header = candidateConstraints[index];
+					this.column[node] = header;
+					this.candidate[node] = id;
+
+					//Append to the bottom of the column
+					this.up[node] = this.up[header];
+					this.down[node] = header;
+					this.down[this.up[header]] = node;
+					this.up[header] = node;
+					this.columnSize[header]++;
+
+					//Link into the candidate row
+					this.left[node] = index == 0 ? first + 3 : node - 1;
+					this.right[node] = index == 3 ? first : node + 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Solve a given sudoku grid.
+	 *
+	 * @param initGrid the sudoku grid to solve, where empty cells have a value of 0
+	 * @return the solved sudoku grid
+	 * @throws IllegalArgumentException if the grid has invalid dimensions or values, or cannot be solved
+	 * */
+	public int[][] solve(int[][] initGrid) {
+		if(initGrid == null)
+			throw new IllegalArgumentException("provided grid is null");
+
+		return this.solve(initGrid, new int[initGrid.length][initGrid.length]);
+	}
+
+	/**
+	 * Solve a given sudoku grid, writing the solution into a caller-supplied array. Once the arena is built for the
+	 * size of the grid, solving this way allocates nothing.
+	 *
+	 * @param initGrid the sudoku grid to solve, where empty cells have a value of 0
+	 * @param solution the array to write the solution into, with the same dimensions as the grid to solve
+	 * @return the solution array, holding the solved sudoku grid
+	 * @throws IllegalArgumentException if the grid or the solution array has invalid dimensions, the grid has invalid
+	 * values, or cannot be solved
+	 * */
+	@Override
+	public int[][] solve(int[][] initGrid, int[][] solution) {
+		if(initGrid == null)
+			throw new IllegalArgumentException("provided grid is null");
+
+		GridLayout layout = GridLayout.forSize(initGrid.length);
+		int size = layout.size;
+		for(int[] row : initGrid) {
+			if(row == null || row.length != size)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+			for(int value : row) {
+				if(value < 0 || value > size)
+					throw new IllegalArgumentException("provided grid has invalid cell; value: " + value);
+			}
+		}
+
+		if(solution == null || solution.length != size)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		for(int[] row : solution) {
+			if(row == null || row.length != size)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+		}
+
+		if(layout != this.layout)
+			this.build(layout);
+
+		this.iterations = 0;
+
+		//Cover the constraints satisfied by the given cells
+		int givenCount = 0;
+		boolean valid = true;
+		for(int row = 0; row < size && valid; row++) {
+			for(int col = 0; col < size; col++) {
+				int value = initGrid[row][col];
+				if(value == 0)
+					continue;
+
+				int node = this.candidateNode[(row * size + col) * size + value - 1];
+				if(!this.isRowAvailable(node)) {
+					valid = false;
+					break;
+				}
+
+				this.solution[row * size + col] = value;
+				this.coverRow(node);
+				this.givens[givenCount++] = node;
+			}
+		}
+
+		boolean solved = valid && this.search();
+
+		//Restore the arena for the next solve
+		while(givenCount > 0)
+			this.uncoverRow(this.givens[--givenCount]);
+
+		if(!solved)
+			throw new IllegalArgumentException("invalid sudoku puzzle; cannot be solved");
+
+		for(int cell = 0; cell < layout.cellCount; cell++)
+			solution[cell / size][cell % size] = this.solution[cell];
+
+		return solution;
+	}
+
+	/**
+	 * Get the number of search nodes explored by the last solve.
+	 *
+	 * @return the number of search nodes explored by the last solve
+	 * */
+	public int getIterations() {
+		return this.iterations;
+	}
+
+	/**
+	 * Search for an exact cover of the remaining constraints. The arena is left in the state it was found, whether or
+	 * not a solution is found.
+	 *
+	 * @return true if a solution was found, false otherwise
+	 * */
+	private boolean search() {
+		this.iterations++;
+		if(this.right[ROOT] == ROOT)
+			return true;
+
+		//Choose the constraint with the fewest remaining candidates
+		int chosen = this.right[ROOT];
+		for(int header = this.right[chosen]; header != ROOT; header = this.right[header]) {
+			if(this.columnSize[header] < this.columnSize[chosen])
+				chosen = header;
+		}
+
+		if(this.columnSize[chosen] == 0)
+			return false;
+
+		boolean found = false;
+		this.cover(chosen);
+		for(int node = this.down[chosen]; node != chosen && !found; node = this.down[node]) {
+			for(int other = this.right[node]; other != node; other = this.right[other])
+				this.cover(this.column[other]);
+
+			found = this.search();
+			if(found) {
+				int id = this.candidate[node];
+				this.solution[id / this.layout.size] = id % this.layout.size + 1;
+			}
+
+			for(int other = this.left[node]; other != node; other = this.left[other])
+				this.uncover(this.column[other]);
+		}
+
+		this.uncover(chosen);
+		return found;
+	}
+
+	/**
+	 * Test whether every constraint of a candidate row is still uncovered.
+	 * */
+	private boolean isRowAvailable(int first) {
+		int node = first;
+		do {
+			int header = this.column[node];
+			if(this.right[this.left[header]] != header)
+				return false;
+
+			node = this.right[node];
+		} while(node != first);
+
+		return true;
+	}
+
+	private void coverRow(int first) {
+		int node = first;
+		do {
+			this.cover(this.column[node]);
+			node = this.right[node];
+		} while(node != first);
+	}
+
+	private void uncoverRow(int first) {
+		int node = this.left[first];
+		do {
+			this.uncover(this.column[node]);
+			node = this.left[node];
+		} while(node != this.left[first]);
+	}
+
+	private void cover(int header) {
+		this.right[this.left[header]] = this.right[header];
+		this.left[this.right[header]] = this.left[header];
+
+		for(int row = this.down[header]; row != header; row = this.down[row]) {
+			for(int node = this.right[row]; node != row; node = this.right[node]) {
+				this.down[this.up[node]] = this.down[node];
+				this.up[this.down[node]] = this.up[node];
+				this.columnSize[this.column[node]]--;
+			}
+		}
+	}
+
+	private void uncover(int header) {
+		for(int row = this.up[header]; row != header; row = this.up[row]) {
+			for(int node = this.left[row]; node != row; node = this.left[node]) {
+				this.columnSize[this.column[node]]++;
+				this.down[this.up[node]] = node;
+				this.up[this.down[node]] = node;
+			}
+		}
+
+		this.right[this.left[header]] = header;
+		this.left[this.right[header]] = header;
+	}
+}
@@ -0,0 +1,466 @@
+package solver.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rates the difficulty of sudoku puzzles by solving them the way a human would: with the cheapest technique that makes
+ * progress, one technique at a time.
+ *
+ * Singles are propagated until none is left. Then the other techniques are tried in increasing order of cost, as
+ * listed by Technique: subsets, intersections, fish and chains. As soon as one removes a candidate, the rater goes back
+ * to singles. Subsets and intersections are the deductions the Propagator draws when a grid is simplified; fish,
+ * XY-wings and simple coloring are only used for rating. If every technique is stuck, the rest of the puzzle is solved
+ * by a propagating search, and SEARCH becomes the hardest technique.
+ *
+ * A rater reuses its grid and scratch space from one puzzle to the next, so it is not thread safe; use rateAll() to
+ * rate many puzzles on every core.
+ *
+ * @see DifficultyRating
+ * */
+public class DifficultyRater {
+
+	//Number of puzzles below which a task rates its range instead of splitting it
+	private static final int SPLIT_THRESHOLD = 16;
+
+	private static final Technique[] TECHNIQUES = Technique.values();
+
+	//Rater of each worker thread of rateAll(), reused with its grid and scratch space for every range the thread rates
+	private static final ThreadLocal<DifficultyRater> RATERS = ThreadLocal.withInitial(DifficultyRater::new);
+
+	private SudokuGrid grid;
+	private Propagator propagator;
+	private GridLayout layout;
+	private SudokuSolver solver;
+	private int[][] remaining;
+	private int[][] solution;
+
+	//Scratch space for fish: the places of a value in every row or column
+	private int[] linePlaces;
+
+	//Scratch space for coloring: the color of every cell, the number of places of a value in every unit, and the cells
+	//of the chain being colored
+	private int[] colors;
+	private int[] unitPlaces;
+	private int[] chain;
+
+	/**
+	 * Rate a puzzle.
+	 *
+	 * @param puzzle a square grid of dimensions 4x4, 9x9, 16x16 or 25x25, where empty cells have a value of 0
+	 * @return the rating of the puzzle
+	 * @throws IllegalArgumentException if the grid has invalid dimensions or values, or cannot be solved
+	 * */
+	public DifficultyRating rate(int[][] puzzle) {
+		if(this.grid == null)
+			this.grid = new SudokuGrid(puzzle, false);
+		else
+			this.grid.reset(puzzle, false);
+
+		if(this.layout == null || this.layout.size != this.grid.getSize())
+			this.allocate(GridLayout.forSize(this.grid.getSize()));
+
+		Propagator propagator = this.propagator;
+		propagator.load();
+		boolean searched = false;
+		long searchNodes = 0;
+		while(true) {
+			if(!propagator.propagateSingles())
+				throw new IllegalArgumentException("invalid sudoku puzzle; cannot be solved");
+
+			if(this.grid.getFilledCellCount() == this.layout.cellCount)
+				break;
+
+			boolean progress = false;
+			for(int index = Technique.NAKED_PAIR.ordinal(); index < Technique.SEARCH.ordinal() && !progress; index++)
+				progress = this.apply(TECHNIQUES[index]);
+
+			if(!progress) {
+				searchNodes = this.search();
+				searched = true;
+				break;
+			}
+		}
+
+		int[] deductions = new int[TECHNIQUES.length];
+		Technique hardest = null;
+		long score = 0;
+		for(int index = 0; index < Technique.SEARCH.ordinal(); index++) {
+			deductions[index] = propagator.getDeductions(TECHNIQUES[index]);
+			score += (long) deductions[index] * TECHNIQUES[index].getWeight();
+			if(deductions[index] > 0)
+				hardest = TECHNIQUES[index];
+		}
+
+		if(searched) {
+			deductions[Technique.SEARCH.ordinal()] = 1;
+			score += searchNodes * Technique.SEARCH.getWeight();
+			hardest = Technique.SEARCH;
+		}
+
+		return new DifficultyRating(hardest, score, deductions, searchNodes);
+	}
+
+	/**
+	 * Rate the first puzzles of an array in parallel on the common pool.
+	 *
+	 * @see DifficultyRater#rateAll(int[][][], DifficultyRating[], int, ForkJoinPool)
+	 * @param puzzles the puzzles to rate
+	 * @param ratings receives the rating of each puzzle, or null for a puzzle that cannot be solved
+	 * @param count the number of puzzles to rate, from the start of the array
+	 * @return the number of puzzles rated
+	 * */
+	public static int rateAll(int[][][] puzzles, DifficultyRating[] ratings, int count) {
+		return rateAll(puzzles, ratings, count, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Rate the first puzzles of an array in parallel on a given pool. A puzzle that cannot be rated does not stop the
+	 * batch; its rating is set to null instead.
+	 *
+	 * @param puzzles the puzzles to rate
+	 * @param ratings receives the rating of each puzzle, or null for a puzzle that cannot be solved
+	 * @param count the number of puzzles to rate, from the start of the array
+	 * @param pool the pool used to rate puzzles
+	 * @return the number of puzzles rated
+	 * */
+	public static int rateAll(int[][][] puzzles, DifficultyRating[] ratings, int count, ForkJoinPool pool) {
+		if(puzzles == null || ratings == null)
+			throw new IllegalArgumentException("puzzles or ratings is null");
+
+		if(count < 0 || count > puzzles.length || count > ratings.length)
+			throw new IllegalArgumentException("count is out of bounds: " + count);
+
+		if(pool == null)
+			throw new IllegalArgumentException("pool is null");
+
+		pool.invoke(new RateTask(puzzles, ratings, 0, count));
+
+		int rated = 0;
+		for(int index = 0; index < count; index++) {
+			if(ratings[index] != null)
+				rated++;
+		}
+
+		return rated;
+	}
+
+	/**
+	 * Allocate the propagator and scratch space for grids with a given layout.
+	 * */
+	private void allocate(GridLayout layout) {
+		this.layout = layout;
+		this.propagator = new Propagator(this.grid);
+		this.remaining = new int[layout.size][layout.size];
+		this.solution = new int[layout.size][layout.size];
+		this.linePlaces = new int[layout.size];
+		this.colors = new int[layout.cellCount];
+		this.unitPlaces = new int[layout.units.length];
+		this.chain = new int[layout.cellCount];
+	}
+
+	/**
+	 * Apply a technique to the whole grid.
+	 *
+	 * @return true if the technique removed any candidate
+	 * */
+	private boolean apply(Technique technique) {
+		switch(technique) {
+			case X_WING:
+				return this.fish(2, technique);
+			case SWORDFISH:
+				return this.fish(3, technique);
+			case XY_WING:
+				return this.xyWing();
+			case SIMPLE_COLORING:
+				return this.simpleColoring();
+			default:
+				return this.propagator.apply(technique);
+		}
+	}
+
+	/**
+	 * Solve the rest of the grid by search.
+	 *
+	 * @return the number of search nodes
+	 * @throws IllegalArgumentException if the grid cannot be solved
+	 * */
+	private long search() {
+		if(this.solver == null) {
+			this.solver = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+			this.solver.setPropagating(true);
+		}
+
+		this.grid.getGrid(this.remaining);
+		this.solver.solve(this.remaining, this.solution);
+		return this.solver.getMetrics().getNodes();
+	}
+
+	/**
+	 * Find every fish of a given size: a value whose places in that many rows lie in that many columns, which leaves
+	 * the other rows without a place for it in those columns; and likewise with rows and columns swapped.
+	 * */
+	private boolean fish(int fishSize, Technique technique) {
+		int size = this.layout.size;
+		long start = this.propagator.getChanges();
+		for(int value = 0; value < size; value++) {
+			for(int orientation = 0; orientation < 2; orientation++) {
+				//The places of the value in each base line, as a mask of cover lines
+				for(int line = 0; line < size; line++) {
+					this.linePlaces[line] = 0;
+					for(int cover = 0; cover < size; cover++) {
+						if((this.grid.getCandidates(this.cellOf(orientation, line, cover)) & (1 << value)) != 0)
+							this.linePlaces[line] |= 1 << cover;
+					}
+				}
+
+				for(int first = 0; first < size; first++) {
+					int firstPlaces = this.linePlaces[first];
+					if(Integer.bitCount(firstPlaces) < 2 || Integer.bitCount(firstPlaces) > fishSize)
+						continue;
+
+					for(int second = first + 1; second < size; second++) {
+						int secondPlaces = firstPlaces | this.linePlaces[second];
+						if(Integer.bitCount(this.linePlaces[second]) < 2 || Integer.bitCount(secondPlaces) > fishSize)
+							continue;
+
+						if(fishSize == 2) {
+							int baseLines = (1 << first) | (1 << second);
+							this.eliminateFish(orientation, baseLines, secondPlaces, value, technique);
+							continue;
+						}
+
+						for(int third = second + 1; third < size; third++) {
+							int thirdPlaces = secondPlaces | this.linePlaces[third];
+							if(Integer.bitCount(this.linePlaces[third]) < 2 || Integer.bitCount(thirdPlaces) > fishSize)
+								continue;
+
+							this.eliminateFish(orientation, (1 << first) | (1 << second) | (1 << third), thirdPlaces,
+									value, technique);
+						}
+					}
+				}
+			}
+		}
+
+		return this.propagator.getChanges() != start;
+	}
+
+	/**
+	 * Remove a value from the cover lines of a fish, outside its base lines.
+	 * */
+	private void eliminateFish(int orientation, int baseLines, int coverLines, int value, Technique technique) {
+		long before = this.propagator.getChanges();
+		for(int line = 0; line < this.layout.size; line++) {
+			if((baseLines & (1 << line)) != 0)
+				continue;
+
+			for(int covers = coverLines; covers != 0; covers &= covers - 1) {
+				int cover = Integer.numberOfTrailingZeros(covers);
+				this.propagator.eliminate(this.cellOf(orientation, line, cover), 1 << value);
+			}
+		}
+
+		if(this.propagator.getChanges() != before)
+			this.propagator.recordDeduction(technique);
+	}
+
+	/**
+	 * Find every XY-wing: a pivot with candidates ab, and two of its peers with candidates ac and bc. Whichever value
+	 * the pivot takes, one of the two peers holds c, so c is removed from every cell that sees both peers.
+	 * */
+	private boolean xyWing() {
+		long start = this.propagator.getChanges();
+		for(int pivot = 0; pivot < this.layout.cellCount; pivot++) {
+			int pivotMask = this.grid.getCandidates(pivot);
+			if(Integer.bitCount(pivotMask) != 2)
+				continue;
+
+			for(int first : this.layout.peers[pivot]) {
+				int firstMask = this.grid.getCandidates(first);
+				if(Integer.bitCount(firstMask) != 2 || Integer.bitCount(firstMask & pivotMask) != 1)
+					continue;
+
+				int shared = firstMask & ~pivotMask;
+				int secondMask = (pivotMask & ~firstMask) | shared;
+				for(int second : this.layout.peers[pivot]) {
+					if(second == first || this.grid.getCandidates(second) != secondMask)
+						continue;
+
+					long before = this.propagator.getChanges();
+					for(int cell : this.layout.peers[first]) {
+						if(cell != second && this.isPeer(cell, second))
+							this.propagator.eliminate(cell, shared);
+					}
+
+					if(this.propagator.getChanges() != before)
+						this.propagator.recordDeduction(Technique.XY_WING);
+				}
+			}
+		}
+
+		return this.propagator.getChanges() != start;
+	}
+
+	/**
+	 * Find the deductions of simple coloring. For each value, the units with exactly two places for it link those two
+	 * places: one of them holds the value. A chain of linked places is colored alternately, so that the value is in
+	 * every place of one color and none of the other. If two places of the same color see each other, that color is
+	 * false and the value is removed from all of its places; otherwise the value is removed from every other cell that
+	 * sees places of both colors.
+	 * */
+	private boolean simpleColoring() {
+		GridLayout layout = this.layout;
+		long start = this.propagator.getChanges();
+		for(int value = 0; value < layout.size; value++) {
+			int bit = 1 << value;
+			for(int unit = 0; unit < layout.units.length; unit++) {
+				this.unitPlaces[unit] = 0;
+				for(int cell : layout.units[unit]) {
+					if((this.grid.getCandidates(cell) & bit) != 0)
+						this.unitPlaces[unit]++;
+				}
+			}
+
+			Arrays.fill(this.colors, -1);
+			int chains = 0;
+			for(int origin = 0; origin < layout.cellCount; origin++) {
+				if(this.colors[origin] >= 0 || (this.grid.getCandidates(origin) & bit) == 0)
+					continue;
+
+				int length = this.colorChain(origin, bit, chains++ * 2);
+				if(length >= 2)
+					this.eliminateColors(length, bit);
+			}
+		}
+
+		return this.propagator.getChanges() != start;
+	}
+
+	/**
+	 * Color the chain of linked places of a value starting at a given place, alternating between two colors along
+	 * links. Each chain gets colors of its own, base and base + 1, so places of earlier chains keep theirs.
+	 *
+	 * @return the number of places in the chain, which are at the start of the chain array
+	 * */
+	private int colorChain(int origin, int bit, int base) {
+		GridLayout layout = this.layout;
+		this.colors[origin] = base;
+		this.chain[0] = origin;
+		int length = 1;
+		for(int index = 0; index < length; index++) {
+			int cell = this.chain[index];
+			for(int kind = 0; kind < 3; kind++) {
+				int unit = kind == 0 ? layout.rowOf[cell]
+						: kind == 1 ? layout.size + layout.colOf[cell] : layout.size * 2 + layout.quadrantOf[cell];
+				if(this.unitPlaces[unit] != 2)
+					continue;
+
+				for(int other : layout.units[unit]) {
+					if(other != cell && this.colors[other] < 0 && (this.grid.getCandidates(other) & bit) != 0) {
+						this.colors[other] = this.colors[cell] ^ 1;
+						this.chain[length++] = other;
+					}
+				}
+			}
+		}
+
+		return length;
+	}
+
+	/**
+	 * Draw the deductions of a colored chain.
+	 * */
+	private void eliminateColors(int length, int bit) {
+		//Two places of the same color seeing each other cannot both hold the value, so that color holds none
+		for(int first = 0; first < length; first++) {
+			for(int second = first + 1; second < length; second++) {
+				int cell = this.chain[first];
+				int other = this.chain[second];
+				if(this.colors[cell] == this.colors[other] && this.isPeer(cell, other)) {
+					int falseColor = this.colors[cell];
+					for(int index = 0; index < length; index++) {
+						if(this.colors[this.chain[index]] == falseColor)
+							this.propagator.eliminate(this.chain[index], bit);
+					}
+
+					this.propagator.recordDeduction(Technique.SIMPLE_COLORING);
+					return;
+				}
+			}
+		}
+
+		//A cell seeing places of both colors sees the value either way
+		long before = this.propagator.getChanges();
+		int chainColor = this.colors[this.chain[0]] & ~1;
+		for(int cell = 0; cell < this.layout.cellCount; cell++) {
+			if((this.colors[cell] & ~1) == chainColor || (this.grid.getCandidates(cell) & bit) == 0)
+				continue;
+
+			int seen = 0;
+			for(int index = 0; index < length && seen != 3; index++) {
+				if(this.isPeer(cell, this.chain[index]))
+					seen |= 1 << (this.colors[this.chain[index]] & 1);
+			}
+
+			if(seen == 3)
+				this.propagator.eliminate(cell, bit);
+		}
+
+		if(this.propagator.getChanges() != before)
+			this.propagator.recordDeduction(Technique.SIMPLE_COLORING);
+	}
+
+	/**
+	 * Compute the cell at the crossing of a base line and a cover line: rows and columns, or columns and rows.
+	 * */
+	private int cellOf(int orientation, int line, int cover) {
+		return orientation == 0 ? this.layout.cellOf(cover, line) : this.layout.cellOf(line, cover);
+	}
+
+	private boolean isPeer(int cell, int other) {
+		GridLayout layout = this.layout;
+		return layout.rowOf[cell] == layout.rowOf[other] || layout.colOf[cell] == layout.colOf[other]
+				|| layout.quadrantOf[cell] == layout.quadrantOf[other];
+	}
+
+	/**
+	 * Rates a range of puzzles, splitting it in half until it is small enough to rate directly.
+	 * */
+	private static class RateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int[][][] puzzles;
+		private final DifficultyRating[] ratings;
+		private final int from;
+		private final int to;
+
+		RateTask(int[][][] puzzles, DifficultyRating[] ratings, int from, int to) {
+			this.puzzles = puzzles;
+			this.ratings = ratings;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(this.to - this.from > SPLIT_THRESHOLD) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new RateTask(this.puzzles, this.ratings, this.from, middle),
+						new RateTask(this.puzzles, this.ratings, middle, this.to));
+				return;
+			}
+
+			DifficultyRater rater = RATERS.get();
+			for(int index = this.from; index < this.to; index++) {
+				try {
+					this.ratings[index] = rater.rate(this.puzzles[index]);
+				} catch(RuntimeException e) {
+					this.ratings[index] = null;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package solver.impl;
+
+/**
+ * The difficulty of a puzzle as rated by a DifficultyRater: the hardest technique needed to solve it, how often each
+ * technique was used, and a score summing the weights of every use.
+ *
+ * Ratings are ordered by hardest technique, then by score, so sorting a list of ratings sorts the puzzles from easiest
+ * to hardest. Ratings with the same hardest technique and score compare equal, even if they used other techniques
+ * differently.
+ *
+ * @see DifficultyRater
+ * */
+public class DifficultyRating implements Comparable<DifficultyRating> {
+
+	private final Technique hardest;
+	private final long score;
+	private final int[] deductions;
+	private final long searchNodes;
+
+	DifficultyRating(Technique hardest, long score, int[] deductions, long searchNodes) {
+		this.hardest = hardest;
+		this.score = score;
+		this.deductions = deductions;
+		this.searchNodes = searchNodes;
+	}
+
+	/**
+	 * Get the hardest technique needed to solve the puzzle.
+	 *
+	 * @return the hardest technique used, SEARCH if logic alone could not solve the puzzle, or null if the puzzle had
+	 * no empty cell
+	 * */
+	public Technique getHardestTechnique() {
+		return this.hardest;
+	}
+
+	/**
+	 * Get the score of the puzzle: the sum of the weights of every deduction made, plus the weight of SEARCH for every
+	 * search node if logic alone could not solve the puzzle.
+	 *
+	 * @return the score of the puzzle
+	 * */
+	public long getScore() {
+		return this.score;
+	}
+
+	/**
+	 * Get the number of deductions made with a technique. For SEARCH, this is 1 if the puzzle was finished by search,
+	 * and 0 otherwise.
+	 *
+	 * @param technique the technique
+	 * @return the number of deductions made with the technique
+	 * */
+	public int getDeductions(Technique technique) {
+		return this.deductions[technique.ordinal()];
+	}
+
+	/**
+	 * Get the number of nodes of the search that finished the puzzle once logic was stuck.
+	 *
+	 * @return the number of search nodes, 0 if the puzzle was solved by logic alone
+	 * */
+	public long getSearchNodes() {
+		return this.searchNodes;
+	}
+
+	/**
+	 * Return whether the puzzle was solved by logic alone.
+	 *
+	 * @return true if no search was needed
+	 * */
+	public boolean isSolvedByLogic() {
+		return this.hardest != Technique.SEARCH;
+	}
+
+	@Override
+	public int compareTo(DifficultyRating other) {
+		int hardest = Integer.compare(this.hardest == null ? -1 : this.hardest.ordinal(),
+				other.hardest == null ? -1 : other.hardest.ordinal());
+		return hardest != 0 ? hardest : Long.compare(this.score, other.score);
+	}
+
+	@Override
+	public String toString() {
+		return "hardest=" + this.hardest + " score=" + this.score;
+	}
+}
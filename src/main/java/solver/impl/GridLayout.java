@@ -0,0 +1,114 @@
+package solver.impl;
+
+/**
+ * Precomputed tables describing the geometry of a sudoku grid of a given size: which row, column and quadrant each
+ * cell belongs to, the cells of every row, column and quadrant, and the peers of every cell. Cells are numbered left
+ * to right, top to bottom.
+ *
+ * Grids of size 4x4, 9x9, 16x16 and 25x25 are supported, so that every set of values fits in an int mask. Layouts are
+ * immutable and shared between all grids of the same size.
+ * */
+final class GridLayout {
+
+	private static final int MIN_BOX_SIZE = 2;
+	private static final int MAX_BOX_SIZE = 5;
+
+	private static final GridLayout[] LAYOUTS = new GridLayout[MAX_BOX_SIZE + 1];
+
+	//Number of rows, columns and quadrants, and number of values
+	final int size;
+
+	//Number of rows and columns in a quadrant
+	final int boxSize;
+
+	final int cellCount;
+
+	//Mask with a bit set for every value
+	final int allValues;
+
+	final int[] rowOf;
+	final int[] colOf;
+	final int[] quadrantOf;
+
+	//Cells of every unit; rows are units 0 to size - 1, followed by columns, followed by quadrants
+	final int[][] units;
+
+	//Cells sharing a row, column or quadrant with each cell, excluding the cell itself
+	final int[][] peers;
+
+	private GridLayout(int boxSize) {
+		this.boxSize = boxSize;
+		this.size = boxSize * boxSize;
+		this.cellCount = this.size * this.size;
+		this.allValues = (1 << this.size) - 1;
+
+		this.rowOf = new int[this.cellCount];
+		this.colOf = new int[this.cellCount];
+		this.quadrantOf = new int[this.cellCount];
+		this.units = new int[this.size * 3][this.size];
+
+		int[] unitFill = new int[this.size * 3];
+		for(int cell = 0; cell < this.cellCount; cell++) {
+			int row = cell / this.size;
+			int col = cell % this.size;
+			int quadrant = (row / boxSize) * boxSize + col / boxSize;
+			this.rowOf[cell] = row;
+			this.colOf[cell] = col;
+			this.quadrantOf[cell] = quadrant;
+
+			this.units[row][unitFill[row]++] = cell;
+			this.units[this.size + col][unitFill[this.size + col]++] = cell;
+			this.units[this.size * 2 + quadrant][unitFill[this.size * 2 + quadrant]++] = cell;
+		}
+
+		int peerCount = 2 * (this.size - 1) + (boxSize - 1) * (boxSize - 1);
+		this.peers = new int[this.cellCount][peerCount];
+		for(int cell = 0; cell < this.cellCount; cell++) {
+			int index = 0;
+			for(int other = 0; other < this.cellCount; other++) {
+				if(other == cell)
+					continue;
+
+				if(this.rowOf[other] == this.rowOf[cell] || this.colOf[other] == this.colOf[cell]
+						|| this.quadrantOf[other] == this.quadrantOf[cell])
+					this.peers[cell][index++] = other;
+			}
+		}
+	}
+
+	/**
+	 * Get the layout of grids with a given number of rows and columns.
+	 *
+	 * @param size the number of rows and columns of the grid
+	 * @return the layout shared by all grids of that size
+	 * @throws IllegalArgumentException if grids of that size are not supported
+	 * */
+	static GridLayout forSize(int size) {
+		int boxSize = (int) Math.round(Math.sqrt(size));
+		if(boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE || boxSize * boxSize != size)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		//Layouts only have final fields, so an unsynchronized read always sees a fully built layout
+		GridLayout layout = LAYOUTS[boxSize];
+		if(layout != null)
+			return layout;
+
+		synchronized(LAYOUTS) {
+			if(LAYOUTS[boxSize] == null)
+				LAYOUTS[boxSize] = new GridLayout(boxSize);
+
+			return LAYOUTS[boxSize];
+		}
+	}
+
+	/**
+	 * Compute the cell number of a given row and column.
+	 *
+	 * @param col column
+	 * @param row row
+	 * @return the cell number
+	 * */
+	int cellOf(int col, int row) {
+		return row * this.size + col;
+	}
+}
@@ -0,0 +1,473 @@
+package solver.impl;
+
+import java.util.SplittableRandom;
+
+/**
+ * A resumable depth-first search over a sudoku grid that always decides the empty cell with the fewest remaining
+ * candidates next. Ties go to the first such cell in row-major order, and candidates are tried in ascending order, so
+ * the search is deterministic. Given a random number generator, the search breaks ties and orders candidates at
+ * random instead, which is deterministic for a given seed.
+ *
+ * Decisions are kept on an explicit stack of cells and the candidates not yet tried for each cell, which allows the
+ * search to be suspended after a number of nodes and resumed later, and allows the untried candidates of a decision to
+ * be split off into an independent search. A grid checkpoint is taken before each decision, and undoing the decision
+ * restores it from the trail of the grid.
+ *
+ * The search can optionally propagate constraints after every decision. Cells are then chosen by the candidates left
+ * by propagation, and a decision whose propagation finds a contradiction is abandoned at once. Restoring the checkpoint
+ * of a decision also undoes every value placed and candidate removed by its propagation.
+ * */
+final class MostConstrainedSearch {
+
+	/**
+	 * The state of the search after running.
+	 * */
+	enum Status {
+		/** The grid holds a solution. Running the search again continues after this solution. */
+		SOLUTION,
+
+		/** Every candidate has been tried; there are no further solutions. */
+		EXHAUSTED,
+
+		/** The node budget ran out before a solution was found or the search was exhausted. */
+		SUSPENDED
+	}
+
+	private final SudokuGrid grid;
+	private final int size;
+	private final int cellCount;
+	private final int[] cells;
+	private final int[] untried;
+	private int depth;
+	private boolean descend;
+	private long nodes;
+	private long decisions;
+	private long backtracks;
+	private long candidateChecks;
+	private SearchListener listener;
+
+	//Generator breaking ties between cells and choosing the next candidate, or null to decide in a fixed order
+	private SplittableRandom random;
+
+	//Propagator used after every decision, or null; grid checkpoint i is taken before the decision at depth i + 1
+	private final Propagator propagator;
+
+	/**
+	 * Create a search over every solution of a grid. The grid is modified by the search.
+	 *
+	 * @param grid the grid to search
+	 * */
+	MostConstrainedSearch(SudokuGrid grid) {
+		this(grid, false);
+	}
+
+	/**
+	 * Create a search over every solution of a grid, optionally propagating constraints after every decision. The
+	 * grid is modified by the search.
+	 *
+	 * @param grid the grid to search
+	 * @param propagate whether to propagate constraints after every decision
+	 * */
+	MostConstrainedSearch(SudokuGrid grid, boolean propagate) {
+		this(grid, propagate ? new Propagator(grid) : null);
+		if(propagate)
+			this.propagator.load();
+		else
+			grid.clearTrail();
+	}
+
+	/**
+	 * Create a search over every solution of a grid, using a given propagator.
+	 *
+	 * @param grid the grid to search
+	 * @param propagator the propagator of the grid, or null to search without propagation
+	 * */
+	private MostConstrainedSearch(SudokuGrid grid, Propagator propagator) {
+		this.grid = grid;
+		this.propagator = propagator;
+		this.size = grid.getSize();
+		this.cellCount = this.size * this.size;
+		this.cells = new int[this.cellCount];
+		this.untried = new int[this.cellCount];
+		this.depth = 0;
+		this.descend = true;
+	}
+
+	/**
+	 * Create a search restricted to the solutions of a grid in which a given empty cell holds one of a set of values.
+	 *
+	 * @param grid the grid to search
+	 * @param propagator the propagator of the grid, or null to search without propagation
+	 * @param cell the empty cell to decide first
+	 * @param candidates the values allowed in that cell, as a mask
+	 * */
+	private MostConstrainedSearch(SudokuGrid grid, Propagator propagator, int cell, int candidates) {
+		this(grid, propagator);
+		this.cells[0] = cell;
+		this.untried[0] = candidates;
+		this.depth = 1;
+		this.descend = false;
+		grid.checkpoint();
+	}
+
+	/**
+	 * Start the search over from the current values of the grid, as if it had just been created, so a search can be
+	 * reused for every puzzle loaded into the same grid. The grid must not have changed size since the search was
+	 * created.
+	 * */
+	void restart() {
+		this.depth = 0;
+		this.descend = true;
+		this.nodes = 0;
+		this.decisions = 0;
+		this.backtracks = 0;
+		this.candidateChecks = 0;
+		if(this.propagator != null)
+			this.propagator.load();
+		else
+			this.grid.clearTrail();
+	}
+
+	/**
+	 * Undo every decision and start the search over from the grid it started from, so a restarting search can try the
+	 * same grid again in a different order.
+	 * */
+	void rewind() {
+		if(this.depth > 0) {
+			if(this.propagator != null)
+				this.propagator.restore(0);
+			else
+				this.grid.restore(0);
+		}
+
+		this.restart();
+	}
+
+	/**
+	 * Run the search until the next solution is found, the search is exhausted, or a number of nodes have been
+	 * explored.
+	 *
+	 * @param maxNodes the maximum number of nodes to explore before suspending
+	 * @return the state of the search
+	 * */
+	Status run(long maxNodes) {
+		//Simplification can leave conflicts behind on unsolvable grids
+		if(this.grid.getConflictCount() > 0)
+			return Status.EXHAUSTED;
+
+		//Propagation from the initial grid can already find a contradiction
+		if(this.propagator != null && this.nodes == 0 && this.depth == 0 && !this.propagator.propagate())
+			return Status.EXHAUSTED;
+
+		for(long budget = maxNodes; budget > 0; budget--) {
+			this.nodes++;
+
+			if(this.descend && this.grid.isSolved()) {
+				this.descend = false;
+				if(this.listener != null)
+					this.listener.solution(this.grid);
+
+				return Status.SOLUTION;
+			}
+
+			if(this.descend)
+				this.pushMostConstrainedCell();
+
+			if(this.depth == 0)
+				return Status.EXHAUSTED;
+
+			//Try the next candidate of the most recent decision, or undo it
+			int cell = this.cells[this.depth - 1];
+			int col = cell % this.size;
+			int row = cell / this.size;
+			if(this.propagator != null)
+				this.propagator.restore(this.depth - 1);
+			else
+				this.grid.restore(this.depth - 1);
+
+			int mask = this.untried[this.depth - 1];
+			if(mask == 0) {
+				this.depth--;
+				this.descend = false;
+				this.backtracks++;
+				if(this.listener != null)
+					this.listener.backtrack(col, row);
+
+				continue;
+			}
+
+			int bit = this.random != null ? randomBit(mask, this.random) : Integer.lowestOneBit(mask);
+			int value = Integer.numberOfTrailingZeros(bit) + 1;
+			this.untried[this.depth - 1] = mask & ~bit;
+			this.decisions++;
+			if(this.listener != null)
+				this.listener.decision(col, row, value);
+
+			//A contradiction found by propagation sends the search straight to the next candidate
+			if(this.propagator != null)
+				this.descend = this.propagator.assign(cell, value) && this.propagator.propagate();
+			else {
+				this.grid.placeValue(cell, value);
+				this.descend = true;
+			}
+		}
+
+		return Status.SUSPENDED;
+	}
+
+	/**
+	 * Split off half of the untried candidates of the shallowest decision that has any, into an independent search
+	 * over a copy of the grid. The candidates split off will no longer be tried by this search, so the two searches
+	 * together cover the same solutions as this search did before the split.
+	 *
+	 * @return the split off search, or null if there are no untried candidates left to split
+	 * */
+	MostConstrainedSearch split() {
+		int level = 0;
+		while(level < this.depth && this.untried[level] == 0)
+			level++;
+
+		if(level >= this.depth)
+			return null;
+
+		//Take every other untried candidate, keeping the first for this search
+		int mask = this.untried[level];
+		int taken = 0;
+		boolean take = false;
+		for(int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+			if(take)
+				taken |= Integer.lowestOneBit(remaining);
+
+			take = !take;
+		}
+
+		if(taken == 0)
+			taken = mask;
+
+		this.untried[level] = mask & ~taken;
+
+		//Rebuild the grid as it was before the decision at that level, from the trail copied with it
+		SudokuGrid copy = new SudokuGrid(this.grid);
+		copy.restore(level);
+		copy.clearTrail();
+		return new MostConstrainedSearch(copy, this.propagator != null ? new Propagator(copy) : null, this.cells[level],
+				taken);
+	}
+
+	/**
+	 * Take a snapshot of the search, from which resume() continues as this search would. The search and its grid are
+	 * not changed.
+	 *
+	 * @param solutions the number of solutions found so far, kept in the snapshot for the caller
+	 * @param repeatSolution whether the search stands at a solution that resuming should report again
+	 * @return the snapshot of the search
+	 * */
+	SearchCheckpoint checkpoint(long solutions, boolean repeatSolution) {
+		//The root of the search is the grid before the first decision, rebuilt from the trail of a copy
+		SudokuGrid root = this.grid;
+		if(this.depth > 0) {
+			root = new SudokuGrid(this.grid);
+			root.restore(0);
+		}
+
+		byte[] values = new byte[this.cellCount];
+		int[] candidates = new int[this.cellCount];
+		root.getValues(values);
+		for(int cell = 0; cell < this.cellCount; cell++)
+			candidates[cell] = root.getCandidates(cell);
+
+		//The value of the newest decision only matters if the search is to descend below it
+		boolean descend = this.descend || repeatSolution;
+		byte[] decided = new byte[this.cellCount];
+		for(int level = 0; level < this.depth; level++) {
+			int cell = this.cells[level];
+			if(level < this.depth - 1 || descend)
+				decided[level] = (byte) this.grid.getCellValue(cell % this.size, cell / this.size);
+		}
+
+		return new SearchCheckpoint(this.size, this.propagator != null, descend, solutions, this.nodes, this.decisions,
+				this.backtracks, this.candidateChecks, values, candidates, this.depth, this.cells.clone(),
+				this.untried.clone(), decided);
+	}
+
+	/**
+	 * Rebuild a search from a snapshot, on a new grid. The grid of the root of the search is loaded as it was, and the
+	 * decisions on the stack are replayed on it, propagating after each if the search propagates.
+	 *
+	 * @param checkpoint the snapshot of the search
+	 * @return the search, which continues as the search did when the snapshot was taken
+	 * @throws IllegalArgumentException if the decisions of the snapshot cannot be replayed on its grid
+	 * */
+	static MostConstrainedSearch resume(SearchCheckpoint checkpoint) {
+		SudokuGrid grid = new SudokuGrid(checkpoint.getValues(), false);
+		if(grid.getSize() != checkpoint.getSize())
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		for(int cell = 0; cell < grid.getSize() * grid.getSize(); cell++)
+			grid.setCandidates(cell, checkpoint.getCandidates()[cell]);
+
+		MostConstrainedSearch search = new MostConstrainedSearch(grid, checkpoint.isPropagating());
+		Propagator propagator = search.propagator;
+		if(propagator != null && checkpoint.getDepth() > 0 && !propagator.propagate())
+			throw new IllegalArgumentException("search checkpoint does not match its grid");
+
+		for(int level = 0; level < checkpoint.getDepth(); level++) {
+			int cell = checkpoint.getCells()[level];
+			int value = checkpoint.getDecided()[level];
+			if(cell >= search.cellCount || grid.getCellValue(cell % search.size, cell / search.size) != 0
+					|| value < 0 || value > search.size
+					|| (value == 0 && (level < checkpoint.getDepth() - 1 || checkpoint.isDescending())))
+				throw new IllegalArgumentException("search checkpoint does not match its grid");
+
+			grid.checkpoint();
+			search.cells[level] = cell;
+			search.untried[level] = checkpoint.getUntried()[level];
+			search.depth++;
+			if(value == 0)
+				continue;
+
+			if(propagator != null) {
+				if(!propagator.assign(cell, value) || !propagator.propagate())
+					throw new IllegalArgumentException("search checkpoint does not match its grid");
+			} else {
+				grid.placeValue(cell, value);
+			}
+		}
+
+		search.descend = checkpoint.isDescending();
+		search.nodes = checkpoint.getNodes();
+		search.decisions = checkpoint.getDecisions();
+		search.backtracks = checkpoint.getBacktracks();
+		search.candidateChecks = checkpoint.getCandidateChecks();
+		return search;
+	}
+
+	/**
+	 * Get the grid being searched.
+	 *
+	 * @return the grid being searched
+	 * */
+	SudokuGrid getGrid() {
+		return this.grid;
+	}
+
+	/**
+	 * Get the number of rows and columns of the grid the search was created for.
+	 *
+	 * @return the size of the grid
+	 * */
+	int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Get whether the search propagates constraints after every decision.
+	 *
+	 * @return true if the search propagates
+	 * */
+	boolean isPropagating() {
+		return this.propagator != null;
+	}
+
+	/**
+	 * Get the number of search nodes explored so far.
+	 *
+	 * @return the number of search nodes explored
+	 * */
+	long getNodes() {
+		return this.nodes;
+	}
+
+	/**
+	 * Get the number of values placed in empty cells so far.
+	 *
+	 * @return the number of decisions made
+	 * */
+	long getDecisions() {
+		return this.decisions;
+	}
+
+	/**
+	 * Get the number of decisions undone after their cell ran out of candidates.
+	 *
+	 * @return the number of backtracks
+	 * */
+	long getBacktracks() {
+		return this.backtracks;
+	}
+
+	/**
+	 * Get the number of cells whose candidates were computed while choosing the next cell to decide.
+	 *
+	 * @return the number of candidate checks
+	 * */
+	long getCandidateChecks() {
+		return this.candidateChecks;
+	}
+
+	/**
+	 * Set the listener notified of decisions, backtracks and solutions.
+	 *
+	 * @param listener the listener, or null for none
+	 * */
+	void setListener(SearchListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Set the random number generator used to break ties between cells and to choose the next candidate of a cell.
+	 *
+	 * @param random the generator, or null to decide in row-major and ascending order
+	 * */
+	void setRandom(SplittableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * Push a decision for the empty cell with the fewest candidates. Nothing is pushed if a cell has no candidates
+	 * left, or if every cell is filled, which sends the search back to the most recent decision.
+	 * */
+	private void pushMostConstrainedCell() {
+		int bestCell = -1;
+		int bestMask = 0;
+		int bestCount = this.size + 1;
+		int ties = 0;
+		for(int cell = 0; cell < this.cellCount && bestCount > 1; cell++) {
+			if(this.grid.getCellValue(cell % this.size, cell / this.size) != 0)
+				continue;
+
+			int mask = this.propagator != null ? this.propagator.getCandidates(cell)
+					: this.grid.getCandidateMask(cell % this.size, cell / this.size);
+			this.candidateChecks++;
+			int count = Integer.bitCount(mask);
+			if(count < bestCount) {
+				bestCell = cell;
+				bestMask = mask;
+				bestCount = count;
+				ties = 1;
+			} else if(count == bestCount && this.random != null && this.random.nextInt(++ties) == 0) {
+				//Each of the tied cells seen so far is kept with the same probability
+				bestCell = cell;
+				bestMask = mask;
+			}
+		}
+
+		if(bestCell >= 0 && bestCount > 0) {
+			this.grid.checkpoint();
+
+			this.cells[this.depth] = bestCell;
+			this.untried[this.depth] = bestMask;
+			this.depth++;
+		}
+	}
+
+	/**
+	 * Pick one of the set bits of a mask at random.
+	 * */
+	private static int randomBit(int mask, SplittableRandom random) {
+		for(int skip = random.nextInt(Integer.bitCount(mask)); skip > 0; skip--)
+			mask &= mask - 1;
+
+		return Integer.lowestOneBit(mask);
+	}
+}
@@ -0,0 +1,108 @@
+package solver.impl;
+
+import solver.Solver;
+
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Solves a single puzzle using every worker of a ForkJoinPool.
+ *
+ * The puzzle is searched most constrained cell first. The search runs in short slices, and between slices a task that
+ * sees the pool running out of queued work splits the untried candidates of its shallowest open decision off into a
+ * new task, with its own copy of the grid. Idle workers steal these tasks, so the search tree is spread over the pool
+ * as it is explored. The first task to find a solution publishes it, and every other task stops at the end of its
+ * current slice, or as soon as it starts. Tasks never wait on each other; the solve completes once every task has.
+ * */
+public class ParallelSolver implements Solver {
+
+	//Number of search nodes explored between checks for a solution and for idle workers
+	private static final long SLICE_NODES = 256;
+
+	//Split off work while fewer than this many tasks are queued beyond what the workers need
+	private static final int SURPLUS_THRESHOLD = 2;
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructs a ParallelSolver that runs on the common pool.
+	 * */
+	public ParallelSolver() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructs a ParallelSolver that runs on a given pool.
+	 *
+	 * @param pool the pool used to search
+	 * */
+	public ParallelSolver(ForkJoinPool pool) {
+		if(pool == null)
+			throw new IllegalArgumentException("pool is null");
+
+		this.pool = pool;
+	}
+
+	/**
+	 * Solve a given sudoku grid.
+	 *
+	 * @param initGrid the sudoku grid to solve
+	 * @return the solved sudoku grid
+	 * @throws IllegalArgumentException if the grid has invalid dimensions or values, or cannot be solved
+	 * */
+	public int[][] solve(int[][] initGrid) {
+		SudokuGrid grid = new SudokuGrid(initGrid);
+		AtomicReference<int[][]> solution = new AtomicReference<>();
+
+		this.pool.invoke(new SearchTask(null, new MostConstrainedSearch(grid), solution));
+		if(solution.get() == null)
+			throw new IllegalArgumentException("invalid sudoku puzzle; cannot be solved");
+
+		return solution.get();
+	}
+
+	/**
+	 * Runs one part of the search, splitting off further parts while workers are idle.
+	 * */
+	private static class SearchTask extends CountedCompleter<Void> {
+
+		private static final long serialVersionUID = 1L;
+
+		private MostConstrainedSearch search;
+		private final AtomicReference<int[][]> solution;
+
+		SearchTask(SearchTask parent, MostConstrainedSearch search, AtomicReference<int[][]> solution) {
+			super(parent);
+			this.search = search;
+			this.solution = solution;
+		}
+
+		@Override
+		public void compute() {
+			while(this.solution.get() == null) {
+				MostConstrainedSearch.Status status = this.search.run(SLICE_NODES);
+				if(status == MostConstrainedSearch.Status.SOLUTION) {
+					this.solution.compareAndSet(null, this.search.getGrid().getGrid());
+					break;
+				}
+
+				if(status == MostConstrainedSearch.Status.EXHAUSTED)
+					break;
+
+				//Split only after a slice, so that a task always makes progress before giving work away
+				if(getSurplusQueuedTaskCount() < SURPLUS_THRESHOLD) {
+					MostConstrainedSearch part = this.search.split();
+					if(part != null) {
+						addToPendingCount(1);
+						new SearchTask(this, part, this.solution).fork();
+					}
+				}
+			}
+
+			//Forked tasks keep this task alive until they complete, but its grid is no longer needed
+			this.search = null;
+			tryComplete();
+		}
+	}
+}
@@ -0,0 +1,590 @@
+package solver.impl;
+
+import java.util.Arrays;
+
+/**
+ * A constraint propagation engine for a sudoku grid, driven by a queue of units (rows, columns and quadrants) whose
+ * candidates have changed since they were last examined.
+ *
+ * The propagator keeps a candidate mask for every cell, which can be narrower than what the values of the grid allow,
+ * since deductions remove candidates without placing values. A change to the candidates of a cell queues the row,
+ * column and quadrant of the cell, and only those, on two queues. Units on the first queue are examined for naked and
+ * hidden singles. Once the first queue is empty, a unit is taken from the second queue and examined for the costlier
+ * deductions: naked pairs and triples, hidden pairs and triples, and intersections (pointing pairs in quadrants,
+ * box/line reduction in rows and columns). Propagation ends when both queues are empty.
+ *
+ * Each deduction that changes the grid is counted by technique. A DifficultyRater drives the propagator one technique
+ * at a time instead, through propagateSingles() and apply(), to find the cheapest technique that makes progress.
+ *
+ * The candidates are those of the grid, and values and candidates are changed through placeValue() and setCandidates()
+ * of the grid, so every change is recorded on the trail of the grid once a checkpoint is taken. Restoring a checkpoint
+ * undoes a decision and everything propagated from it in time proportional to what changed. Instances are not thread
+ * safe.
+ * */
+final class Propagator {
+
+	private final SudokuGrid grid;
+	private final GridLayout layout;
+
+	//Units to examine for singles, and units to examine for subsets and intersections
+	private final UnitQueue singles;
+	private final UnitQueue subsets;
+
+	//Scratch space for examining a unit: the unit slots holding each value as a candidate
+	private final int[] positions;
+
+	//Number of deductions that changed the grid since the last load(), by technique
+	private final int[] deductions;
+
+	private boolean failed;
+	private long changes;
+
+	/**
+	 * Create a propagator over a grid. The candidates are not loaded until load() is called.
+	 *
+	 * @param grid the grid to propagate over
+	 * */
+	Propagator(SudokuGrid grid) {
+		this.grid = grid;
+		this.layout = GridLayout.forSize(grid.getSize());
+		this.singles = new UnitQueue(this.layout.units.length);
+		this.subsets = new UnitQueue(this.layout.units.length);
+		this.positions = new int[this.layout.size];
+		this.deductions = new int[Technique.values().length];
+	}
+
+	/**
+	 * Narrow the candidates of every cell of the grid to what the values of its peers allow, and queue every unit for
+	 * examination. The checkpoints of the grid are forgotten.
+	 * */
+	void load() {
+		this.clearQueue();
+		this.failed = false;
+		this.grid.clearTrail();
+		Arrays.fill(this.deductions, 0);
+
+		for(int cell = 0; cell < this.layout.cellCount; cell++) {
+			int col = this.layout.colOf[cell];
+			int row = this.layout.rowOf[cell];
+			int mask = this.grid.getCandidateMask(col, row);
+			this.grid.setCandidates(cell, mask);
+			if(this.grid.getCellValue(col, row) == 0 && mask == 0)
+				this.failed = true;
+		}
+
+		for(int unit = 0; unit < this.layout.units.length; unit++)
+			this.enqueue(unit);
+	}
+
+	/**
+	 * Examine queued units until no unit is queued, or a contradiction is found: an empty cell without candidates, or
+	 * a value without a place in a unit. The queues are cleared either way.
+	 *
+	 * @return false if a contradiction was found, true otherwise
+	 * */
+	boolean propagate() {
+		while(!this.failed) {
+			if(!this.singles.isEmpty())
+				this.examineSingles(this.singles.poll());
+			else if(!this.subsets.isEmpty())
+				this.examineSubsets(this.subsets.poll());
+			else
+				break;
+		}
+
+		if(this.failed)
+			this.clearQueue();
+
+		return !this.failed;
+	}
+
+	/**
+	 * Examine queued units for naked and hidden singles only, until no unit is queued for singles or a contradiction
+	 * is found. Units stay queued for the costlier deductions.
+	 *
+	 * @return false if a contradiction was found, true otherwise
+	 * */
+	boolean propagateSingles() {
+		while(!this.failed && !this.singles.isEmpty())
+			this.examineSingles(this.singles.poll());
+
+		if(this.failed)
+			this.clearQueue();
+
+		return !this.failed;
+	}
+
+	/**
+	 * Examine every unit for one of the subset or intersection techniques, without drawing the consequences; call
+	 * propagateSingles() or propagate() for those.
+	 *
+	 * @param technique a subset or intersection technique, from NAKED_PAIR to BOX_LINE_REDUCTION
+	 * @return true if the technique removed any candidate
+	 * @throws IllegalArgumentException if the technique is not one the propagator applies
+	 * */
+	boolean apply(Technique technique) {
+		int size = this.layout.size;
+		long before = this.changes;
+		for(int unit = 0; unit < this.layout.units.length && !this.failed; unit++) {
+			int[] cells = this.layout.units[unit];
+			int placedValues = this.findPositions(unit);
+			int emptyCells = size - Integer.bitCount(placedValues);
+			switch(technique) {
+				case NAKED_PAIR:
+				case NAKED_TRIPLE:
+					int nakedSize = technique == Technique.NAKED_PAIR ? 2 : 3;
+					if(nakedSize < emptyCells)
+						this.nakedSubsets(cells, nakedSize);
+					break;
+				case HIDDEN_PAIR:
+				case HIDDEN_TRIPLE:
+					int hiddenSize = technique == Technique.HIDDEN_PAIR ? 2 : 3;
+					if(hiddenSize < emptyCells)
+						this.hiddenSubsets(cells, placedValues, hiddenSize);
+					break;
+				case POINTING:
+					if(unit >= size * 2 && emptyCells > 0)
+						this.pointing(unit - size * 2, cells, placedValues);
+					break;
+				case BOX_LINE_REDUCTION:
+					if(unit < size * 2 && emptyCells > 0)
+						this.boxLineReduction(unit, cells, placedValues);
+					break;
+				default:
+					throw new IllegalArgumentException("technique is not applied by the propagator: " + technique);
+			}
+		}
+
+		return this.changes != before;
+	}
+
+	/**
+	 * Place a value in an empty cell, remove it from the candidates of the peers of the cell, and queue the affected
+	 * units. Call propagate() to draw the consequences.
+	 *
+	 * @param cell the cell to place the value in
+	 * @param value the value to place
+	 * @return false if the value is not a candidate of the cell, or removing it from the peers of the cell left a peer
+	 * without candidates; true otherwise
+	 * */
+	boolean assign(int cell, int value) {
+		int bit = 1 << (value - 1);
+		if((this.grid.getCandidates(cell) & bit) == 0) {
+			this.failed = true;
+			return false;
+		}
+
+		this.grid.placeValue(cell, value);
+		this.grid.setCandidates(cell, 0);
+		this.changes++;
+
+		for(int peer : this.layout.peers[cell])
+			this.eliminate(peer, bit);
+
+		this.enqueueUnitsOf(cell);
+		return !this.failed;
+	}
+
+	/**
+	 * Restore a checkpoint of the grid, undoing every value placed and candidate removed since, and abandon any
+	 * propagation in progress.
+	 *
+	 * @param checkpoint the checkpoint to restore
+	 * */
+	void restore(int checkpoint) {
+		this.grid.restore(checkpoint);
+		this.failed = false;
+		this.clearQueue();
+	}
+
+	/**
+	 * Get the candidates of a cell.
+	 *
+	 * @param cell the cell
+	 * @return the mask of the candidates of the cell, which is 0 for cells holding a value
+	 * */
+	int getCandidates(int cell) {
+		return this.grid.getCandidates(cell);
+	}
+
+	/**
+	 * Get the number of values placed and candidate masks narrowed by this propagator since it was created.
+	 *
+	 * @return the number of changes made
+	 * */
+	long getChanges() {
+		return this.changes;
+	}
+
+	/**
+	 * Get the number of deductions made with a technique since the last load().
+	 *
+	 * @param technique the technique
+	 * @return the number of deductions that changed the grid
+	 * */
+	int getDeductions(Technique technique) {
+		return this.deductions[technique.ordinal()];
+	}
+
+	/**
+	 * Count a deduction made with a technique outside of the propagator, through eliminate().
+	 *
+	 * @param technique the technique
+	 * */
+	void recordDeduction(Technique technique) {
+		this.deductions[technique.ordinal()]++;
+	}
+
+	/**
+	 * Place the naked and hidden singles of a unit.
+	 * */
+	private void examineSingles(int unit) {
+		int[] cells = this.layout.units[unit];
+
+		//Naked singles, and the values that are candidates of at least one and at least two cells
+		int once = 0;
+		int twice = 0;
+		for(int cell : cells) {
+			int mask = this.grid.getCandidates(cell);
+			if(mask != 0 && (mask & (mask - 1)) == 0) {
+				if(!this.assign(cell, Integer.numberOfTrailingZeros(mask) + 1))
+					return;
+
+				this.deductions[Technique.NAKED_SINGLE.ordinal()]++;
+				continue;
+			}
+
+			twice |= once & mask;
+			once |= mask;
+		}
+
+		//Every value must be placed, or be a candidate somewhere; naked singles placed above are in the unit mask
+		int placedValues = this.getPlacedValues(unit);
+		if((once | placedValues) != this.layout.allValues) {
+			this.failed = true;
+			return;
+		}
+
+		//Hidden singles; placing one can only take away the place of another, which leaves that value without a place
+		for(int hidden = once & ~twice & ~placedValues; hidden != 0; hidden &= hidden - 1) {
+			int bit = hidden & -hidden;
+			int place = -1;
+			for(int slot = 0; slot < cells.length && place < 0; slot++) {
+				if((this.grid.getCandidates(cells[slot]) & bit) != 0)
+					place = cells[slot];
+			}
+
+			if(place < 0 || !this.assign(place, Integer.numberOfTrailingZeros(bit) + 1)) {
+				this.failed = true;
+				return;
+			}
+
+			this.deductions[Technique.HIDDEN_SINGLE.ordinal()]++;
+		}
+	}
+
+	/**
+	 * Remove the candidates ruled out by naked and hidden subsets and by intersections in a unit. Removing candidates
+	 * only removes places of values, so the positions found at the start can still be trusted for later deductions.
+	 * */
+	private void examineSubsets(int unit) {
+		int[] cells = this.layout.units[unit];
+		int size = this.layout.size;
+		int placedValues = this.findPositions(unit);
+		int emptyCells = size - Integer.bitCount(placedValues);
+
+		for(int subset = 2; subset <= 3 && subset < emptyCells && !this.failed; subset++) {
+			this.nakedSubsets(cells, subset);
+			this.hiddenSubsets(cells, placedValues, subset);
+		}
+
+		if(this.failed || emptyCells == 0)
+			return;
+
+		if(unit >= size * 2)
+			this.pointing(unit - size * 2, cells, placedValues);
+		else
+			this.boxLineReduction(unit, cells, placedValues);
+	}
+
+	/**
+	 * Find the slots of a unit holding each value as a candidate.
+	 *
+	 * @return the mask of the values already placed in the unit
+	 * */
+	private int findPositions(int unit) {
+		int[] cells = this.layout.units[unit];
+		int size = this.layout.size;
+		Arrays.fill(this.positions, 0);
+		for(int slot = 0; slot < size; slot++) {
+			for(int mask = this.grid.getCandidates(cells[slot]); mask != 0; mask &= mask - 1)
+				this.positions[Integer.numberOfTrailingZeros(mask)] |= 1 << slot;
+		}
+
+		return this.getPlacedValues(unit);
+	}
+
+	/**
+	 * Get the values placed in a unit.
+	 *
+	 * @return the mask of the values placed in the unit
+	 * */
+	private int getPlacedValues(int unit) {
+		int size = this.layout.size;
+		if(unit < size)
+			return this.grid.getRowMask(unit);
+
+		if(unit < size * 2)
+			return this.grid.getColMask(unit - size);
+
+		return this.grid.getQuadrantMask(unit - size * 2);
+	}
+
+	/**
+	 * Find groups of a number of cells whose candidates together hold exactly that number of values, and remove those
+	 * values from the other cells of the unit.
+	 * */
+	private void nakedSubsets(int[] cells, int subset) {
+		int size = cells.length;
+		Technique technique = subset == 2 ? Technique.NAKED_PAIR : Technique.NAKED_TRIPLE;
+		for(int first = 0; first < size; first++) {
+			int firstMask = this.grid.getCandidates(cells[first]);
+			if(Integer.bitCount(firstMask) < 2 || Integer.bitCount(firstMask) > subset)
+				continue;
+
+			for(int second = first + 1; second < size; second++) {
+				int secondMask = firstMask | this.grid.getCandidates(cells[second]);
+				if(this.grid.getCandidates(cells[second]) == 0 || Integer.bitCount(secondMask) > subset)
+					continue;
+
+				if(subset == 2) {
+					long before = this.changes;
+					this.eliminateOutside(cells, (1 << first) | (1 << second), secondMask);
+					this.countIfChanged(technique, before);
+					continue;
+				}
+
+				for(int third = second + 1; third < size; third++) {
+					int thirdMask = secondMask | this.grid.getCandidates(cells[third]);
+					if(this.grid.getCandidates(cells[third]) == 0 || Integer.bitCount(thirdMask) > subset)
+						continue;
+
+					long before = this.changes;
+					this.eliminateOutside(cells, (1 << first) | (1 << second) | (1 << third), thirdMask);
+					this.countIfChanged(technique, before);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find groups of a number of values that together have exactly that number of places in the unit, and remove every
+	 * other candidate from those places.
+	 * */
+	private void hiddenSubsets(int[] cells, int placedValues, int subset) {
+		int size = cells.length;
+		Technique technique = subset == 2 ? Technique.HIDDEN_PAIR : Technique.HIDDEN_TRIPLE;
+		for(int first = 0; first < size; first++) {
+			int firstSlots = this.positions[first];
+			if((placedValues & (1 << first)) != 0 || Integer.bitCount(firstSlots) > subset)
+				continue;
+
+			for(int second = first + 1; second < size; second++) {
+				int secondSlots = firstSlots | this.positions[second];
+				if((placedValues & (1 << second)) != 0 || Integer.bitCount(secondSlots) > subset)
+					continue;
+
+				if(subset == 2) {
+					long before = this.changes;
+					this.restrictSlots(cells, secondSlots, (1 << first) | (1 << second));
+					this.countIfChanged(technique, before);
+					continue;
+				}
+
+				for(int third = second + 1; third < size; third++) {
+					int thirdSlots = secondSlots | this.positions[third];
+					if((placedValues & (1 << third)) != 0 || Integer.bitCount(thirdSlots) > subset)
+						continue;
+
+					long before = this.changes;
+					this.restrictSlots(cells, thirdSlots, (1 << first) | (1 << second) | (1 << third));
+					this.countIfChanged(technique, before);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove every value confined to a single row or column of a quadrant from the rest of that row or column.
+	 * */
+	private void pointing(int quadrant, int[] cells, int placedValues) {
+		int size = this.layout.size;
+		for(int value = 0; value < size; value++) {
+			int slots = this.positions[value];
+			if((placedValues & (1 << value)) != 0 || slots == 0)
+				continue;
+
+			int first = cells[Integer.numberOfTrailingZeros(slots)];
+			boolean sameRow = true;
+			boolean sameCol = true;
+			for(int remaining = slots; remaining != 0; remaining &= remaining - 1) {
+				int cell = cells[Integer.numberOfTrailingZeros(remaining)];
+				sameRow &= this.layout.rowOf[cell] == this.layout.rowOf[first];
+				sameCol &= this.layout.colOf[cell] == this.layout.colOf[first];
+			}
+
+			long before = this.changes;
+			if(sameRow)
+				this.eliminateOutsideQuadrant(this.layout.units[this.layout.rowOf[first]], quadrant, 1 << value);
+
+			if(sameCol)
+				this.eliminateOutsideQuadrant(this.layout.units[size + this.layout.colOf[first]], quadrant, 1 << value);
+
+			this.countIfChanged(Technique.POINTING, before);
+		}
+	}
+
+	/**
+	 * Remove every value confined to a single quadrant within a row or column from the rest of that quadrant.
+	 * */
+	private void boxLineReduction(int unit, int[] cells, int placedValues) {
+		int size = this.layout.size;
+		boolean isRow = unit < size;
+		for(int value = 0; value < size; value++) {
+			int slots = this.positions[value];
+			if((placedValues & (1 << value)) != 0 || slots == 0)
+				continue;
+
+			int quadrant = this.layout.quadrantOf[cells[Integer.numberOfTrailingZeros(slots)]];
+			boolean sameQuadrant = true;
+			for(int remaining = slots; remaining != 0; remaining &= remaining - 1)
+				sameQuadrant &= this.layout.quadrantOf[cells[Integer.numberOfTrailingZeros(remaining)]] == quadrant;
+
+			if(!sameQuadrant)
+				continue;
+
+			long before = this.changes;
+			for(int cell : this.layout.units[size * 2 + quadrant]) {
+				boolean inLine = isRow ? this.layout.rowOf[cell] == unit : this.layout.colOf[cell] == unit - size;
+				if(!inLine)
+					this.eliminate(cell, 1 << value);
+			}
+
+			this.countIfChanged(Technique.BOX_LINE_REDUCTION, before);
+		}
+	}
+
+	/**
+	 * Remove candidates from every cell of a unit outside a set of slots.
+	 * */
+	private void eliminateOutside(int[] cells, int slots, int mask) {
+		for(int slot = 0; slot < cells.length; slot++) {
+			if((slots & (1 << slot)) == 0)
+				this.eliminate(cells[slot], mask);
+		}
+	}
+
+	/**
+	 * Remove every candidate but a set of values from the cells of a unit in a set of slots.
+	 * */
+	private void restrictSlots(int[] cells, int slots, int values) {
+		for(int remaining = slots; remaining != 0; remaining &= remaining - 1)
+			this.eliminate(cells[Integer.numberOfTrailingZeros(remaining)], ~values & this.layout.allValues);
+	}
+
+	/**
+	 * Remove candidates from every cell of a line that is not in a given quadrant.
+	 * */
+	private void eliminateOutsideQuadrant(int[] line, int quadrant, int mask) {
+		for(int cell : line) {
+			if(this.layout.quadrantOf[cell] != quadrant)
+				this.eliminate(cell, mask);
+		}
+	}
+
+	/**
+	 * Remove candidates from an empty cell, and queue its units if any were removed. Removing the last candidate of
+	 * the cell is a contradiction, which stops propagation.
+	 *
+	 * @param cell the cell
+	 * @param mask the candidates to remove
+	 * */
+	void eliminate(int cell, int mask) {
+		int current = this.grid.getCandidates(cell);
+		if((current & mask) == 0)
+			return;
+
+		current &= ~mask;
+		this.grid.setCandidates(cell, current);
+		this.changes++;
+		if(current == 0)
+			this.failed = true;
+
+		this.enqueueUnitsOf(cell);
+	}
+
+	private void countIfChanged(Technique technique, long before) {
+		if(this.changes != before)
+			this.deductions[technique.ordinal()]++;
+	}
+
+	private void enqueueUnitsOf(int cell) {
+		int size = this.layout.size;
+		this.enqueue(this.layout.rowOf[cell]);
+		this.enqueue(size + this.layout.colOf[cell]);
+		this.enqueue(size * 2 + this.layout.quadrantOf[cell]);
+	}
+
+	private void enqueue(int unit) {
+		this.singles.add(unit);
+		this.subsets.add(unit);
+	}
+
+	private void clearQueue() {
+		this.singles.clear();
+		this.subsets.clear();
+	}
+
+	/**
+	 * A first in, first out queue of units, as a ring buffer. Every unit is queued at most once.
+	 * */
+	private static final class UnitQueue {
+
+		private final int[] units;
+		private final boolean[] queued;
+		private int head;
+		private int count;
+
+		UnitQueue(int capacity) {
+			this.units = new int[capacity];
+			this.queued = new boolean[capacity];
+		}
+
+		void add(int unit) {
+			if(this.queued[unit])
+				return;
+
+			this.queued[unit] = true;
+			int tail = this.head + this.count++;
+			this.units[tail < this.units.length ? tail : tail - this.units.length] = unit;
+		}
+
+		int poll() {
+			int unit = this.units[this.head];
+			this.head = this.head + 1 < this.units.length ? this.head + 1 : 0;
+			this.count--;
+			this.queued[unit] = false;
+			return unit;
+		}
+
+		boolean isEmpty() {
+			return this.count == 0;
+		}
+
+		void clear() {
+			Arrays.fill(this.queued, false);
+			this.head = 0;
+			this.count = 0;
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package solver.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates sudoku puzzles with a unique solution.
+ *
+ * A puzzle is generated in two steps. First a random complete grid is built: the quadrants on the diagonal do not
+ * constrain each other, so each is filled with a random permutation of the values, and the rest of the grid is solved
+ * most constrained cell first. Then clues are removed from the complete grid one at a time, in random order. After each
+ * removal the puzzle must still have a unique solution, or the clue is put back. Since the puzzle had a unique solution
+ * before the removal, it still does if propagation from the remaining clues deduces the removed value; otherwise the
+ * solutions are counted, up to two. Removal stops at a target number of clues, or once every clue has been tried,
+ * which leaves a minimal puzzle: removing any of its clues would make the solution ambiguous.
+ *
+ * Generators are seeded, so the same seed always generates the same puzzles. A generator is not thread safe; use
+ * generateAll() to generate many puzzles on every core.
+ * */
+public class PuzzleGenerator {
+
+	//Number of puzzles below which a task generates its range instead of splitting it
+	private static final int SPLIT_THRESHOLD = 4;
+
+	//Search nodes per cell allowed for completing the diagonal quadrants before trying other ones
+	private static final int COMPLETION_NODES_PER_CELL = 16;
+
+	private final GridLayout layout;
+	private final SudokuSolver solver;
+	private SudokuGrid grid;
+	private final SolveLimits limits = new SolveLimits();
+	private final int[] order;
+	private SplittableRandom random;
+	private int[][] solution;
+	private int clueCount;
+	private boolean minimal;
+
+	/**
+	 * Constructs a generator of puzzles of a given size.
+	 *
+	 * @param size the number of rows and columns of the puzzles: 4, 9, 16 or 25
+	 * @param seed the seed of the random number generator
+	 * @throws IllegalArgumentException if the size is not supported
+	 * */
+	public PuzzleGenerator(int size, long seed) {
+		this.layout = GridLayout.forSize(size);
+		this.solver = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+
+		//Uniqueness checks on larger grids explore far fewer nodes with propagation
+		this.solver.setPropagating(size > 9);
+		this.order = new int[this.layout.cellCount];
+		this.limits.setMaxNodes((long) this.layout.cellCount * COMPLETION_NODES_PER_CELL);
+		this.setSeed(seed);
+	}
+
+	/**
+	 * Restart the random number generator from a seed.
+	 *
+	 * @param seed the seed of the random number generator
+	 * */
+	public void setSeed(long seed) {
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Generate a random complete grid.
+	 *
+	 * @return a solved sudoku grid
+	 * */
+	public int[][] generateGrid() {
+		int size = this.layout.size;
+		int boxSize = this.layout.boxSize;
+		int[] values = new int[size];
+		while(true) {
+			int[][] grid = new int[size][size];
+			for(int quadrant = 0; quadrant < boxSize; quadrant++) {
+				for(int value = 0; value < size; value++)
+					values[value] = value + 1;
+
+				this.shuffle(values);
+				for(int slot = 0; slot < size; slot++)
+					grid[quadrant * boxSize + slot / boxSize][quadrant * boxSize + slot % boxSize] = values[slot];
+			}
+
+			//Some combinations of diagonal quadrants cannot be completed, and proving it can take a long search; start
+			//over with new ones once the completion runs out of nodes
+			SolveOutcome outcome = this.solver.solve(grid, this.limits);
+			if(outcome.isSolved())
+				return outcome.getSolution();
+		}
+	}
+
+	/**
+	 * Generate a puzzle with a unique solution, removing clues from a random complete grid down to a target number of
+	 * clues. If no further clue can be removed before the target is reached, the puzzle is minimal and has more clues
+	 * than the target.
+	 *
+	 * @param targetClues the number of clues to stop at, or 0 for a minimal puzzle
+	 * @return the puzzle, where empty cells have a value of 0
+	 * @throws IllegalArgumentException if the target is negative or greater than the number of cells
+	 * */
+	public int[][] generate(int targetClues) {
+		if(targetClues < 0 || targetClues > this.layout.cellCount)
+			throw new IllegalArgumentException("target clue count out of range: " + targetClues);
+
+		int size = this.layout.size;
+		this.solution = this.generateGrid();
+		int[][] puzzle = new int[size][size];
+		for(int row = 0; row < size; row++)
+			puzzle[row] = Arrays.copyOf(this.solution[row], size);
+
+		for(int cell = 0; cell < this.order.length; cell++)
+			this.order[cell] = cell;
+
+		this.shuffle(this.order);
+
+		int clues = this.layout.cellCount;
+		int tried = 0;
+		while(tried < this.order.length && clues > targetClues) {
+			int cell = this.order[tried++];
+			int row = cell / size;
+			int col = cell % size;
+			int value = puzzle[row][col];
+			puzzle[row][col] = 0;
+			if(this.isDeduced(puzzle, col, row, value) || this.solver.countSolutions(puzzle, 2).isUnique())
+				clues--;
+			else
+				puzzle[row][col] = value;
+		}
+
+		this.clueCount = clues;
+		this.minimal = tried == this.order.length;
+		return puzzle;
+	}
+
+	/**
+	 * Get the solution of the last generated puzzle.
+	 *
+	 * @return the solution of the last generated puzzle, or null if none was generated
+	 * */
+	public int[][] getSolution() {
+		return this.solution;
+	}
+
+	/**
+	 * Get the number of clues of the last generated puzzle.
+	 *
+	 * @return the number of clues of the last generated puzzle
+	 * */
+	public int getClueCount() {
+		return this.clueCount;
+	}
+
+	/**
+	 * Return whether every clue of the last generated puzzle was tried, so that no clue can be removed without losing
+	 * the uniqueness of the solution.
+	 *
+	 * @return true if the last generated puzzle is minimal
+	 * */
+	public boolean isMinimal() {
+		return this.minimal;
+	}
+
+	/**
+	 * Generate puzzles in parallel on the common pool.
+	 *
+	 * @see PuzzleGenerator#generateAll(int, int, int, long, ForkJoinPool)
+	 * @param size the number of rows and columns of the puzzles
+	 * @param count the number of puzzles to generate
+	 * @param targetClues the number of clues to stop at, or 0 for minimal puzzles
+	 * @param seed the seed from which the seed of every puzzle is drawn
+	 * @return the puzzles, in order
+	 * */
+	public static List<int[][]> generateAll(int size, int count, int targetClues, long seed) {
+		return generateAll(size, count, targetClues, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Generate puzzles in parallel on a given pool. The seed of each puzzle is drawn in order from the given seed, and
+	 * each puzzle is generated as generate() would with that seed, so the puzzles are the same whatever the number of
+	 * threads of the pool.
+	 *
+	 * @param size the number of rows and columns of the puzzles
+	 * @param count the number of puzzles to generate
+	 * @param targetClues the number of clues to stop at, or 0 for minimal puzzles
+	 * @param seed the seed from which the seed of every puzzle is drawn
+	 * @param pool the pool used to generate puzzles
+	 * @return the puzzles, in order
+	 * @throws IllegalArgumentException if the size is not supported, or the count or target is out of range
+	 * */
+	public static List<int[][]> generateAll(int size, int count, int targetClues, long seed, ForkJoinPool pool) {
+		GridLayout layout = GridLayout.forSize(size);
+		if(count < 0)
+			throw new IllegalArgumentException("count must not be negative");
+
+		if(targetClues < 0 || targetClues > layout.cellCount)
+			throw new IllegalArgumentException("target clue count out of range: " + targetClues);
+
+		if(pool == null)
+			throw new IllegalArgumentException("pool is null");
+
+		long[] seeds = new long[count];
+		SplittableRandom random = new SplittableRandom(seed);
+		for(int index = 0; index < count; index++)
+			seeds[index] = random.nextLong();
+
+		int[][][] puzzles = new int[count][][];
+		pool.invoke(new GenerateTask(size, targetClues, seeds, puzzles, 0, count));
+		return Arrays.asList(puzzles);
+	}
+
+	/**
+	 * Return whether simplifying a puzzle places a given value in a cell.
+	 * */
+	private boolean isDeduced(int[][] puzzle, int col, int row, int value) {
+		if(this.grid == null)
+			this.grid = new SudokuGrid(puzzle);
+		else
+			this.grid.reset(puzzle);
+
+		return this.grid.getCellValue(col, row) == value;
+	}
+
+	/**
+	 * Shuffle an array in place.
+	 * */
+	private void shuffle(int[] values) {
+		for(int index = values.length - 1; index > 0; index--) {
+			int other = this.random.nextInt(index + 1);
+			int value = values[index];
+			values[index] = values[other];
+			values[other] = value;
+		}
+	}
+
+	/**
+	 * Generates a range of puzzles, splitting it in half until it is small enough to generate directly.
+	 * */
+	private static class GenerateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int size;
+		private final int targetClues;
+		private final long[] seeds;
+		private final int[][][] puzzles;
+		private final int from;
+		private final int to;
+
+		GenerateTask(int size, int targetClues, long[] seeds, int[][][] puzzles, int from, int to) {
+			this.size = size;
+			this.targetClues = targetClues;
+			this.seeds = seeds;
+			this.puzzles = puzzles;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(this.to - this.from > SPLIT_THRESHOLD) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new GenerateTask(this.size, this.targetClues, this.seeds, this.puzzles, this.from, middle),
+						new GenerateTask(this.size, this.targetClues, this.seeds, this.puzzles, middle, this.to));
+				return;
+			}
+
+			PuzzleGenerator generator = null;
+			for(int index = this.from; index < this.to; index++) {
+				if(generator == null)
+					generator = new PuzzleGenerator(this.size, this.seeds[index]);
+				else
+					generator.setSeed(this.seeds[index]);
+
+				this.puzzles[index] = generator.generate(this.targetClues);
+			}
+		}
+	}
+}
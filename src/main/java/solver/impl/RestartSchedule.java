@@ -0,0 +1,100 @@
+package solver.impl;
+
+/**
+ * The number of search nodes each run of a restarting search may explore before it gives up and starts over with a
+ * different order. A few puzzles send a search with a fixed order down a huge subtree without a solution; restarting
+ * with random tie-breaking keeps such an unlucky run from dominating the solve time.
+ *
+ * The Luby schedule gives runs of 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ... units of nodes, whose expected
+ * running time is within a logarithmic factor of the optimal restart strategy for any puzzle. The geometric schedule
+ * multiplies the node limit of each run by a constant factor. Both keep growing, so a restarting search always ends.
+ *
+ * @see SudokuSolver#setRestarts(RestartSchedule, long)
+ * */
+public final class RestartSchedule {
+
+	private final long unit;
+	private final double factor;
+	private final boolean luby;
+
+	private RestartSchedule(long unit, double factor, boolean luby) {
+		this.unit = unit;
+		this.factor = factor;
+		this.luby = luby;
+	}
+
+	/**
+	 * Create a schedule that never restarts, so the search only breaks ties at random.
+	 *
+	 * @return the schedule
+	 * */
+	public static RestartSchedule never() {
+		return new RestartSchedule(Long.MAX_VALUE, 1, false);
+	}
+
+	/**
+	 * Create a Luby schedule.
+	 *
+	 * @param unit the number of nodes of the shortest runs
+	 * @return the schedule
+	 * */
+	public static RestartSchedule luby(long unit) {
+		if(unit < 1)
+			throw new IllegalArgumentException("restart unit must be positive");
+
+		return new RestartSchedule(unit, 1, true);
+	}
+
+	/**
+	 * Create a geometric schedule.
+	 *
+	 * @param first the number of nodes of the first run
+	 * @param factor the factor by which the node limit grows after each run, greater than 1
+	 * @return the schedule
+	 * */
+	public static RestartSchedule geometric(long first, double factor) {
+		if(first < 1)
+			throw new IllegalArgumentException("restart unit must be positive");
+
+		if(!(factor > 1))
+			throw new IllegalArgumentException("restart factor must be greater than 1");
+
+		return new RestartSchedule(first, factor, false);
+	}
+
+	/**
+	 * Get the number of nodes a run may explore before the search restarts.
+	 *
+	 * @param run the number of runs before this one
+	 * @return the node limit of the run, which is Long.MAX_VALUE if it never restarts
+	 * */
+	public long getNodeLimit(int run) {
+		if(run < 0)
+			throw new IllegalArgumentException("run must not be negative");
+
+		double limit = this.luby ? (double) this.unit * lubyTerm(run + 1) : this.unit * Math.pow(this.factor, run);
+		return limit >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) limit;
+	}
+
+	/**
+	 * Get a term of the Luby sequence, counting from 1: the term is 2^(k-1) if i is 2^k - 1, and otherwise repeats the
+	 * sequence from its start past the previous such term.
+	 * */
+	private static long lubyTerm(long i) {
+		while(true) {
+			int k = 64 - Long.numberOfLeadingZeros(i);
+			if(i == (1L << k) - 1)
+				return 1L << (k - 1);
+
+			i -= (1L << (k - 1)) - 1;
+		}
+	}
+
+	@Override
+	public String toString() {
+		if(this.luby)
+			return "luby(" + this.unit + ")";
+
+		return this.unit == Long.MAX_VALUE ? "never" : "geometric(" + this.unit + ", " + this.factor + ")";
+	}
+}
@@ -0,0 +1,250 @@
+package solver.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * A snapshot of a most constrained cell first search, from which the search can be resumed later, in another solver
+ * or another process. It holds the grid at the root of the search, the stack of decisions with the value tried and
+ * the candidates left untried at each, and the counters of the search; the grid below the root is rebuilt on resume
+ * by replaying the decisions.
+ *
+ * Checkpoints are written to a file of fixed size for each grid size, about 1KB for a 9x9 grid and 3KB for a 16x16
+ * grid, however deep the search is. A file is replaced atomically, so a crash while writing leaves the previous
+ * checkpoint intact.
+ *
+ * @see SudokuSolver#checkpoint()
+ * @see SolutionSpliterator#checkpoint()
+ * */
+public final class SearchCheckpoint {
+
+	private static final int MAGIC = ('S' << 24) | ('D' << 16) | ('K' << 8) | 'C';
+	private static final byte VERSION = 1;
+
+	private static final int PROPAGATING = 1;
+	private static final int DESCEND = 2;
+
+	private final int size;
+	private final boolean propagating;
+	private final boolean descend;
+	private final long solutions;
+	private final long nodes;
+	private final long decisions;
+	private final long backtracks;
+	private final long candidateChecks;
+
+	//Values and candidates of the grid at the root of the search
+	private final byte[] values;
+	private final int[] candidates;
+
+	//Decision stack: cell, candidates left untried, and value placed, or 0 if none is placed
+	private final int depth;
+	private final int[] cells;
+	private final int[] untried;
+	private final byte[] decided;
+
+	SearchCheckpoint(int size, boolean propagating, boolean descend, long solutions, long nodes, long decisions,
+			long backtracks, long candidateChecks, byte[] values, int[] candidates, int depth, int[] cells,
+			int[] untried, byte[] decided) {
+		this.size = size;
+		this.propagating = propagating;
+		this.descend = descend;
+		this.solutions = solutions;
+		this.nodes = nodes;
+		this.decisions = decisions;
+		this.backtracks = backtracks;
+		this.candidateChecks = candidateChecks;
+		this.values = values;
+		this.candidates = candidates;
+		this.depth = depth;
+		this.cells = cells;
+		this.untried = untried;
+		this.decided = decided;
+	}
+
+	/**
+	 * Read a checkpoint from a file written by write().
+	 *
+	 * @param path the file to read
+	 * @return the checkpoint
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the file is not a search checkpoint, or is corrupt
+	 * */
+	public static SearchCheckpoint read(Path path) throws IOException {
+		try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if(in.readInt() != MAGIC)
+				throw new IllegalArgumentException("not a search checkpoint");
+
+			byte version = in.readByte();
+			if(version != VERSION)
+				throw new IllegalArgumentException("unsupported search checkpoint version: " + version);
+
+			int size = in.readUnsignedByte();
+			int flags = in.readUnsignedByte();
+			in.readByte();
+			GridLayout layout = GridLayout.forSize(size);
+			int depth = in.readInt();
+			if(depth < 0 || depth > layout.cellCount)
+				throw new IllegalArgumentException("corrupt search checkpoint; depth: " + depth);
+
+			long solutions = in.readLong();
+			long nodes = in.readLong();
+			long decisions = in.readLong();
+			long backtracks = in.readLong();
+			long candidateChecks = in.readLong();
+
+			byte[] values = new byte[layout.cellCount];
+			int[] candidates = new int[layout.cellCount];
+			for(int cell = 0; cell < layout.cellCount; cell++) {
+				values[cell] = in.readByte();
+				candidates[cell] = in.readInt();
+			}
+
+			int[] cells = new int[layout.cellCount];
+			int[] untried = new int[layout.cellCount];
+			byte[] decided = new byte[layout.cellCount];
+			for(int level = 0; level < layout.cellCount; level++) {
+				cells[level] = in.readUnsignedShort();
+				untried[level] = in.readInt();
+				decided[level] = in.readByte();
+			}
+
+			return new SearchCheckpoint(size, (flags & PROPAGATING) != 0, (flags & DESCEND) != 0, solutions, nodes,
+					decisions, backtracks, candidateChecks, values, candidates, depth, cells, untried, decided);
+		} catch(EOFException e) {
+			throw new IllegalArgumentException("truncated search checkpoint", e);
+		}
+	}
+
+	/**
+	 * Write this checkpoint to a file, replacing it if it exists. The checkpoint is written to a temporary file next to
+	 * it first, then moved over it.
+	 *
+	 * @param path the file to write
+	 * @throws IOException if the file cannot be written
+	 * */
+	public void write(Path path) throws IOException {
+		Path directory = path.toAbsolutePath().getParent();
+		Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		try {
+			try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					Files.newOutputStream(temporary)))) {
+				out.writeInt(MAGIC);
+				out.writeByte(VERSION);
+				out.writeByte(this.size);
+				out.writeByte((this.propagating ? PROPAGATING : 0) | (this.descend ? DESCEND : 0));
+				out.writeByte(0);
+				out.writeInt(this.depth);
+				out.writeLong(this.solutions);
+				out.writeLong(this.nodes);
+				out.writeLong(this.decisions);
+				out.writeLong(this.backtracks);
+				out.writeLong(this.candidateChecks);
+
+				for(int cell = 0; cell < this.values.length; cell++) {
+					out.writeByte(this.values[cell]);
+					out.writeInt(this.candidates[cell]);
+				}
+
+				//Levels below the depth are written too, so every checkpoint of a grid size has the same length
+				for(int level = 0; level < this.cells.length; level++) {
+					out.writeShort(level < this.depth ? this.cells[level] : 0);
+					out.writeInt(level < this.depth ? this.untried[level] : 0);
+					out.writeByte(level < this.depth ? this.decided[level] : 0);
+				}
+			}
+
+			Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Get the number of rows and columns of the grid searched.
+	 *
+	 * @return the size of the grid
+	 * */
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * Get whether the search propagates constraints after every decision.
+	 *
+	 * @return true if the search propagates
+	 * */
+	public boolean isPropagating() {
+		return this.propagating;
+	}
+
+	/**
+	 * Get the number of solutions found before the checkpoint was taken.
+	 *
+	 * @return the number of solutions found
+	 * */
+	public long getSolutions() {
+		return this.solutions;
+	}
+
+	/**
+	 * Get the number of search nodes explored before the checkpoint was taken.
+	 *
+	 * @return the number of search nodes explored
+	 * */
+	public long getNodes() {
+		return this.nodes;
+	}
+
+	/**
+	 * Get the number of decisions on the stack of the search.
+	 *
+	 * @return the depth of the search
+	 * */
+	public int getDepth() {
+		return this.depth;
+	}
+
+	boolean isDescending() {
+		return this.descend;
+	}
+
+	long getDecisions() {
+		return this.decisions;
+	}
+
+	long getBacktracks() {
+		return this.backtracks;
+	}
+
+	long getCandidateChecks() {
+		return this.candidateChecks;
+	}
+
+	byte[] getValues() {
+		return this.values;
+	}
+
+	int[] getCandidates() {
+		return this.candidates;
+	}
+
+	int[] getCells() {
+		return this.cells;
+	}
+
+	int[] getUntried() {
+		return this.untried;
+	}
+
+	byte[] getDecided() {
+		return this.decided;
+	}
+}
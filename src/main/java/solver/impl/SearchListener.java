@@ -0,0 +1,40 @@
+package solver.impl;
+
+import solver.Grid;
+
+/**
+ * Receives search events from a SudokuSolver. Every method does nothing by default, so implementations only override
+ * the events they need.
+ *
+ * Events are delivered synchronously on the solving thread, in the middle of the search; implementations should be
+ * quick, and must not modify the grid. A solver without a listener skips event delivery entirely.
+ * */
+public interface SearchListener {
+
+	/**
+	 * Called when the search places a value in an empty cell.
+	 *
+	 * @param col the column of the cell
+	 * @param row the row of the cell
+	 * @param value the value placed
+	 * */
+	default void decision(int col, int row, int value) {
+	}
+
+	/**
+	 * Called when the search runs out of values for a cell and clears it to return to an earlier decision.
+	 *
+	 * @param col the column of the cell
+	 * @param row the row of the cell
+	 * */
+	default void backtrack(int col, int row) {
+	}
+
+	/**
+	 * Called when the search finds a solution, while the grid holds it.
+	 *
+	 * @param grid the solved grid
+	 * */
+	default void solution(Grid grid) {
+	}
+}
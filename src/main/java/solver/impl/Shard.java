@@ -0,0 +1,52 @@
+package solver.impl;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One part of the search space of a puzzle, as planned by a ShardPlanner. A shard is a set of subtrees of the search,
+ * each given as the puzzle with the decisions leading to the subtree placed as extra clues. The subtrees of all the
+ * shards of a plan are disjoint and together hold every solution of the puzzle, so counting the solutions of each
+ * puzzle of each shard, in any process, and adding the counts up gives the count of the puzzle.
+ * */
+public final class Shard {
+
+	private final int index;
+	private final List<int[][]> puzzles;
+	private final double estimate;
+
+	Shard(int index, List<int[][]> puzzles, double estimate) {
+		this.index = index;
+		this.puzzles = Collections.unmodifiableList(puzzles);
+		this.estimate = estimate;
+	}
+
+	/**
+	 * Get the position of this shard in its plan.
+	 *
+	 * @return the index of the shard, starting at 0
+	 * */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * Get the subtrees of this shard, each as the puzzle with the decisions leading to it placed as clues. A shard of a
+	 * puzzle with fewer subtrees than shards can be empty.
+	 *
+	 * @return the puzzles of the subtrees of the shard
+	 * */
+	public List<int[][]> getPuzzles() {
+		return this.puzzles;
+	}
+
+	/**
+	 * Get the estimated number of search nodes needed to search every subtree of this shard, most constrained cell
+	 * first with propagation.
+	 *
+	 * @return the estimated size of the shard
+	 * */
+	public double getEstimate() {
+		return this.estimate;
+	}
+}
@@ -0,0 +1,241 @@
+package solver.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Splits the search space of a puzzle into disjoint shards of roughly equal size, so that the solutions can be counted
+ * or enumerated by several processes.
+ *
+ * The search tree is expanded from the root, most constrained cell first with propagation as SudokuSolver searches it,
+ * always expanding the subtree with the largest estimated size, until there are several subtrees per shard. Decisions
+ * whose propagation finds a contradiction are dropped, since they hold no solution. The subtrees are then dealt out
+ * largest first, each to the shard with the smallest estimated size so far.
+ *
+ * The size of a subtree is estimated by random probes (Knuth's estimator): each probe follows a random path from the
+ * root of the subtree down to a solution or a contradiction, and estimates the number of nodes of the tree as if every
+ * node on the same level had as many children as the node on the path. The estimates of several probes are averaged.
+ * Planners are seeded, so the same seed always gives the same plan. A planner is not thread safe.
+ * */
+public class ShardPlanner {
+
+	private SplittableRandom random;
+	private int samples = 32;
+	private int subtreesPerShard = 8;
+
+	/**
+	 * Constructs a planner.
+	 *
+	 * @param seed the seed of the random number generator used for the probes
+	 * */
+	public ShardPlanner(long seed) {
+		this.setSeed(seed);
+	}
+
+	/**
+	 * Restart the random number generator from a seed.
+	 *
+	 * @param seed the seed of the random number generator
+	 * */
+	public void setSeed(long seed) {
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Set the number of random probes averaged to estimate the size of each subtree.
+	 *
+	 * @param samples the number of probes per subtree
+	 * */
+	public void setSamples(int samples) {
+		if(samples < 1)
+			throw new IllegalArgumentException("sample count must be positive");
+
+		this.samples = samples;
+	}
+
+	/**
+	 * Set the number of subtrees to expand the search tree to for each shard. More subtrees balance the shards better,
+	 * at the cost of a longer planning pass.
+	 *
+	 * @param subtreesPerShard the number of subtrees per shard
+	 * */
+	public void setSubtreesPerShard(int subtreesPerShard) {
+		if(subtreesPerShard < 1)
+			throw new IllegalArgumentException("subtree count must be positive");
+
+		this.subtreesPerShard = subtreesPerShard;
+	}
+
+	/**
+	 * Split the search space of a puzzle into shards.
+	 *
+	 * @param puzzle the puzzle to split, where empty cells have a value of 0
+	 * @param shards the number of shards
+	 * @return the shards, in order of their index; shards are empty if the puzzle has too few subtrees to go round
+	 * @throws IllegalArgumentException if the puzzle has invalid dimensions or values, contains duplicate values, or
+	 * the number of shards is not positive
+	 * */
+	public List<Shard> plan(int[][] puzzle, int shards) {
+		if(shards < 1)
+			throw new IllegalArgumentException("shard count must be positive");
+
+		SudokuGrid root = new SudokuGrid(puzzle);
+		Propagator propagator = new Propagator(root);
+		propagator.load();
+
+		List<Subtree> subtrees = new ArrayList<>();
+		PriorityQueue<Subtree> open = new PriorityQueue<>(
+				Comparator.comparingDouble((Subtree subtree) -> subtree.estimate).reversed());
+		if(root.getConflictCount() == 0 && propagator.propagate())
+			open.add(new Subtree(root, copy(puzzle), this.estimate(root)));
+
+		int target = (int) Math.min(Integer.MAX_VALUE, (long) shards * this.subtreesPerShard);
+		while(!open.isEmpty() && open.size() + subtrees.size() < target) {
+			Subtree largest = open.poll();
+			int cell = mostConstrainedCell(largest.grid);
+			if(cell < 0) {
+				subtrees.add(largest);
+				continue;
+			}
+
+			int size = largest.grid.getSize();
+			for(int mask = largest.grid.getCandidates(cell); mask != 0; mask &= mask - 1) {
+				int value = Integer.numberOfTrailingZeros(mask) + 1;
+				SudokuGrid grid = new SudokuGrid(largest.grid);
+				Propagator branch = new Propagator(grid);
+				branch.load();
+				if(!branch.assign(cell, value) || !branch.propagate())
+					continue;
+
+				int[][] prefix = copy(largest.puzzle);
+				prefix[cell / size][cell % size] = value;
+				open.add(new Subtree(grid, prefix, this.estimate(grid)));
+			}
+		}
+
+		subtrees.addAll(open);
+		subtrees.sort(Comparator.comparingDouble((Subtree subtree) -> subtree.estimate).reversed());
+
+		List<List<int[][]>> puzzles = new ArrayList<>();
+		double[] estimates = new double[shards];
+		for(int shard = 0; shard < shards; shard++)
+			puzzles.add(new ArrayList<>());
+
+		for(Subtree subtree : subtrees) {
+			int smallest = 0;
+			for(int shard = 1; shard < shards; shard++) {
+				if(estimates[shard] < estimates[smallest])
+					smallest = shard;
+			}
+
+			puzzles.get(smallest).add(subtree.puzzle);
+			estimates[smallest] += subtree.estimate;
+		}
+
+		List<Shard> plan = new ArrayList<>(shards);
+		for(int shard = 0; shard < shards; shard++)
+			plan.add(new Shard(shard, puzzles.get(shard), estimates[shard]));
+
+		return plan;
+	}
+
+	/**
+	 * Estimate the number of search nodes of a puzzle, searched most constrained cell first with propagation.
+	 *
+	 * @param puzzle the puzzle, where empty cells have a value of 0
+	 * @return the estimated number of search nodes, which is at least 1
+	 * @throws IllegalArgumentException if the puzzle has invalid dimensions or values, or contains duplicate values
+	 * */
+	public double estimate(int[][] puzzle) {
+		return this.estimate(new SudokuGrid(puzzle));
+	}
+
+	/**
+	 * Estimate the number of search nodes below a grid by averaging random probes. The grid is not changed.
+	 * */
+	private double estimate(SudokuGrid grid) {
+		SudokuGrid probe = new SudokuGrid(grid);
+		Propagator propagator = new Propagator(probe);
+		propagator.load();
+		if(probe.getConflictCount() > 0 || !propagator.propagate())
+			return 1;
+
+		int root = probe.checkpoint();
+		double total = 0;
+		for(int sample = 0; sample < this.samples; sample++) {
+			//Nodes of the tree so far, and the estimated number of nodes on the current level
+			double nodes = 1;
+			double level = 1;
+			for(int cell = mostConstrainedCell(probe); cell >= 0; cell = mostConstrainedCell(probe)) {
+				int mask = probe.getCandidates(cell);
+				int count = Integer.bitCount(mask);
+				if(count == 0)
+					break;
+
+				level *= count;
+				nodes += level;
+				for(int skip = this.random.nextInt(count); skip > 0; skip--)
+					mask &= mask - 1;
+
+				if(!propagator.assign(cell, Integer.numberOfTrailingZeros(mask) + 1) || !propagator.propagate())
+					break;
+			}
+
+			total += nodes;
+			propagator.restore(root);
+		}
+
+		return total / this.samples;
+	}
+
+	/**
+	 * Find the empty cell with the fewest candidates, the first in row-major order on ties, as the search does.
+	 *
+	 * @return the cell, or -1 if every cell is filled
+	 * */
+	private static int mostConstrainedCell(SudokuGrid grid) {
+		int size = grid.getSize();
+		int best = -1;
+		int bestCount = size + 1;
+		for(int cell = 0; cell < size * size && bestCount > 0; cell++) {
+			if(grid.getCellValue(cell % size, cell / size) != 0)
+				continue;
+
+			int count = Integer.bitCount(grid.getCandidates(cell));
+			if(count < bestCount) {
+				best = cell;
+				bestCount = count;
+			}
+		}
+
+		return best;
+	}
+
+	private static int[][] copy(int[][] grid) {
+		int[][] copy = new int[grid.length][];
+		for(int row = 0; row < grid.length; row++)
+			copy[row] = Arrays.copyOf(grid[row], grid[row].length);
+
+		return copy;
+	}
+
+	/**
+	 * A subtree of the search, with the propagated grid at its root and the puzzle leading to it.
+	 * */
+	private static class Subtree {
+
+		private final SudokuGrid grid;
+		private final int[][] puzzle;
+		private final double estimate;
+
+		Subtree(SudokuGrid grid, int[][] puzzle, double estimate) {
+			this.grid = grid;
+			this.puzzle = puzzle;
+			this.estimate = estimate;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+package solver.impl;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of solutions, keyed by the normal form of a puzzle. When the cache is full, the least recently used
+ * solution is evicted.
+ *
+ * A cache is thread safe, so it can be shared by the CachingSolver of every worker of a BatchSolver. Lookups, stores
+ * and evictions are counted.
+ *
+ * @see CachingSolver
+ * */
+public class SolutionCache {
+
+	private final int capacity;
+	private final Map<Key, byte[]> solutions;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructs an empty cache.
+	 *
+	 * @param capacity the maximum number of solutions kept
+	 * @throws IllegalArgumentException if the capacity is not positive
+	 * */
+	public SolutionCache(int capacity) {
+		if(capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive");
+
+		this.capacity = capacity;
+		this.solutions = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+				if(this.size() <= SolutionCache.this.capacity)
+					return false;
+
+				SolutionCache.this.evictions++;
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Look up the solution of a puzzle in normal form, counting a hit or a miss.
+	 *
+	 * @param puzzle the cells of the puzzle in normal form, row by row
+	 * @return the cells of its solution, row by row, or null if it is not cached
+	 * */
+	synchronized byte[] get(byte[] puzzle) {
+		byte[] solution = this.solutions.get(new Key(puzzle));
+		if(solution != null)
+			this.hits++;
+		else
+			this.misses++;
+
+		return solution;
+	}
+
+	/**
+	 * Store the solution of a puzzle in normal form, evicting the least recently used solution if the cache is full.
+	 * The puzzle is copied; the solution is kept as given and must not be modified afterwards.
+	 *
+	 * @param puzzle the cells of the puzzle in normal form, row by row
+	 * @param solution the cells of its solution, row by row
+	 * */
+	synchronized void put(byte[] puzzle, byte[] solution) {
+		this.solutions.put(new Key(Arrays.copyOf(puzzle, puzzle.length)), solution);
+	}
+
+	/**
+	 * Remove every solution. The statistics are kept.
+	 * */
+	public synchronized void clear() {
+		this.solutions.clear();
+	}
+
+	/**
+	 * Get the maximum number of solutions kept.
+	 *
+	 * @return the capacity of the cache
+	 * */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Get the number of solutions currently kept.
+	 *
+	 * @return the number of cached solutions
+	 * */
+	public synchronized int size() {
+		return this.solutions.size();
+	}
+
+	/**
+	 * Get the number of lookups that found a solution.
+	 *
+	 * @return the number of hits
+	 * */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Get the number of lookups that found no solution.
+	 *
+	 * @return the number of misses
+	 * */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Get the number of solutions evicted to make room for newer ones.
+	 *
+	 * @return the number of evictions
+	 * */
+	public synchronized long getEvictions() {
+		return this.evictions;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "size=" + this.solutions.size()
+				+ " hits=" + this.hits
+				+ " misses=" + this.misses
+				+ " evictions=" + this.evictions;
+	}
+
+	/**
+	 * A puzzle in normal form, compared by its cells.
+	 * */
+	private static final class Key {
+
+		private final byte[] cells;
+		private final int hash;
+
+		Key(byte[] cells) {
+			this.cells = cells;
+			this.hash = Arrays.hashCode(cells);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Key && Arrays.equals(this.cells, ((Key) other).cells);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+	}
+}
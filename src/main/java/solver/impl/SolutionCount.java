@@ -0,0 +1,84 @@
+package solver.impl;
+
+/**
+ * The result of counting the solutions of a sudoku grid. Counting stops at a limit, so a count equal to the limit
+ * means that at least that many solutions exist.
+ * */
+public class SolutionCount {
+
+	private final long count;
+	private final long limit;
+	private final long nodes;
+	private final boolean interrupted;
+
+	SolutionCount(long count, long limit, long nodes, boolean interrupted) {
+		this.count = count;
+		this.limit = limit;
+		this.nodes = nodes;
+		this.interrupted = interrupted;
+	}
+
+	/**
+	 * Get the number of solutions found, which is at most the limit.
+	 *
+	 * @return the number of solutions found
+	 * */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Get the number of solutions at which counting stopped.
+	 *
+	 * @return the limit given when counting
+	 * */
+	public long getLimit() {
+		return this.limit;
+	}
+
+	/**
+	 * Get the number of search nodes explored while counting.
+	 *
+	 * @return the number of search nodes explored
+	 * */
+	public long getNodes() {
+		return this.nodes;
+	}
+
+	/**
+	 * Return whether the grid has no solution.
+	 *
+	 * @return true if no solution was found by a count that was not interrupted
+	 * */
+	public boolean isUnsolvable() {
+		return this.count == 0 && !this.interrupted;
+	}
+
+	/**
+	 * Return whether the grid has exactly one solution. This can only be known if the limit is greater than 1.
+	 *
+	 * @return true if exactly one solution was found by a count that was not interrupted before reaching the limit
+	 * */
+	public boolean isUnique() {
+		return this.count == 1 && this.limit > 1 && !this.interrupted;
+	}
+
+	/**
+	 * Return whether counting stopped at the limit, in which case the grid may have more solutions.
+	 *
+	 * @return true if the limit was reached
+	 * */
+	public boolean isLimitReached() {
+		return this.count >= this.limit;
+	}
+
+	/**
+	 * Return whether a solve limit stopped counting before the limit was reached or every solution was found, in
+	 * which case the count is only a lower bound.
+	 *
+	 * @return true if counting was interrupted
+	 * */
+	public boolean isInterrupted() {
+		return this.interrupted;
+	}
+}
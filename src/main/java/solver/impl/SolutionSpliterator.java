@@ -0,0 +1,152 @@
+package solver.impl;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Enumerates the solutions of a sudoku grid lazily, one per call to tryAdvance(), by resuming a most constrained cell
+ * first search from where the previous solution left it. Only the grid and the stack of decisions of the search are
+ * kept, so grids with a vast number of solutions, such as the empty grid, can be walked without collecting them.
+ *
+ * trySplit() splits the search frontier: half of the untried candidates of the shallowest open decision are handed to
+ * a new spliterator, with its own copy of the grid, and are no longer tried by this one. Parallel streams built on it
+ * spread the enumeration over the pool, each part searching its own subtree. Solutions come in search order within a
+ * part, but parts are not ordered against each other, so the spliterator does not report ORDERED.
+ *
+ * Each solution is a newly allocated array, which the consumer may keep.
+ *
+ * A sequential enumeration can be suspended with checkpoint() between solutions, and continued later, even in another
+ * process, from the snapshot with SudokuSolver.solutions(SearchCheckpoint).
+ *
+ * @see SudokuSolver#solutions(int[][])
+ * */
+public class SolutionSpliterator implements Spliterator<int[][]> {
+
+	//Search nodes explored by trySplit() to open a decision with candidates left to split off
+	private static final int SPLIT_NODES = 64;
+
+	private final MostConstrainedSearch search;
+
+	//A solution found by trySplit() while opening a decision, not yet passed to a consumer
+	private boolean pending;
+	private boolean exhausted;
+
+	//Solutions passed to consumers, including those returned before the checkpoint this was resumed from
+	private long returned;
+
+	//Unknown, so halved by every split to tell parallel streams when to stop splitting
+	private long estimate = Long.MAX_VALUE;
+
+	/**
+	 * Create a spliterator over every solution of a grid. The grid is modified by the enumeration and must not be used
+	 * elsewhere.
+	 *
+	 * @param grid the grid to enumerate the solutions of
+	 * @param propagate whether the search propagates constraints after every decision
+	 * */
+	SolutionSpliterator(SudokuGrid grid, boolean propagate) {
+		this(new MostConstrainedSearch(grid, propagate));
+	}
+
+	/**
+	 * Create a spliterator that continues an enumeration from a snapshot taken by checkpoint().
+	 *
+	 * @param checkpoint the snapshot of the enumeration
+	 * @throws IllegalArgumentException if the snapshot cannot be resumed
+	 * */
+	SolutionSpliterator(SearchCheckpoint checkpoint) {
+		this(MostConstrainedSearch.resume(checkpoint));
+		this.returned = checkpoint.getSolutions();
+	}
+
+	private SolutionSpliterator(MostConstrainedSearch search) {
+		this.search = search;
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super int[][]> action) {
+		if(action == null)
+			throw new NullPointerException("action is null");
+
+		if(!this.pending) {
+			if(this.exhausted)
+				return false;
+
+			MostConstrainedSearch.Status status = this.search.run(Long.MAX_VALUE);
+			if(status == MostConstrainedSearch.Status.EXHAUSTED) {
+				this.exhausted = true;
+				return false;
+			}
+		}
+
+		this.pending = false;
+		this.returned++;
+		action.accept(this.search.getGrid().getGrid());
+		return true;
+	}
+
+	/**
+	 * Take a snapshot of the enumeration, from which SudokuSolver.solutions(SearchCheckpoint) continues with the next
+	 * solution this spliterator would return. The snapshot covers only this spliterator, not the parts split off it,
+	 * and must be taken from the thread enumerating it.
+	 *
+	 * @return the snapshot of the enumeration, counting the solutions returned so far
+	 * */
+	public SearchCheckpoint checkpoint() {
+		return this.search.checkpoint(this.returned, this.pending);
+	}
+
+	/**
+	 * Get the number of solutions this spliterator has returned, including those returned before the checkpoint it was
+	 * resumed from.
+	 *
+	 * @return the number of solutions returned
+	 * */
+	public long getReturnedCount() {
+		return this.returned;
+	}
+
+	@Override
+	public Spliterator<int[][]> trySplit() {
+		if(this.exhausted)
+			return null;
+
+		//A fresh search has no decisions yet, so step into it until one has candidates left to give away
+		MostConstrainedSearch part = this.search.split();
+		for(int step = 0; part == null && !this.pending && step < SPLIT_NODES; step++) {
+			MostConstrainedSearch.Status status = this.search.run(1);
+			if(status == MostConstrainedSearch.Status.SOLUTION) {
+				this.pending = true;
+			} else if(status == MostConstrainedSearch.Status.EXHAUSTED) {
+				this.exhausted = true;
+				return null;
+			}
+
+			part = this.search.split();
+		}
+
+		if(part == null)
+			return null;
+
+		SolutionSpliterator split = new SolutionSpliterator(part);
+		this.estimate >>>= 1;
+		split.estimate = this.estimate;
+		return split;
+	}
+
+	/**
+	 * The number of solutions is not known until they have been enumerated, so the estimate starts at Long.MAX_VALUE
+	 * and is halved by every split.
+	 *
+	 * @return the estimated number of solutions
+	 * */
+	@Override
+	public long estimateSize() {
+		return this.estimate;
+	}
+
+	@Override
+	public int characteristics() {
+		return Spliterator.NONNULL | Spliterator.DISTINCT;
+	}
+}
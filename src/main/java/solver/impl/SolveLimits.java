@@ -0,0 +1,89 @@
+package solver.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds on the work a single solve may do: a deadline, a maximum number of search nodes, and a cancellation token.
+ * Every bound is optional; a new SolveLimits does not limit the solve at all.
+ *
+ * The node budget is checked on every node. The deadline and the token are checked every 1024 nodes, so a solve may
+ * run slightly past its deadline, or a little after its token is cancelled.
+ * */
+public class SolveLimits {
+
+	private long maxNodes = Long.MAX_VALUE;
+	private long deadline;
+	private boolean hasDeadline;
+	private CancellationToken token;
+
+	/**
+	 * Set the maximum number of search nodes a solve may explore.
+	 *
+	 * @param maxNodes the maximum number of search nodes
+	 * */
+	public void setMaxNodes(long maxNodes) {
+		if(maxNodes < 1)
+			throw new IllegalArgumentException("node budget must be positive");
+
+		this.maxNodes = maxNodes;
+	}
+
+	/**
+	 * Set the deadline of a solve, as a value of System.nanoTime().
+	 *
+	 * @param deadline the time at which the solve must stop
+	 * */
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+		this.hasDeadline = true;
+	}
+
+	/**
+	 * Set the deadline of a solve to a given amount of time from now.
+	 *
+	 * @param timeout the time the solve may take
+	 * @param unit the unit of the timeout
+	 * */
+	public void setTimeout(long timeout, TimeUnit unit) {
+		if(unit == null)
+			throw new IllegalArgumentException("time unit is null");
+
+		this.setDeadline(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * Set the token that cancels a solve.
+	 *
+	 * @param token the cancellation token, or null for none
+	 * */
+	public void setCancellationToken(CancellationToken token) {
+		this.token = token;
+	}
+
+	/**
+	 * Get the maximum number of search nodes a solve may explore.
+	 *
+	 * @return the node budget, which is Long.MAX_VALUE if unbounded
+	 * */
+	public long getMaxNodes() {
+		return this.maxNodes;
+	}
+
+	/**
+	 * Return whether the deadline has passed. Always false if no deadline was set.
+	 *
+	 * @return true if the deadline has passed
+	 * */
+	public boolean isDeadlinePassed() {
+		return this.hasDeadline && System.nanoTime() - this.deadline >= 0;
+	}
+
+	/**
+	 * Return whether the cancellation token has been cancelled. Always false if no token was set.
+	 *
+	 * @return true if the solve has been cancelled
+	 * */
+	public boolean isCancelled() {
+		return this.token != null && this.token.isCancelled();
+	}
+}
@@ -0,0 +1,71 @@
+package solver.impl;
+
+/**
+ * The result of a solve bounded by SolveLimits: how the solve ended, the solution if one was found, and the metrics
+ * gathered up to that point.
+ * */
+public class SolveOutcome {
+
+	/**
+	 * How a bounded solve ended.
+	 * */
+	public enum Status {
+		/** A solution was found. */
+		SOLVED,
+
+		/** The search was exhausted without finding a solution; the puzzle has none. */
+		UNSOLVABLE,
+
+		/** The node budget or the deadline ran out first. */
+		BUDGET_EXCEEDED,
+
+		/** The cancellation token was cancelled first. */
+		CANCELLED
+	}
+
+	private final Status status;
+	private final int[][] solution;
+	private final SolverMetrics metrics;
+
+	SolveOutcome(Status status, int[][] solution, SolverMetrics metrics) {
+		this.status = status;
+		this.solution = solution;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Get how the solve ended.
+	 *
+	 * @return the status of the solve
+	 * */
+	public Status getStatus() {
+		return this.status;
+	}
+
+	/**
+	 * Return whether a solution was found.
+	 *
+	 * @return true if the status is SOLVED
+	 * */
+	public boolean isSolved() {
+		return this.status == Status.SOLVED;
+	}
+
+	/**
+	 * Get the solved grid.
+	 *
+	 * @return the solved grid, or null if the puzzle was not solved
+	 * */
+	public int[][] getSolution() {
+		return this.solution;
+	}
+
+	/**
+	 * Get the metrics gathered by the solve, up to the point where it stopped.
+	 *
+	 * @return the metrics of the solve
+	 * */
+	public SolverMetrics getMetrics() {
+		return this.metrics;
+	}
+}
@@ -0,0 +1,153 @@
+package solver.impl;
+
+/**
+ * Counters and phase timings gathered by a SudokuSolver during a single solve.
+ *
+ * A solver reuses one metrics object, which is cleared at the start of every solve. Use the copy constructor to keep
+ * the metrics of a solve once the solver moves on to the next puzzle.
+ * */
+public class SolverMetrics {
+
+	long nodes;
+	long decisions;
+	long backtracks;
+	long propagations;
+	long candidateChecks;
+	long restarts;
+	long constructNanos;
+	long simplifyNanos;
+	long searchNanos;
+
+	/**
+	 * Constructs an empty set of metrics.
+	 * */
+	public SolverMetrics() {
+	}
+
+	/**
+	 * Constructs a copy of a set of metrics.
+	 *
+	 * @param other the metrics to copy
+	 * */
+	public SolverMetrics(SolverMetrics other) {
+		this.nodes = other.nodes;
+		this.decisions = other.decisions;
+		this.backtracks = other.backtracks;
+		this.propagations = other.propagations;
+		this.candidateChecks = other.candidateChecks;
+		this.restarts = other.restarts;
+		this.constructNanos = other.constructNanos;
+		this.simplifyNanos = other.simplifyNanos;
+		this.searchNanos = other.searchNanos;
+	}
+
+	/**
+	 * Reset every counter and timing to zero.
+	 * */
+	void clear() {
+		this.nodes = 0;
+		this.decisions = 0;
+		this.backtracks = 0;
+		this.propagations = 0;
+		this.candidateChecks = 0;
+		this.restarts = 0;
+		this.constructNanos = 0;
+		this.simplifyNanos = 0;
+		this.searchNanos = 0;
+	}
+
+	/**
+	 * Get the number of iterations of the search loop, including those that skip over given cells.
+	 *
+	 * @return the number of search nodes explored
+	 * */
+	public long getNodes() {
+		return this.nodes;
+	}
+
+	/**
+	 * Get the number of values placed in empty cells by the search.
+	 *
+	 * @return the number of decisions made
+	 * */
+	public long getDecisions() {
+		return this.decisions;
+	}
+
+	/**
+	 * Get the number of times the search ran out of values for a cell and undid an earlier decision.
+	 *
+	 * @return the number of backtracks
+	 * */
+	public long getBacktracks() {
+		return this.backtracks;
+	}
+
+	/**
+	 * Get the number of cells filled by simplification before the search started.
+	 *
+	 * @return the number of values placed by propagation
+	 * */
+	public long getPropagations() {
+		return this.propagations;
+	}
+
+	/**
+	 * Get the number of times a value or the candidates of a cell were checked against its row, column and quadrant
+	 * during the search.
+	 *
+	 * @return the number of candidate checks
+	 * */
+	public long getCandidateChecks() {
+		return this.candidateChecks;
+	}
+
+	/**
+	 * Get the number of times a restarting search gave up on a run and started over.
+	 *
+	 * @return the number of restarts
+	 * */
+	public long getRestarts() {
+		return this.restarts;
+	}
+
+	/**
+	 * Get the time spent loading the puzzle into the grid and validating it.
+	 *
+	 * @return the construct phase time, in nanoseconds
+	 * */
+	public long getConstructNanos() {
+		return this.constructNanos;
+	}
+
+	/**
+	 * Get the time spent simplifying the grid by inference.
+	 *
+	 * @return the simplify phase time, in nanoseconds
+	 * */
+	public long getSimplifyNanos() {
+		return this.simplifyNanos;
+	}
+
+	/**
+	 * Get the time spent searching.
+	 *
+	 * @return the search phase time, in nanoseconds
+	 * */
+	public long getSearchNanos() {
+		return this.searchNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "nodes=" + this.nodes
+				+ " decisions=" + this.decisions
+				+ " backtracks=" + this.backtracks
+				+ " propagations=" + this.propagations
+				+ " candidateChecks=" + this.candidateChecks
+				+ " restarts=" + this.restarts
+				+ " constructNanos=" + this.constructNanos
+				+ " simplifyNanos=" + this.simplifyNanos
+				+ " searchNanos=" + this.searchNanos;
+	}
+}
@@ -2,14 +2,50 @@ package solver.impl;
 
 import solver.Grid;
 
+import java.util.Arrays;
+
 public class SudokuGrid implements Grid {
 
-    private GridCell[][] grid;
+	private GridLayout layout;
+
+	//Value of each cell, 0 for empty cells, and whether each cell may be changed; cells are numbered row by row
+	private byte[] values;
+	private boolean[] modifiable;
+
+	//Occupancy masks; bit (value - 1) is set when value appears at least once in the row, column or quadrant
+	private int[] rowMasks;
+	private int[] colMasks;
+	private int[] quadrantMasks;
+
+	//Frequency of each value per row, column and quadrant, indexed by (identifier * size) + (value - 1)
+	private int[] rowCounts;
+	private int[] colCounts;
+	private int[] quadrantCounts;
+
+	//Number of non-empty cells, and number of repeated values across all rows, columns and quadrants
+	private int filledCells;
+	private int conflicts;
+
+	//Number of cells filled by simplification since the grid was last reset
+	private int simplifiedCells;
+
+	//Candidates of each cell left by simplification, which may exclude more than the values of its peers; a search that
+	//propagates narrows them further, and restores them through the trail as it backtracks
+	private int[] candidates;
+	private Propagator propagator;
+
+	//Changes recorded since the first checkpoint, as pairs of (cell << 1) | 1 and the previous value for values placed,
+	//or cell << 1 and the previous candidates for candidates changed; and the trail size when each checkpoint was taken
+	private int[] trail;
+	private int trailSize;
+	private int[] trailMarks;
+	private int checkpoints;
 
     /**
-	 * Initializes a 9x9 sudoku grid with values described by the parameter grid. The grid array must be an array of
-	 * dimensions 9x9, where empty cells have a value of 0. Empty cells are modifiable, and cells with values 1-9 will
-	 * be marked as unmodifiable, and will not respond to incrementCell(), setCell() or resetCell().
+	 * Initializes a sudoku grid with values described by the parameter grid. The grid array must be a square array of
+	 * dimensions 4x4, 9x9, 16x16 or 25x25, where empty cells have a value of 0. Empty cells are modifiable, and cells
+	 * with values 1-N will be marked as unmodifiable, and will not respond to incrementCell(), setCell() or
+	 * resetCell().
 	 *
 	 * Each cell is assigned an array of valid cell values based on the initial cell values. If the cell has only one
 	 * possible value, the cell value is set to this value and is marked as unmodifiable. This will simplify the puzzle
@@ -19,201 +55,275 @@ public class SudokuGrid implements Grid {
 	 * @param grid The initial sudoku cells given, used to construct a grid object
 	 * */
     public SudokuGrid(int[][] grid) {
+		this(grid, true);
+    }
+
+	/**
+	 * Initializes a sudoku grid with values described by the parameter grid, optionally leaving simplification to the
+	 * caller.
+	 *
+	 * @param grid The initial sudoku cells given, used to construct a grid object
+	 * @param simplify whether to simplify the grid once it is loaded
+	 * */
+	SudokuGrid(int[][] grid, boolean simplify) {
+		this.reset(grid, simplify);
+	}
+
+	/**
+	 * Initializes a sudoku grid with values given as a flat array, one cell after another, row by row, optionally
+	 * leaving simplification to the caller.
+	 *
+	 * @param cells The initial sudoku cells given, used to construct a grid object
+	 * @param simplify whether to simplify the grid once it is loaded
+	 * */
+	SudokuGrid(byte[] cells, boolean simplify) {
+		this.reset(cells, simplify);
+	}
+
+	/**
+	 * Initializes a sudoku grid as a copy of another grid, including its current cell values, which cells are
+	 * modifiable and the possible values of each cell. The copy is independent of the original, so it can be modified
+	 * by another thread.
+	 *
+	 * @param other the grid to copy
+	 * */
+	public SudokuGrid(SudokuGrid other) {
+		if(other == null)
+			throw new IllegalArgumentException("provided grid is null");
+
+		this.allocate(other.layout);
+		System.arraycopy(other.values, 0, this.values, 0, this.values.length);
+		System.arraycopy(other.modifiable, 0, this.modifiable, 0, this.modifiable.length);
+		System.arraycopy(other.rowMasks, 0, this.rowMasks, 0, this.rowMasks.length);
+		System.arraycopy(other.colMasks, 0, this.colMasks, 0, this.colMasks.length);
+		System.arraycopy(other.quadrantMasks, 0, this.quadrantMasks, 0, this.quadrantMasks.length);
+		System.arraycopy(other.rowCounts, 0, this.rowCounts, 0, this.rowCounts.length);
+		System.arraycopy(other.colCounts, 0, this.colCounts, 0, this.colCounts.length);
+		System.arraycopy(other.quadrantCounts, 0, this.quadrantCounts, 0, this.quadrantCounts.length);
+		this.filledCells = other.filledCells;
+		this.conflicts = other.conflicts;
+		this.simplifiedCells = other.simplifiedCells;
+		System.arraycopy(other.candidates, 0, this.candidates, 0, this.candidates.length);
+
+		//The trail is copied so that the copy can restore the checkpoints of the original
+		if(other.trailSize > this.trail.length)
+			this.trail = new int[other.trail.length];
+
+		if(other.checkpoints > this.trailMarks.length)
+			this.trailMarks = new int[other.trailMarks.length];
+
+		System.arraycopy(other.trail, 0, this.trail, 0, other.trailSize);
+		System.arraycopy(other.trailMarks, 0, this.trailMarks, 0, other.checkpoints);
+		this.trailSize = other.trailSize;
+		this.checkpoints = other.checkpoints;
+	}
+
+	/**
+	 * Reinitialize this grid with the values described by the parameter grid, as if it had just been constructed with
+	 * it. Existing cells and tables are reused when the size of the grid does not change, which avoids allocating a new
+	 * grid for every puzzle.
+	 *
+	 * @param grid The initial sudoku cells given
+	 * @throws IllegalArgumentException if the grid has invalid dimensions or values, or contains duplicate values
+	 * */
+	public void reset(int[][] grid) {
+		this.reset(grid, true);
+	}
+
+	/**
+	 * Reinitialize this grid with the values described by the parameter grid, optionally leaving simplification to
+	 * the caller, which can then time the two separately.
+	 *
+	 * @param grid The initial sudoku cells given
+	 * @param simplify whether to simplify the grid once it is loaded
+	 * @throws IllegalArgumentException if the grid has invalid dimensions or values, or contains duplicate values
+	 * */
+	void reset(int[][] grid, boolean simplify) {
 		//Reject invalid arguments
 		if(grid == null)
 			throw new IllegalArgumentException("provided grid is null");
 
-		if(grid.length != 9)
-			throw new IllegalArgumentException("provided grid has invalid dimensions");
+		GridLayout layout = GridLayout.forSize(grid.length);
+		for(int[] row : grid) {
+			//Reject Invalid Parameter Array
+			if(row == null || row.length != layout.size)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
 
-		this.grid = new GridCell[9][9];
-		for(int row = 0; row < this.grid.length; row++) {
-			for(int col = 0; col < this.grid[0].length; col++) {
-				this.grid[row][col] = new GridCell();
+			for(int value : row) {
+				if(value < 0 || value > layout.size)
+					throw new IllegalArgumentException("provided grid has invalid cell; value: " + value);
 			}
 		}
-    	
-    	//Build SudokuGrid from provided grid
-    	for(int row = 0; row < grid.length; row++) {
-        	//Reject Invalid Parameter Array
-	    	if(grid[row].length != 9)
-	        	throw new IllegalArgumentException("provided grid has invalid dimensions");
-        	
-	    	//Fill Grid from Provided Grid
-        	for(int col = 0; col < grid[row].length; col++) {
-    			if(grid[row][col] < 0 || grid[row][col] > 9)
-    				throw new IllegalArgumentException("provided grid has invalid cell; value: " + grid[row][col]);
-    			
-    			if(grid[row][col] == 0) {
-    				this.grid[row][col].modifiable = true;
-    				continue;
-    			}
-    			
-				this.grid[row][col].value = grid[row][col];
-				this.grid[row][col].modifiable = false;
-    		}
-    	}
-        
-        if(!this.isValid()) {
-			throw new IllegalArgumentException("invalid sudoku puzzle; cannot be solved");
+
+		this.clear(layout);
+
+		//Build SudokuGrid from provided grid
+		for(int row = 0; row < grid.length; row++) {
+			for(int col = 0; col < grid[row].length; col++) {
+				this.modifiable[layout.cellOf(col, row)] = grid[row][col] == 0;
+				if(grid[row][col] != 0)
+					this.updateCellValue(col, row, grid[row][col]);
+			}
 		}
 
-		this.simplyGrid();
-    }
+		this.finishReset(simplify);
+	}
 
-    /**
-	 * Attempt to simply the sudoku grid by inference.
+	/**
+	 * Reinitialize this grid with values given as a flat array, one cell after another, row by row, as if it had been
+	 * constructed with the equivalent two-dimensional grid. This is the representation the grid keeps its values in,
+	 * so decoders can fill it without building a two-dimensional array.
+	 *
+	 * @param cells the initial sudoku cells given, where empty cells have a value of 0
+	 * @throws IllegalArgumentException if the array has an invalid length or values, or contains duplicate values
 	 * */
-    public void simplyGrid() {
-		//Fill Possible Cell Values Array
-		possibleCellArrayFind:
-		do {
-			for(int row = 0; row < grid.length; row++) {
-				for(int col = 0; col < grid[row].length; col++) {
-					int quadrant = this.getQuadrantId(col, row);
-					int[] possibleCellValues = new int[9];
-
-					int index = 0;
-					for(int number = 1; number < 10; number++) {
-						if(!this.isCellModifiable(col, row)) {
-							this.grid[row][col].validCellValues = null;
-							break;
-						}
-
-						if(this.rowContains(row, number, true) == 0
-								&& this.colContains(col, number, true) == 0
-								&& this.quadrantContains(quadrant, number, true) == 0)
-							possibleCellValues[index++] = number;
-					}
+	public void reset(byte[] cells) {
+		this.reset(cells, true);
+	}
 
-					int[] newArray = new int[index];
-					System.arraycopy(possibleCellValues, 0, newArray, 0, index);
-					possibleCellValues = newArray;
-
-					//Attempt to simplify grid
-					if(possibleCellValues.length == 1) {
-						this.grid[row][col].value = possibleCellValues[0];
-						this.grid[row][col].validCellValues = null;
-						this.grid[row][col].modifiable = false;
-						row = -1;
-						break;
-					}
+	/**
+	 * Reinitialize this grid with values given as a flat array, optionally leaving simplification to the caller.
+	 *
+	 * @param cells the initial sudoku cells given, where empty cells have a value of 0
+	 * @param simplify whether to simplify the grid once it is loaded
+	 * @throws IllegalArgumentException if the array has an invalid length or values, or contains duplicate values
+	 * */
+	void reset(byte[] cells, boolean simplify) {
+		if(cells == null)
+			throw new IllegalArgumentException("provided grid is null");
 
-					this.grid[row][col].validCellValues = possibleCellValues;
-				}
-			}
+		GridLayout layout = GridLayout.forSize((int) Math.round(Math.sqrt(cells.length)));
+		if(layout.cellCount != cells.length)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
 
-			//Iterate Over Number of Rows/Columns/Quadrants
-			int count, index;
-			int indexX, indexY;
-			for(int identifier = 0; identifier < 9; identifier++) {
-				//Check Row Frequency
-				rowFreq:
-				for(int value = 1; value < 10; value++) {
-					count = 0;
-					index = 0;
-					for(int col = 0; col < this.grid[identifier].length; col++) {
-						for(int possibleVal : this.grid[identifier][col].validCellValues) {
-							if(possibleVal == value) {
-								count++;
-								index = col;
-							}
-						}
-
-						if(count > 1)
-							continue rowFreq;
-					}
+		for(byte value : cells) {
+			if(value < 0 || value > layout.size)
+				throw new IllegalArgumentException("provided grid has invalid cell; value: " + value);
+		}
 
-					if(count == 1) {
-						this.grid[identifier][index].validCellValues = null;
-						this.grid[identifier][index].value = value;
-						this.grid[identifier][index].modifiable = false;
-						continue possibleCellArrayFind;
-					}
-				}
+		this.clear(layout);
+		for(int cell = 0; cell < cells.length; cell++) {
+			this.modifiable[cell] = cells[cell] == 0;
+			if(cells[cell] != 0)
+				this.updateCellValue(layout.colOf[cell], layout.rowOf[cell], cells[cell]);
+		}
 
-				//Check Column Frequency
-				colFreq:
-				for(int value = 1; value < 10; value++)
-				{
-					count = 0;
-					index = 0;
-					for(int row = 0; row < this.grid.length; row++) {
-						for(int possibleVal : this.grid[row][identifier].validCellValues) {
-							if(possibleVal == value) {
-								count++;
-								index = row;
-							}
-						}
-
-						if(count > 1)
-							continue colFreq;
-					}
+		this.finishReset(simplify);
+	}
 
-					if(count == 1) {
-						this.grid[identifier][index].validCellValues = null;
-						this.grid[identifier][index].value = value;
-						this.grid[identifier][index].modifiable = false;
-						continue possibleCellArrayFind;
-					}
-				}
+	/**
+	 * Empty every cell and table, for a grid with a given layout.
+	 * */
+	private void clear(GridLayout layout) {
+		if(this.layout != layout)
+			this.allocate(layout);
+
+		Arrays.fill(this.rowMasks, 0);
+		Arrays.fill(this.colMasks, 0);
+		Arrays.fill(this.quadrantMasks, 0);
+		Arrays.fill(this.rowCounts, 0);
+		Arrays.fill(this.colCounts, 0);
+		Arrays.fill(this.quadrantCounts, 0);
+		this.filledCells = 0;
+		this.conflicts = 0;
+		this.simplifiedCells = 0;
+		this.clearTrail();
+		Arrays.fill(this.candidates, layout.allValues);
+		Arrays.fill(this.values, (byte) 0);
+	}
 
-				//Check Quadrant Frequency
-				int xOffset, yOffset;
-				if(identifier <= 2) {
-					xOffset = identifier * 3;
-					yOffset = 0;
-				} else if(identifier <= 5) {
-					xOffset = ((identifier - 3) * 3);
-					yOffset = 3;
-				} else {
-					xOffset = ((identifier - 6) * 3);
-					yOffset = 6;
-				}
+	/**
+	 * Reject a freshly loaded grid with duplicate values, and simplify it if asked to.
+	 * */
+	private void finishReset(boolean simplify) {
+		if(!this.isValid()) {
+			throw new IllegalArgumentException("invalid sudoku puzzle; cannot be solved");
+		}
 
-				quadFreq:
-				for(int value = 1; value < 10; value++) {
-					count = 0;
-					indexX = 0;
-					indexY = 0;
-					for(int row = yOffset; row < 3; row++) {
-						for(int col = xOffset; col < 3; col++) {
-							for(int possibleVal : this.grid[row][col].validCellValues) {
-								if(possibleVal == value) {
-									count++;
-									indexY = row;
-									indexX = col;
-								}
-							}
-
-							if(count > 1)
-								continue quadFreq;
-						}
-					}
+		if(simplify)
+			this.simplyGrid();
+	}
 
-					if(count == 1) {
-						this.grid[indexY][indexX].validCellValues = null;
-						this.grid[indexY][indexX].value = value;
-						this.grid[indexY][indexX].modifiable = false;
-						continue possibleCellArrayFind;
-					}
-				}
+	/**
+	 * Allocate the cells and tables for a grid with a given layout.
+	 *
+	 * @param layout the layout of the grid
+	 * */
+	private void allocate(GridLayout layout) {
+		this.layout = layout;
+		this.rowMasks = new int[layout.size];
+		this.colMasks = new int[layout.size];
+		this.quadrantMasks = new int[layout.size];
+		this.rowCounts = new int[layout.size * layout.size];
+		this.colCounts = new int[layout.size * layout.size];
+		this.quadrantCounts = new int[layout.size * layout.size];
+		this.candidates = new int[layout.cellCount];
+		this.values = new byte[layout.cellCount];
+		this.modifiable = new boolean[layout.cellCount];
+		this.trail = new int[layout.cellCount * 4];
+		this.trailMarks = new int[layout.cellCount + 1];
+		this.trailSize = 0;
+		this.checkpoints = 0;
+		this.propagator = null;
+	}
+
+    /**
+	 * Attempt to simply the sudoku grid by inference. Constraint propagation places every value it can deduce, which
+	 * become unmodifiable like the given cells, and narrows the candidates of the remaining cells. The candidates are
+	 * kept for getCandidateMask() and getPossibleCellValues().
+	 *
+	 * Propagation stops early if it finds the grid unsolvable; the grid is then left for the search to exhaust.
+	 *
+	 * @see Propagator
+	 * */
+    public void simplyGrid() {
+		if(this.propagator == null)
+			this.propagator = new Propagator(this);
+
+		//The trail of the propagation tells which values it placed
+		Propagator propagator = this.propagator;
+		propagator.load();
+		this.checkpoint();
+		propagator.propagate();
+
+		//Values deduced by propagation become givens
+		for(int index = 0; index < this.trailSize; index += 2) {
+			if((this.trail[index] & 1) != 0) {
+				this.modifiable[this.trail[index] >> 1] = false;
+				this.simplifiedCells++;
 			}
+		}
 
-			break;
-		} while(true);
+		this.clearTrail();
 	}
 
     /**
-	 * Validate the entire grid. Validates each row, column and quadrant individually.
+	 * Return whether the grid is solved. The grid is solved when every cell holds a value and no row, column or
+	 * quadrant contains a duplicate value. Both are tracked as cell values change, so this is a constant-time check.
+	 *
+	 * When assertions are enabled, the result is verified against a full validation of each row, column and quadrant.
+	 *
+	 * @see SudokuGrid#isSolvedByValidation()
+	 * @return true if the grid is solved, false otherwise.
+	 * */
+    public boolean isSolved() {
+		boolean solved = this.filledCells == this.layout.cellCount && this.conflicts == 0;
+		assert solved == this.isSolvedByValidation() : "solved state out of sync with grid";
+
+		return solved;
+    }
+
+    /**
+	 * Validate the entire grid. Validates each row, column and quadrant individually. This is considerably slower
+	 * than isSolved(), and is intended for debugging.
 	 *
 	 * @see SudokuGrid#isColumnComplete(int)
 	 * @see SudokuGrid#isRowComplete(int)
 	 * @see SudokuGrid#isQuadrantComplete(int)
 	 * @return true if the grid is solved, false otherwise.
 	 * */
-    public boolean isSolved() {
-        for(int identifier = 0; identifier < 9; identifier++) {
+    public boolean isSolvedByValidation() {
+        for(int identifier = 0; identifier < this.layout.size; identifier++) {
         	if(!this.isRowComplete(identifier))
                 return false;
         	
@@ -227,6 +337,34 @@ public class SudokuGrid implements Grid {
         return true;
     }
 
+	/**
+	 * Access the number of cells that hold a value.
+	 *
+	 * @return the number of non-empty cells
+	 * */
+	public int getFilledCellCount() {
+		return this.filledCells;
+	}
+
+	/**
+	 * Access the number of conflicts in the grid. Each repeated occurrence of a value within a row, column or quadrant
+	 * counts as one conflict.
+	 *
+	 * @return the number of conflicts in the grid
+	 * */
+	public int getConflictCount() {
+		return this.conflicts;
+	}
+
+	/**
+	 * Access the number of cells filled by simplification since the grid was last reset.
+	 *
+	 * @return the number of cells filled by simplification
+	 * */
+	public int getSimplifiedCellCount() {
+		return this.simplifiedCells;
+	}
+
     /**
 	 * Return whether the grid is valid. A grid is valid if each row, col and quadrant do not contain duplicate values.
 	 *
@@ -235,17 +373,9 @@ public class SudokuGrid implements Grid {
 	 * @return true if the grid is valid, false otherwise.
 	 * */
     public boolean isValid() {
-		for(int identifier = 0; identifier < 9; identifier++) {
-			for(int value = 1; value <= 9; value++) {
-				if(this.rowContains(identifier, value, false) > 1)
-					return false;
-
-				if(this.colContains(identifier, value, false) > 1)
-					return false;
-
-				if(this.quadrantContains(identifier, value, false) > 1)
-					return false;
-			}
+		for(int index = 0; index < this.rowCounts.length; index++) {
+			if(this.rowCounts[index] > 1 || this.colCounts[index] > 1 || this.quadrantCounts[index] > 1)
+				return false;
 		}
 
 		return true;
@@ -259,7 +389,7 @@ public class SudokuGrid implements Grid {
      * @return the cell value at row and column
 	 * */
     public int getCellValue(int col, int row) {
-        return this.grid[row][col].value;
+        return this.values[this.layout.cellOf(col, row)];
     }
 
     /**
@@ -270,50 +400,33 @@ public class SudokuGrid implements Grid {
      * @return the quadrant number specified by row and col
 	 * */
     public int getQuadrantId(int col, int row) {
-    	if(col >= 0 && col <= 2) {
-    		if(row >= 0 && row <= 2)
-    			return 0;
-
-    		if(row >= 3 && row <= 5)
-    			return 3;
-
-    		return 6;
-    	}
-
-    	if(col >= 3 && col <= 5) {
-    		if(row >= 0 && row <= 2)
-    			return 1;
-
-    		if(row >= 3 && row <= 5)
-    			return 4;
-
-    		return 7;
-    	}
-
-		if(row >= 0 && row <= 2)
-			return 2;
-
-		if(row >= 3 && row <= 5)
-			return 5;
-
-		return 8;
+    	return this.layout.quadrantOf[this.layout.cellOf(col, row)];
     }
+
+	/**
+	 * Access the number of rows and columns of the grid, which is also the number of possible cell values.
+	 *
+	 * @return the number of rows and columns of the grid
+	 * */
+	public int getSize() {
+		return this.layout.size;
+	}
     
     /**
 	 * Increment the cell at given row and column.
 	 *
-	 * @throws IllegalStateException if cell is not modifiable, or the cell value is 9.
+	 * @throws IllegalStateException if cell is not modifiable, or the cell value is the maximum possible value.
      * @param col column
      * @param row row
 	 * */
     public void incrementCell(int col, int row) {
-    	if(!this.grid[row][col].modifiable)
+    	if(!this.modifiable[this.layout.cellOf(col, row)])
     		throw new IllegalStateException("Cannot increment cell; user defined");
 
-    	if(this.grid[row][col].value == 9)
+    	if(this.values[this.layout.cellOf(col, row)] == this.layout.size)
             throw new IllegalStateException("Cannot increment cell; maximum possible cell value");
 
-    	this.grid[row][col].value++;
+    	this.updateCellValue(col, row, this.values[this.layout.cellOf(col, row)] + 1);
     }
 
     /**
@@ -322,16 +435,16 @@ public class SudokuGrid implements Grid {
 	 * @param col column
 	 * @param row row
 	 * @param value the desired cell value
-	 * @throws RuntimeException if the cell is not modifiable or the value does not fall within the range 1-9
+	 * @throws RuntimeException if the cell is not modifiable or the value does not fall within the range 1-N
 	 * */
     public void setCellValue(int col, int row, int value) {
-    	if(!this.grid[row][col].modifiable)
+    	if(!this.modifiable[this.layout.cellOf(col, row)])
     		throw new RuntimeException("Cannot set cell value to" + value + "; cell not modifiable");
 
-    	if(value > 9 || value < 1)
-           throw new RuntimeException("Cannot set cell value to" + value + "; must be 1-9");
+    	if(value > this.layout.size || value < 1)
+           throw new RuntimeException("Cannot set cell value to" + value + "; must be 1-" + this.layout.size);
 
-    	this.grid[row][col].value = value;
+    	this.updateCellValue(col, row, value);
     }
     
     /**
@@ -342,10 +455,10 @@ public class SudokuGrid implements Grid {
      * @param row row
      */
     public void resetCellValue(int col, int row) {
-        if(!this.grid[row][col].modifiable)
+        if(!this.modifiable[this.layout.cellOf(col, row)])
         	 throw new IllegalStateException("Cannot reset user-defined cell");
 
-    	this.grid[row][col].value = 0;
+    	this.updateCellValue(col, row, 0);
     }
     
     /** Returns whether the cell is modifiable.
@@ -354,17 +467,42 @@ public class SudokuGrid implements Grid {
      * @return whether the cell is modifiable.
      */
     public boolean isCellModifiable(int col, int row) {
-    	return this.grid[row][col].modifiable;
+    	return this.modifiable[this.layout.cellOf(col, row)];
     }
     
-    /** Access an array containing all the possible values for a given cell.
-      * Based only on on the initial grid unmodifiable cell values.
+    /** Access an array containing all the possible values for a given cell,
+      * based on the initial grid unmodifiable cell values and simplification.
+      * The array is built on every call; getPossibleCellMask() avoids this.
       * @param col column
       * @param row row
-      * @return an array of all possible values for that cell
+      * @return an array of all possible values for that cell, or null if
+      * the cell is not modifiable
       * */
     public int[] getPossibleCellValues(int col, int row) {
-    	return this.grid[row][col].validCellValues;
+    	if(!this.isCellModifiable(col, row))
+    		return null;
+
+    	int mask = this.getPossibleCellMask(col, row);
+    	int[] possibleCellValues = new int[Integer.bitCount(mask)];
+    	int index = 0;
+    	for(int remaining = mask; remaining != 0; remaining &= remaining - 1)
+    		possibleCellValues[index++] = Integer.numberOfTrailingZeros(remaining) + 1;
+
+    	return possibleCellValues;
+    }
+
+    /** Access the possible values for a given cell as a mask, where bit
+      * (value - 1) is set if value is possible. Unlike getCandidateMask(), the
+      * current values of the peers of the cell and of the cell itself are
+      * ignored.
+      * @param col column
+      * @param row row
+      * @return the mask of all possible values for that cell, 0 if the cell is
+      * not modifiable
+      * */
+    public int getPossibleCellMask(int col, int row) {
+    	int cell = this.layout.cellOf(col, row);
+    	return this.modifiable[cell] ? this.candidates[cell] : 0;
     }
     
     /**
@@ -373,17 +511,59 @@ public class SudokuGrid implements Grid {
      * @return a 2d array of integers representing this sudoku grid.
 	 * */
     public int[][] getGrid() {
-    	int[][] newGrid = new int[9][9];
-    	
-    	for(int row = 0; row < this.grid.length; row++) {
-    		for(int col = 0; col < this.grid[row].length; col++) {
-    			newGrid[row][col] = this.grid[row][col].value;
-    		}
-    	}
-    	
+    	int[][] newGrid = new int[this.layout.size][this.layout.size];
+    	this.getGrid(newGrid);
     	return newGrid;
     }
 
+    /**
+	 * Copy the values of the grid into a caller-supplied array, without allocating.
+	 *
+	 * @param into a square array with the same number of rows and columns as this grid
+	 * @throws IllegalArgumentException if the array has different dimensions
+	 * */
+    public void getGrid(int[][] into) {
+    	int size = this.layout.size;
+    	if(into == null || into.length != size)
+    		throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+    	for(int row = 0; row < size; row++) {
+    		int[] intoRow = into[row];
+    		if(intoRow == null || intoRow.length != size)
+    			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+    		for(int col = 0; col < size; col++)
+    			intoRow[col] = this.values[row * size + col];
+    	}
+    }
+
+    /**
+	 * Copy the values of the grid into a caller-supplied flat array, one cell after another, row by row.
+	 *
+	 * @param into an array of at least N*N elements
+	 * @throws IllegalArgumentException if the array is too small
+	 * */
+    public void getValues(int[] into) {
+    	if(into == null || into.length < this.values.length)
+    		throw new IllegalArgumentException("provided array is too small");
+
+    	for(int cell = 0; cell < this.values.length; cell++)
+    		into[cell] = this.values[cell];
+    }
+
+    /**
+	 * Copy the values of the grid into a caller-supplied flat array, one cell after another, row by row.
+	 *
+	 * @param into an array of at least N*N elements
+	 * @throws IllegalArgumentException if the array is too small
+	 * */
+    public void getValues(byte[] into) {
+    	if(into == null || into.length < this.values.length)
+    		throw new IllegalArgumentException("provided array is too small");
+
+    	System.arraycopy(this.values, 0, into, 0, this.values.length);
+    }
+
     /**
      * Test the frequency of a given number across a row.
      *
@@ -393,7 +573,13 @@ public class SudokuGrid implements Grid {
      * @return the number of occurrences of num in row, or if lazy is true return 1.
      * */
     public int rowContains(int row, int num, boolean lazy) {
-        return entityContains(row, null, null, num, lazy);
+		if(num < 1 || num > this.layout.size)
+			return entityContains(row, null, null, num, lazy);
+
+		if(lazy)
+			return (this.rowMasks[row] >>> (num - 1)) & 1;
+
+		return this.rowCounts[row * this.layout.size + num - 1];
     }
 
     /**
@@ -404,7 +590,13 @@ public class SudokuGrid implements Grid {
      * @return the number of occurrences of num in col
      * */
     public int colContains(int col, int num, boolean lazy) {
-        return entityContains(null, col, null, num, lazy);
+		if(num < 1 || num > this.layout.size)
+			return entityContains(null, col, null, num, lazy);
+
+		if(lazy)
+			return (this.colMasks[col] >>> (num - 1)) & 1;
+
+		return this.colCounts[col * this.layout.size + num - 1];
     }
 
     /**
@@ -415,19 +607,171 @@ public class SudokuGrid implements Grid {
      * @return the number of occurances of num in quadrant
      * */
     public int quadrantContains(int quadrant, int num, boolean lazy) {
-        return entityContains(null, null, quadrant, num, lazy);
+		if(num < 1 || num > this.layout.size)
+			return entityContains(null, null, quadrant, num, lazy);
+
+		if(lazy)
+			return (this.quadrantMasks[quadrant] >>> (num - 1)) & 1;
+
+		return this.quadrantCounts[quadrant * this.layout.size + num - 1];
     }
 
+	/**
+	 * Access the occupancy mask of a row. Bit (value - 1) is set if value appears in the row.
+	 *
+	 * @param row row
+	 * @return the occupancy mask of the row
+	 * */
+	public int getRowMask(int row) {
+		return this.rowMasks[row];
+	}
+
+	/**
+	 * Access the occupancy mask of a column. Bit (value - 1) is set if value appears in the column.
+	 *
+	 * @param col column
+	 * @return the occupancy mask of the column
+	 * */
+	public int getColMask(int col) {
+		return this.colMasks[col];
+	}
+
+	/**
+	 * Access the occupancy mask of a quadrant. Bit (value - 1) is set if value appears in the quadrant.
+	 *
+	 * @param quadrant quadrant number
+	 * @return the occupancy mask of the quadrant
+	 * */
+	public int getQuadrantMask(int quadrant) {
+		return this.quadrantMasks[quadrant];
+	}
+
+	/**
+	 * Compute the mask of values that could be placed in a given cell without conflicting with its row, column or
+	 * quadrant, and that simplification has not ruled out. Bit (value - 1) is set if value is a candidate. Cells that
+	 * already hold a value have no candidates.
+	 *
+	 * @param col column
+	 * @param row row
+	 * @return the candidate mask of the cell
+	 * */
+	public int getCandidateMask(int col, int row) {
+		if(this.values[this.layout.cellOf(col, row)] != 0)
+			return 0;
+
+		int occupied = this.rowMasks[row] | this.colMasks[col] | this.quadrantMasks[this.getQuadrantId(col, row)];
+		return ~occupied & this.candidates[this.layout.cellOf(col, row)];
+	}
+
+	/**
+	 * Take a checkpoint of the values and candidates of the grid. From the first checkpoint on, every change made
+	 * through placeValue() and setCandidates() is recorded on the trail, so that restoring a checkpoint takes time
+	 * proportional to the changes made since, rather than to the size of the grid. Values must not be changed through
+	 * setCellValue() or resetCellValue() while checkpoints are held, since those changes are not recorded.
+	 *
+	 * @return the checkpoint, which is the number of checkpoints taken before it
+	 * */
+	int checkpoint() {
+		if(this.checkpoints == this.trailMarks.length)
+			this.trailMarks = Arrays.copyOf(this.trailMarks, this.trailMarks.length * 2);
+
+		this.trailMarks[this.checkpoints] = this.trailSize;
+		return this.checkpoints++;
+	}
+
+	/**
+	 * Undo every change recorded since a checkpoint was taken, newest first. Later checkpoints are discarded; the
+	 * restored checkpoint is kept, so it can be restored again.
+	 *
+	 * @param checkpoint the checkpoint to restore
+	 * */
+	void restore(int checkpoint) {
+		int mark = this.trailMarks[checkpoint];
+		while(this.trailSize > mark) {
+			int previous = this.trail[--this.trailSize];
+			int entry = this.trail[--this.trailSize];
+			int cell = entry >> 1;
+			if((entry & 1) != 0)
+				this.updateCellValue(this.layout.colOf[cell], this.layout.rowOf[cell], previous);
+			else
+				this.candidates[cell] = previous;
+		}
+
+		this.checkpoints = checkpoint + 1;
+	}
+
+	/**
+	 * Forget every checkpoint and the changes recorded since, keeping the current values and candidates.
+	 * */
+	void clearTrail() {
+		this.trailSize = 0;
+		this.checkpoints = 0;
+	}
+
+	/**
+	 * Get the number of checkpoints held.
+	 *
+	 * @return the number of checkpoints held
+	 * */
+	int getCheckpointCount() {
+		return this.checkpoints;
+	}
+
+	/**
+	 * Set the value of a given cell as setCellValue() does, recording the change on the trail if a checkpoint is held.
+	 *
+	 * @param cell the cell, numbered row by row
+	 * @param value the desired cell value
+	 * @throws RuntimeException if the cell is not modifiable or the value does not fall within the range 1-N
+	 * */
+	void placeValue(int cell, int value) {
+		int previous = this.values[cell];
+		this.setCellValue(this.layout.colOf[cell], this.layout.rowOf[cell], value);
+		if(this.checkpoints > 0)
+			this.record(cell << 1 | 1, previous);
+	}
+
+	/**
+	 * Get the candidates of a cell, as narrowed by simplification or propagation. Unlike getCandidateMask(), the values
+	 * of the peers of the cell are not taken into account.
+	 *
+	 * @param cell the cell, numbered row by row
+	 * @return the candidate mask of the cell
+	 * */
+	int getCandidates(int cell) {
+		return this.candidates[cell];
+	}
+
+	/**
+	 * Replace the candidates of a cell, recording the change on the trail if a checkpoint is held.
+	 *
+	 * @param cell the cell, numbered row by row
+	 * @param mask the new candidate mask of the cell
+	 * */
+	void setCandidates(int cell, int mask) {
+		if(this.checkpoints > 0)
+			this.record(cell << 1, this.candidates[cell]);
+
+		this.candidates[cell] = mask;
+	}
+
+	private void record(int entry, int previous) {
+		if(this.trailSize + 2 > this.trail.length)
+			this.trail = Arrays.copyOf(this.trail, this.trail.length * 2);
+
+		this.trail[this.trailSize++] = entry;
+		this.trail[this.trailSize++] = previous;
+	}
 
     /**
 	 * Validate grid row. Validation is done in two steps, first with an initial non-deterministic step, followed by a
 	 * deterministic step.
 	 *
-	 * The non-deterministic step rejects any grid whose sum of cell values across a given row is not equal to 45, or
+	 * The non-deterministic step rejects any grid whose sum of cell values across a given row is not equal to N(N+1)/2, or
 	 * one with an empty cell. This acts as a fast way to invalidate a row.
 	 *
 	 * The deterministic step tests the frequency of values in a row. The row is valid iff the frequency of numbers
-	 * across a row are exactly 1, and the only numbers that appear are digits 1 through 9.
+	 * across a row are exactly 1, and the only numbers that appear are digits 1 through N.
 	 *
 	 * @param row row
 	 * @return true if the row is valid, false otherwise.
@@ -439,11 +783,11 @@ public class SudokuGrid implements Grid {
 	/** Validate grid column. Validation is done in two steps, first with an initial non-deterministic step, followed
 	 * by a deterministic step.
 	 *
-	 * The non-deterministic step rejects any grid whose sum of cell values across a given column is not equal to 45, or
+	 * The non-deterministic step rejects any grid whose sum of cell values across a given column is not equal to N(N+1)/2, or
 	 * one with an empty cell. This acts as a fast way to invalidate a column.
 	 *
 	 * The deterministic step tests the frequency of values in a column. The column is valid iff the frequency of
-	 * numbers across a column are exactly 1, and the only numbers that appear are digits 1 through 9.
+	 * numbers across a column are exactly 1, and the only numbers that appear are digits 1 through N.
 	 *
 	 * @param col column
 	 * @return true if the column is valid, false otherwise.
@@ -456,11 +800,11 @@ public class SudokuGrid implements Grid {
 	 * Validate grid quadrant. Validation is done in two steps, first with an initial non-deterministic step, followed
 	 * by a deterministic step.
 	 *
-	 * The non-deterministic step rejects any grid whose sum of cell values in a given quadrant is not equal to 45, or
+	 * The non-deterministic step rejects any grid whose sum of cell values in a given quadrant is not equal to N(N+1)/2, or
 	 * one with an empty cell. This acts as a fast way to invalidate a quadrant.
 	 *
 	 * The deterministic step tests the frequency of values in a quadrant. The quadrant is valid iff the frequency of
-	 * numbers are exactly 1, and the only numbers that appear are digits 1 through 9.
+	 * numbers are exactly 1, and the only numbers that appear are digits 1 through N.
 	 *
 	 * @param quadrant quadrant number
 	 * @return true if the quadrant is valid, false otherwise.
@@ -470,17 +814,18 @@ public class SudokuGrid implements Grid {
 	}
 
 	private boolean isCompleteRowColQuadrant(Integer row, Integer col, Integer quadrant) {
-		//If Sum of Cell Values != 45 or Empty Cell Encountered, Row is Invalid
+		//If Sum of Cell Values != N(N+1)/2 or Empty Cell Encountered, Row is Invalid
 		int sum = 0;
-		int[] valFrequency = new int[9];
+		int size = this.layout.size;
+		int[] valFrequency = new int[size];
 
 		if(quadrant != null) {
 			int xOffset = this.getQuadrantIndexingOffset(quadrant, true);
 			int yOffset = this.getQuadrantIndexingOffset(quadrant, false);
 
-			for(int rowIndex = 0; rowIndex < 3; rowIndex++) {
-				for(int colIndex = 0; colIndex < 3; colIndex++) {
-					int value = this.grid[rowIndex + yOffset][colIndex + xOffset].value;
+			for(int rowIndex = 0; rowIndex < this.layout.boxSize; rowIndex++) {
+				for(int colIndex = 0; colIndex < this.layout.boxSize; colIndex++) {
+					int value = this.values[this.layout.cellOf(colIndex + xOffset, rowIndex + yOffset)];
 					if(value == 0)
 						return false;
 
@@ -489,12 +834,12 @@ public class SudokuGrid implements Grid {
 				}
 			}
 		} else {
-			for(int index = 0; index < 9; index++) {
+			for(int index = 0; index < size; index++) {
 				int value;
 				if(row != null)
-					value = this.grid[row][index].value;
+					value = this.values[this.layout.cellOf(index, row)];
 				else
-					value = this.grid[index][col].value;
+					value = this.values[this.layout.cellOf(col, index)];
 
 				if(value == 0)
 					return false;
@@ -504,10 +849,10 @@ public class SudokuGrid implements Grid {
 			}
 		}
 
-		if(sum != 45)
+		if(sum != size * (size + 1) / 2)
 			return false;
 
-		//If Sum of Cell Values == 45, Check Frequency of Numbers
+		//If Sum of Cell Values == N(N+1)/2, Check Frequency of Numbers
 		for(int freq : valFrequency) {
 			if(freq != 1)
 				return false;
@@ -524,24 +869,10 @@ public class SudokuGrid implements Grid {
 	 * @return an indexing offset
 	 * */
 	private int getQuadrantIndexingOffset(int quadrant, boolean xOffset) {
-		if(quadrant >= 0 && quadrant <= 2) {
-			if(xOffset)
-				return quadrant * 3;
-
-			return 0;
-		}
-
-		if(quadrant >= 3 && quadrant <= 5) {
-			if(xOffset)
-				return ((quadrant - 3) * 3);
-
-			return 3;
-		}
-
 		if(xOffset)
-			return ((quadrant - 6) * 3);
+			return (quadrant % this.layout.boxSize) * this.layout.boxSize;
 
-		return 6;
+		return (quadrant / this.layout.boxSize) * this.layout.boxSize;
 	}
 
 	private int entityContains(Integer row, Integer col, Integer quadrant, int num, boolean lazy) {
@@ -550,9 +881,9 @@ public class SudokuGrid implements Grid {
 				int xOffset = this.getQuadrantIndexingOffset(quadrant, true);
 				int yOffset = this.getQuadrantIndexingOffset(quadrant, false);
 
-				for(int rowIndex = 0; rowIndex < 3; rowIndex++) {
-					for(int colIndex = 0; colIndex < 3; colIndex++) {
-						if(this.grid[rowIndex + yOffset][colIndex + xOffset].value == num)
+				for(int rowIndex = 0; rowIndex < this.layout.boxSize; rowIndex++) {
+					for(int colIndex = 0; colIndex < this.layout.boxSize; colIndex++) {
+						if(this.values[this.layout.cellOf(colIndex + xOffset, rowIndex + yOffset)] == num)
 							return 1;
 					}
 				}
@@ -561,16 +892,16 @@ public class SudokuGrid implements Grid {
 			}
 
 			if(row != null) {
-				for(int index = 0; index < 9; index++) {
-					if(this.grid[row][index].value == num)
+				for(int index = 0; index < this.layout.size; index++) {
+					if(this.values[this.layout.cellOf(index, row)] == num)
 						return 1;
 				}
 
 				return 0;
 			}
 
-			for(int index = 0; index < 9; index++) {
-				if(this.grid[index][col].value == num)
+			for(int index = 0; index < this.layout.size; index++) {
+				if(this.values[this.layout.cellOf(col, index)] == num)
 					return 1;
 			}
 
@@ -579,15 +910,15 @@ public class SudokuGrid implements Grid {
 
 		int count = 0;
 		if(row != null) {
-			for(int colIndex = 0; colIndex < 9; colIndex++) {
-				if(this.grid[row][colIndex].value == num)
+			for(int colIndex = 0; colIndex < this.layout.size; colIndex++) {
+				if(this.values[this.layout.cellOf(colIndex, row)] == num)
 					count++;
 			}
 		}
 
 		if(col != null) {
-			for(int rowIndex = 0; rowIndex < 9; rowIndex++) {
-				if(this.grid[rowIndex][col].value == num)
+			for(int rowIndex = 0; rowIndex < this.layout.size; rowIndex++) {
+				if(this.values[this.layout.cellOf(col, rowIndex)] == num)
 					count++;
 			}
 		}
@@ -596,9 +927,9 @@ public class SudokuGrid implements Grid {
 			int xOffset = this.getQuadrantIndexingOffset(quadrant, true);
 			int yOffset = this.getQuadrantIndexingOffset(quadrant, false);
 
-			for(int rowIndex = 0; rowIndex < 3; rowIndex++) {
-				for(int colIndex = 0; colIndex < 3; colIndex++) {
-					if(this.grid[rowIndex + yOffset][colIndex + xOffset].value == num)
+			for(int rowIndex = 0; rowIndex < this.layout.boxSize; rowIndex++) {
+				for(int colIndex = 0; colIndex < this.layout.boxSize; colIndex++) {
+					if(this.values[this.layout.cellOf(colIndex + xOffset, rowIndex + yOffset)] == num)
 						count++;
 				}
 			}
@@ -607,14 +938,56 @@ public class SudokuGrid implements Grid {
 		return count;
 	}
     
-    /**
-	 * A class representing a single cell in a sudoku grid.
-	 * Each cell has a value, and can be either modifiable or not modifiable.
-	 * */
-    private class GridCell
-    {
-    	public boolean modifiable = true;
-    	public int value = 0;
-    	public int[] validCellValues = null;
-    }
+	/**
+	 * Change the value of a cell, keeping the row, column and quadrant occupancy masks and frequencies up to date.
+	 * A value of 0 empties the cell.
+	 *
+	 * @param col column
+	 * @param row row
+	 * @param value the new cell value, 0-N
+	 * */
+	private void updateCellValue(int col, int row, int value) {
+		int quadrant = this.getQuadrantId(col, row);
+		int previous = this.values[this.layout.cellOf(col, row)];
+		if(previous != 0) {
+			int bit = 1 << (previous - 1);
+			this.filledCells--;
+			this.conflicts -= this.decrementCount(this.rowCounts, this.rowMasks, row, previous, bit);
+			this.conflicts -= this.decrementCount(this.colCounts, this.colMasks, col, previous, bit);
+			this.conflicts -= this.decrementCount(this.quadrantCounts, this.quadrantMasks, quadrant, previous, bit);
+		}
+
+		this.values[this.layout.cellOf(col, row)] = (byte) value;
+		if(value != 0) {
+			int bit = 1 << (value - 1);
+			this.filledCells++;
+			this.conflicts += this.incrementCount(this.rowCounts, this.rowMasks, row, value, bit);
+			this.conflicts += this.incrementCount(this.colCounts, this.colMasks, col, value, bit);
+			this.conflicts += this.incrementCount(this.quadrantCounts, this.quadrantMasks, quadrant, value, bit);
+		}
+	}
+
+	/**
+	 * Record an occurrence of a value in a row, column or quadrant.
+	 *
+	 * @return 1 if the value already occurred in the row, column or quadrant, 0 otherwise
+	 * */
+	private int incrementCount(int[] counts, int[] masks, int identifier, int value, int bit) {
+		masks[identifier] |= bit;
+		return counts[identifier * this.layout.size + value - 1]++ > 0 ? 1 : 0;
+	}
+
+	/**
+	 * Remove an occurrence of a value from a row, column or quadrant.
+	 *
+	 * @return 1 if the value still occurs in the row, column or quadrant, 0 otherwise
+	 * */
+	private int decrementCount(int[] counts, int[] masks, int identifier, int value, int bit) {
+		if(--counts[identifier * this.layout.size + value - 1] > 0)
+			return 1;
+
+		masks[identifier] &= ~bit;
+		return 0;
+	}
+
 }
\ No newline at end of file
@@ -1,11 +1,55 @@
 package solver.impl;
 
-public class SudokuSolver {
+import solver.Solver;
 
-	private int iterations;
-	private int[] xy;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class SudokuSolver implements Solver {
+
+	/** The order in which the solver visits empty cells.
+	  */
+	public enum SearchOrder {
+		/** Visit cells left to right, top to bottom. */
+		ROW_MAJOR,
+
+		/** Visit the empty cell with the fewest candidates first, breaking ties by row-major position. */
+		MOST_CONSTRAINED
+	}
+
+	//Number of search nodes between checks of the deadline and cancellation token
+	private static final long CHECK_INTERVAL = 1024;
+
+	//Limits of solves that are not given any
+	private static final SolveLimits UNLIMITED = new SolveLimits();
+
+	private SearchOrder searchOrder = SearchOrder.ROW_MAJOR;
+	private boolean propagating;
+	//Node limits of the runs of a restarting search and seed of its random order, or null to search in a fixed order
+	private RestartSchedule restartSchedule;
+	private long seed;
+	private long iterations;
+	private SolveLimits limits = UNLIMITED;
+	private long nextCheck;
+	private SolveOutcome.Status interruption;
+	private final SolverMetrics metrics = new SolverMetrics();
+	private SearchListener listener;
+	private final int[] xy = new int[2];
 	private int[][] initialGrid;
 	private int[][] solvedGrid;
+	private SudokuGrid grid;
+	private MostConstrainedSearch search;
+	//Solutions found by the most constrained search of the last solve or count, or -1 after any other solve
+	private long searchSolutions = -1;
+	private int size;
+
+	//Caller-supplied array the next solution is written into, or null to allocate one
+	private int[][] output;
+
+	//Puzzle and solution of a solve on flat arrays of cells, or null when solving two-dimensional grids
+	private byte[] initialCells;
+	private byte[] outputCells;
 
 	/** Default SudokuSolver constructor. Initializes objects fields
 	  * to default values.
@@ -22,11 +66,22 @@ public class SudokuSolver {
     	this.reset(initGrid);
     }
     
+    /** Constructs a new SudokuSolver that visits cells in the given order.
+      * @param searchOrder the order in which empty cells are visited
+      */
+    public SudokuSolver(SearchOrder searchOrder) {
+    	this.reset();
+    	this.setSearchOrder(searchOrder);
+    }
+
     /** Resets this object back to defaults. Clears all instance variables
       */
     public void reset() {
     	this.iterations = 0;
-    	this.xy = new int[]{0,0};
+    	this.searchSolutions = -1;
+    	this.metrics.clear();
+    	this.xy[0] = 0;
+    	this.xy[1] = 0;
     	this.initialGrid = null;
     	this.solvedGrid = null;
     }
@@ -37,7 +92,10 @@ public class SudokuSolver {
       */
     public void reset(int[][] initGrid) {
     	this.iterations = 0;
-    	this.xy = new int[]{0,0};
+    	this.searchSolutions = -1;
+    	this.metrics.clear();
+    	this.xy[0] = 0;
+    	this.xy[1] = 0;
     	this.initialGrid = initGrid;
     	this.solvedGrid = null;
     }
@@ -47,138 +105,655 @@ public class SudokuSolver {
       * @return the solved sudoku grid
       */
     public int[][] solve(int[][] initGrid) {
-    	this.initialGrid = initGrid;
+    	this.reset(initGrid);
     	return this.solve();
     }
     
     /** Solve the sudoku grid represented by this SudokuSolver object.
       * @return the solved sudoku grid
+      * @throws IllegalArgumentException if the grid has invalid dimensions or
+      * values, or cannot be solved
       */
     public int[][] solve() {
-    	//Build SudokuGrid Object
-    	SudokuGrid grid = new SudokuGrid(this.initialGrid);
+    	if(this.search(UNLIMITED) != SolveOutcome.Status.SOLVED)
+    		throw new IllegalArgumentException("invalid sudoku puzzle; cannot be solved");
+
+    	return this.solvedGrid;
+    }
+
+    /** Solves a given sudoku grid, writing the solution into a caller-supplied
+      * array. Once the solver has solved a puzzle of the same size, solving
+      * this way allocates nothing, which suits solving many puzzles in a row.
+      * The solution array is not kept by the solver; getSolvedGrid() returns
+      * it only until the next solve.
+      * @param initGrid the sudoku grid to solve
+      * @param solution the array to write the solution into, with the same
+      * dimensions as the grid to solve
+      * @return the solution array, holding the solved sudoku grid
+      * @throws IllegalArgumentException if the grid or the solution array has
+      * invalid dimensions, the grid has invalid values, or cannot be solved
+      */
+    @Override
+    public int[][] solve(int[][] initGrid, int[][] solution) {
+    	this.reset(initGrid);
+    	this.output = solution;
+    	try {
+    		return this.solve();
+    	} finally {
+    		this.output = null;
+    	}
+    }
+
+    /** Solves a given sudoku grid held as a flat array of cells, row by row,
+      * writing the solution into a caller-supplied array. The cells are
+      * loaded straight into the grid of the solver, so once it has solved a
+      * puzzle of the same size, solving this way allocates nothing. Unlike
+      * the other solves, getSolvedGrid() and getInitialGrid() return null
+      * afterwards.
+      * @param cells the sudoku grid to solve, where empty cells have a value
+      * of 0
+      * @param solution the array to write the solution into, with the same
+      * length as the grid to solve
+      * @return the solution array, holding the solved sudoku grid
+      * @throws IllegalArgumentException if the grid or the solution array has
+      * an invalid length, the grid has invalid values, or cannot be solved
+      */
+    @Override
+    public byte[] solve(byte[] cells, byte[] solution) {
+    	if(cells == null)
+    		throw new IllegalArgumentException("provided grid is null");
+
+    	if(solution == null || solution.length != cells.length)
+    		throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+    	this.reset();
+    	this.initialCells = cells;
+    	this.outputCells = solution;
+    	try {
+    		this.solve();
+    		return solution;
+    	} finally {
+    		this.initialCells = null;
+    		this.outputCells = null;
+    	}
+    }
+
+    /** Solves a given sudoku grid, stopping early once the node budget or
+      * deadline of the given limits runs out, or their cancellation token is
+      * cancelled.
+      * @param initGrid the sudoku grid to solve
+      * @param limits the bounds on the work the solve may do
+      * @return how the solve ended, with the solution if one was found and a
+      * copy of the metrics gathered up to that point
+      * @throws IllegalArgumentException if the grid has invalid dimensions or
+      * values, or contains duplicate values
+      */
+    public SolveOutcome solve(int[][] initGrid, SolveLimits limits) {
+    	if(limits == null)
+    		throw new IllegalArgumentException("limits is null");
+
+    	this.reset(initGrid);
+    	SolveOutcome.Status status = this.search(limits);
+    	return new SolveOutcome(status, status == SolveOutcome.Status.SOLVED ? this.solvedGrid : null,
+    			new SolverMetrics(this.metrics));
+    }
+
+    /** Load the initial grid and search it in the configured order.
+      * @param limits the bounds on the work the search may do
+      * @return how the search ended
+      */
+    private SolveOutcome.Status search(SolveLimits limits) {
+    	SudokuGrid grid = this.prepareGrid(this.initialGrid);
+    	this.beginSearch(limits);
+
+    	long start = System.nanoTime();
+    	SolveOutcome.Status status;
+    	if(this.searchOrder == SearchOrder.MOST_CONSTRAINED) {
+    		long found = this.restartSchedule != null ? this.searchRestarting(grid)
+    				: this.searchMostConstrained(grid, 1);
+    		if(found > 0)
+    			status = SolveOutcome.Status.SOLVED;
+    		else if(this.interruption != null)
+    			status = this.interruption;
+    		else
+    			status = SolveOutcome.Status.UNSOLVABLE;
+    	} else {
+    		status = this.searchRowMajor(grid);
+    		if(status == SolveOutcome.Status.SOLVED)
+    			this.keepSolution(grid);
+    	}
+
+    	this.metrics.searchNanos = System.nanoTime() - start;
+    	this.metrics.nodes = this.iterations;
+    	return status;
+    }
+
+    /** Load a puzzle into the grid, reusing the grid of a previous solve, and
+      * simplify it. Both phases are timed into the metrics.
+      * @param initGrid the sudoku grid to load
+      * @return the loaded grid
+      */
+    private SudokuGrid prepareGrid(int[][] initGrid) {
+    	long start = System.nanoTime();
+    	if(this.initialCells != null) {
+    		if(this.grid == null)
+    			this.grid = new SudokuGrid(this.initialCells, false);
+    		else
+    			this.grid.reset(this.initialCells, false);
+    	} else if(this.grid == null) {
+    		this.grid = new SudokuGrid(initGrid, false);
+    	} else {
+    		this.grid.reset(initGrid, false);
+    	}
+
+    	long loaded = System.nanoTime();
+    	this.grid.simplyGrid();
+
+    	this.metrics.constructNanos = loaded - start;
+    	this.metrics.simplifyNanos = System.nanoTime() - loaded;
+    	this.metrics.propagations = this.grid.getSimplifiedCellCount();
+    	this.size = this.grid.getSize();
+    	return this.grid;
+    }
+
+    /** Keep the values of a solved grid as the solved grid, in the output
+      * array if one was supplied.
+      * @param grid the solved grid
+      */
+    private void keepSolution(SudokuGrid grid) {
+    	if(this.outputCells != null) {
+    		grid.getValues(this.outputCells);
+    	} else if(this.output == null) {
+    		this.solvedGrid = grid.getGrid();
+    	} else {
+    		grid.getGrid(this.output);
+    		this.solvedGrid = this.output;
+    	}
+    }
+
+    /** Search for a solution by visiting cells in row-major order, using the
+      * grid position handle as the cursor.
+      * @param grid the grid to solve
+      * @return SOLVED if the grid holds a solution, UNSOLVABLE if the search
+      * backtracked past the first cell, or the limit that stopped the search
+      */
+    private SolveOutcome.Status searchRowMajor(SudokuGrid grid) {
     	boolean backtrack = false;
     	
-    	outerloop:
     	while(true) {
+    		if(this.iterations >= this.nextCheck) {
+    			SolveOutcome.Status stop = this.checkLimits();
+    			if(stop != null)
+    				return stop;
+    		}
+
     		//Increment running total of iterations
 			iterations++;
     		
     		//If cell is not modifiable, skip
     		if(!grid.isCellModifiable(this.xy[0], this.xy[1])) {
-    			if(!backtrack)
-    				this.stepForward();
-    			else
-    				this.stepBackward();
-    			
-    			continue;
-    		}
-    		
-    		//Get possible cell values for current cell
-    		backtrack = false;
-    		int[] possibleCellValues = grid.getPossibleCellValues(xy[0], xy[1]);
-    		
-    		//Iterate possible cell values
-    		for(int index = 0; index < possibleCellValues.length; index++) {
-    			//Catch up to cell value in possibleCellValues array
-    			if(possibleCellValues[index] <= grid.getCellValue(xy[0], xy[1])) {
-    				//Step backwards if end of array is reached
-    				if(index == possibleCellValues.length - 1) {
-    					backtrack = true;
-    					grid.resetCellValue(xy[0], xy[1]);
-    					this.stepBackward();
-    					continue outerloop;
-    				}
+    			if(backtrack) {
+    				//Every value of every cell has been tried
+    				if(!this.stepBackward())
+    					return SolveOutcome.Status.UNSOLVABLE;
 
-					continue;
-    			}
-    			
-    			//If value already exists in row
-    			if(grid.rowContains(this.xy[1], possibleCellValues[index], true) == 1) {
-    				//Step backwards if end of array is reached
-    				if(index == possibleCellValues.length - 1) {
-    					backtrack = true;
-    					grid.resetCellValue(xy[0], xy[1]);
-    					this.stepBackward();
-    					continue outerloop;
-    				}
-    				
-    				grid.setCellValue(this.xy[0], this.xy[1], possibleCellValues[index]);
-    				continue;
-    			}
-    			
-    			//If value already exists in column
-    			if(grid.colContains(this.xy[0], possibleCellValues[index], true) == 1) {
-    				//Step backwards if end of array is reached
-    				if(index == possibleCellValues.length - 1) {
-    					backtrack = true;
-    					grid.resetCellValue(xy[0], xy[1]);
-    					this.stepBackward();
-    					continue outerloop;
-    				}
-    				
-    				grid.setCellValue(this.xy[0], this.xy[1], possibleCellValues[index]);
     				continue;
     			}
-    			
-    			//If value already exists in quadrant
-    			if(grid.quadrantContains(grid.getQuadrantId(this.xy[0], this.xy[1]), possibleCellValues[index], true) == 1) {
-    				//Step backwards if end of array is reached
-    				if(index == possibleCellValues.length - 1) {
-    					backtrack = true;
-    					grid.resetCellValue(xy[0], xy[1]);
-    					this.stepBackward();
-    					continue outerloop;
+
+    			//Last cell reached, nothing left to fill
+    			if(!this.stepForward()) {
+    				if(grid.isSolved()) {
+    					if(this.listener != null)
+    						this.listener.solution(grid);
+
+    					return SolveOutcome.Status.SOLVED;
     				}
-    				
-    				grid.setCellValue(this.xy[0], this.xy[1], possibleCellValues[index]);
-    				continue;
+
+    				backtrack = true;
     			}
-    			
-    			//Set cell value to next possible value
-    			grid.setCellValue(this.xy[0], this.xy[1], possibleCellValues[index]);
-    				
-    			break;
+
+    			continue;
     		}
     		
+    		//Get possible cell values above the current value for current cell
+    		backtrack = false;
+    		int currentValue = grid.getCellValue(this.xy[0], this.xy[1]);
+    		int possible = grid.getPossibleCellMask(this.xy[0], this.xy[1]) & (-1 << currentValue);
+
+    		//Find the next possible cell value that does not conflict with the row, column or quadrant
+    		int occupied = grid.getRowMask(this.xy[1])
+					| grid.getColMask(this.xy[0])
+					| grid.getQuadrantMask(grid.getQuadrantId(this.xy[0], this.xy[1]));
+
+    		int nextValue = 0;
+    		int free = possible & ~occupied;
+    		if(free != 0) {
+    			//Every possible value up to the free one is checked
+    			int bit = Integer.lowestOneBit(free);
+    			this.metrics.candidateChecks += Integer.bitCount(possible & ((bit << 1) - 1));
+    			nextValue = Integer.numberOfTrailingZeros(free) + 1;
+    		} else {
+    			this.metrics.candidateChecks += Integer.bitCount(possible);
+    		}
+
+    		//Step backwards if no possible cell value remains
+    		if(nextValue == 0) {
+    			backtrack = true;
+    			grid.resetCellValue(this.xy[0], this.xy[1]);
+    			this.metrics.backtracks++;
+    			if(this.listener != null)
+    				this.listener.backtrack(this.xy[0], this.xy[1]);
+
+    			//Every value of every cell has been tried
+    			if(!this.stepBackward())
+    				return SolveOutcome.Status.UNSOLVABLE;
+
+    			continue;
+    		}
+
+    		//Set cell value to next possible value
+    		grid.setCellValue(this.xy[0], this.xy[1], nextValue);
+    		this.metrics.decisions++;
+    		if(this.listener != null)
+    			this.listener.decision(this.xy[0], this.xy[1], nextValue);
+
     		//If reached, valid cell value found
     		this.stepForward();
     		
     		//If solution found, return
-    		if(grid.isSolved())
+    		if(grid.isSolved()) {
+    			if(this.listener != null)
+    				this.listener.solution(grid);
+
+    			return SolveOutcome.Status.SOLVED;
+    		}
+    	}
+    }
+
+    /** Count the solutions of a sudoku grid, stopping as soon as a given number
+      * of solutions has been found. The grid is simplified as it would be for
+      * solve(), and then searched most constrained cell first, regardless of
+      * the search order of this solver. Unsolvable grids are detected without
+      * looping, either by a conflict left by simplification or by exhausting
+      * the search.
+      * @param initGrid the sudoku grid to examine
+      * @param limit the number of solutions at which to stop counting
+      * @return the number of solutions found, and the search nodes explored
+      * @throws IllegalArgumentException if the grid has invalid dimensions or
+      * values, contains duplicate values, or the limit is not positive
+      */
+    public SolutionCount countSolutions(int[][] initGrid, long limit) {
+    	return this.countSolutions(initGrid, limit, UNLIMITED);
+    }
+
+    /** Count the solutions of a sudoku grid as countSolutions(int[][], long)
+      * does, stopping early once the node budget or deadline of the given
+      * limits runs out, or their cancellation token is cancelled. An
+      * interrupted count can be continued with checkpoint() and resumeCount().
+      * @param initGrid the sudoku grid to examine
+      * @param limit the number of solutions at which to stop counting
+      * @param limits the bounds on the work the count may do
+      * @return the number of solutions found, the search nodes explored, and
+      * whether a limit interrupted the count
+      * @throws IllegalArgumentException if the grid has invalid dimensions or
+      * values, contains duplicate values, or the limit is not positive
+      */
+    public SolutionCount countSolutions(int[][] initGrid, long limit, SolveLimits limits) {
+    	if(limit < 1)
+    		throw new IllegalArgumentException("limit must be positive");
+
+    	if(limits == null)
+    		throw new IllegalArgumentException("limits is null");
+
+    	this.reset(initGrid);
+    	SudokuGrid grid = this.prepareGrid(initGrid);
+    	this.beginSearch(limits);
+
+    	long start = System.nanoTime();
+    	long count = this.searchMostConstrained(grid, limit);
+    	this.metrics.searchNanos = System.nanoTime() - start;
+    	this.metrics.nodes = this.iterations;
+    	return new SolutionCount(count, limit, this.iterations, this.interruption != null);
+    }
+
+    /** Take a snapshot of the most constrained search of the last solve or
+      * count, at the point where it stopped, with the number of solutions it
+      * found. Writing the snapshot to a file lets an interrupted count be
+      * resumed by resumeCount(), even in another process.
+      * @return the snapshot of the search
+      * @throws IllegalStateException if the last solve did not search most
+      * constrained cell first
+      */
+    public SearchCheckpoint checkpoint() {
+    	if(this.searchSolutions < 0)
+    		throw new IllegalStateException("no search to checkpoint");
+
+    	return this.search.checkpoint(this.searchSolutions, false);
+    }
+
+    /** Continue counting solutions from a snapshot of a search, as if the
+      * count had never stopped. Solutions found before the snapshot count
+      * towards the result and the limit; the limits bound only the work done
+      * by this call, and the metrics cover only this call, while the nodes of
+      * the result include those explored before the snapshot. The search
+      * propagates if the snapshot search did, whatever this solver is set to.
+      * @param checkpoint the snapshot of the search to continue
+      * @param limit the number of solutions at which to stop counting
+      * @param limits the bounds on the work the count may do
+      * @return the number of solutions found in all, the search nodes
+      * explored in all, and whether a limit interrupted the count
+      * @throws IllegalArgumentException if the snapshot cannot be resumed,
+      * or the limit is not positive
+      */
+    public SolutionCount resumeCount(SearchCheckpoint checkpoint, long limit, SolveLimits limits) {
+    	if(checkpoint == null)
+    		throw new IllegalArgumentException("checkpoint is null");
+
+    	if(limit < 1)
+    		throw new IllegalArgumentException("limit must be positive");
+
+    	if(limits == null)
+    		throw new IllegalArgumentException("limits is null");
+
+    	this.reset();
+    	MostConstrainedSearch search = MostConstrainedSearch.resume(checkpoint);
+    	this.search = search;
+    	this.grid = search.getGrid();
+    	this.size = this.grid.getSize();
+    	this.beginSearch(limits);
+
+    	long start = System.nanoTime();
+    	long count = this.runMostConstrained(search, Math.min(checkpoint.getSolutions(), limit), limit);
+    	this.metrics.searchNanos = System.nanoTime() - start;
+    	this.metrics.nodes = this.iterations;
+    	return new SolutionCount(count, limit, search.getNodes(), this.interruption != null);
+    }
+
+    /** Enumerate the solutions of a sudoku grid lazily, one at a time, most
+      * constrained cell first and propagating if this solver propagates. The
+      * grid is copied and simplified as it would be for solve(), and the
+      * enumeration keeps only its own grid and search stack, so it does not
+      * share state with this solver and does not update its metrics.
+      * @param initGrid the sudoku grid to enumerate the solutions of
+      * @return a spliterator over the solutions, which splits its search
+      * frontier for parallel streams
+      * @throws IllegalArgumentException if the grid has invalid dimensions or
+      * values, or contains duplicate values
+      */
+    public SolutionSpliterator solutions(int[][] initGrid) {
+    	return new SolutionSpliterator(new SudokuGrid(initGrid), this.propagating);
+    }
+
+    /** Stream the solutions of a sudoku grid lazily, as enumerated by
+      * solutions(). Limit the stream to take only some of the solutions of
+      * grids with many, and call parallel() to spread the search over the
+      * common pool.
+      * @param initGrid the sudoku grid to enumerate the solutions of
+      * @return a sequential stream of the solutions
+      * @throws IllegalArgumentException if the grid has invalid dimensions or
+      * values, or contains duplicate values
+      */
+    public Stream<int[][]> streamSolutions(int[][] initGrid) {
+    	return StreamSupport.stream(this.solutions(initGrid), false);
+    }
+
+    /** Continue enumerating solutions from a snapshot taken by
+      * SolutionSpliterator.checkpoint(), starting with the first solution
+      * not yet returned when the snapshot was taken.
+      * @param checkpoint the snapshot of the enumeration to continue
+      * @return a spliterator over the remaining solutions
+      * @throws IllegalArgumentException if the snapshot cannot be resumed
+      */
+    public SolutionSpliterator solutions(SearchCheckpoint checkpoint) {
+    	if(checkpoint == null)
+    		throw new IllegalArgumentException("checkpoint is null");
+
+    	return new SolutionSpliterator(checkpoint);
+    }
+
+    /** Search for solutions by always deciding the empty cell with the fewest
+      * remaining candidates next. The search runs in slices between limit
+      * checks; if a limit stops it, the limit is recorded as the interruption.
+      * @param grid the grid to solve
+      * @param limit the number of solutions at which to stop searching
+      * @return the number of solutions found; the first one found becomes the
+      * solved grid
+      */
+    private long searchMostConstrained(SudokuGrid grid, long limit) {
+    	return this.runMostConstrained(this.prepareSearch(grid), 0, limit);
+    }
+
+    /** Search for a solution most constrained cell first, breaking ties and
+      * ordering candidates at random, and starting over whenever a run
+      * reaches the node limit the restart schedule gives it. The generator is
+      * seeded afresh for every solve, so a puzzle always gets the same runs
+      * for the same seed. A run that exhausts the search proves that the
+      * grid has no solution.
+      * @param grid the grid to solve
+      * @return 1 if a solution was found, which becomes the solved grid, or 0
+      * if there is none or a limit stopped the search
+      */
+    private int searchRestarting(SudokuGrid grid) {
+    	MostConstrainedSearch search = this.prepareSearch(grid);
+    	search.setRandom(new SplittableRandom(this.seed));
+    	search.setListener(this.listener);
+    	long base = this.iterations;
+    	for(int run = 0; ; run++) {
+    		long limit = this.restartSchedule.getNodeLimit(run);
+    		MostConstrainedSearch.Status status = MostConstrainedSearch.Status.SUSPENDED;
+    		while(status == MostConstrainedSearch.Status.SUSPENDED && search.getNodes() < limit) {
+    			status = search.run(Math.min(this.nextCheck - this.iterations, limit - search.getNodes()));
+    			this.iterations = base + search.getNodes();
+    			if(status == MostConstrainedSearch.Status.SUSPENDED && this.iterations >= this.nextCheck) {
+    				this.interruption = this.checkLimits();
+    				if(this.interruption != null)
+    					break;
+    			}
+    		}
+
+    		this.metrics.decisions += search.getDecisions();
+    		this.metrics.backtracks += search.getBacktracks();
+    		this.metrics.candidateChecks += search.getCandidateChecks();
+    		if(status == MostConstrainedSearch.Status.SOLUTION) {
+    			this.keepSolution(search.getGrid());
+    			this.searchSolutions = 1;
+    			return 1;
+    		}
+
+    		if(status == MostConstrainedSearch.Status.EXHAUSTED || this.interruption != null) {
+    			this.searchSolutions = 0;
+    			return 0;
+    		}
+
+    		//The run reached its node limit; start over in a new random order
+    		base += search.getNodes();
+    		this.metrics.restarts++;
+    		search.rewind();
+    	}
+    }
+
+    /** Get a most constrained search over the grid, reusing the search of a
+      * previous solve if it fits, started over in a fixed order.
+      * @param grid the grid to search
+      * @return the search
+      */
+    private MostConstrainedSearch prepareSearch(SudokuGrid grid) {
+    	MostConstrainedSearch search = this.search;
+    	if(search != null && search.getGrid() == grid && search.getSize() == grid.getSize()
+    			&& search.isPropagating() == this.propagating) {
+    		search.restart();
+    	} else {
+    		search = new MostConstrainedSearch(grid, this.propagating);
+    		this.search = search;
+    	}
+
+    	search.setRandom(null);
+    	return search;
+    }
+
+    /** Run a most constrained search until it has found a given number of
+      * solutions, or is exhausted or interrupted by a limit. Counters of the
+      * search from before this call are left out of the iterations and the
+      * metrics.
+      * @param search the search to run
+      * @param found the number of solutions found before this call
+      * @param limit the number of solutions at which to stop searching
+      * @return the number of solutions found, including those found before;
+      * the first one found by this call becomes the solved grid
+      */
+    private long runMostConstrained(MostConstrainedSearch search, long found, long limit) {
+    	search.setListener(this.listener);
+    	long base = this.iterations - search.getNodes();
+    	long decisions = search.getDecisions();
+    	long backtracks = search.getBacktracks();
+    	long candidateChecks = search.getCandidateChecks();
+    	long solutions = found;
+    	while(solutions < limit) {
+    		MostConstrainedSearch.Status status = search.run(this.nextCheck - this.iterations);
+    		this.iterations = base + search.getNodes();
+    		if(status == MostConstrainedSearch.Status.SOLUTION) {
+    			if(solutions++ == found)
+    				this.keepSolution(search.getGrid());
+    		} else if(status == MostConstrainedSearch.Status.EXHAUSTED) {
     			break;
+    		} else {
+    			this.interruption = this.checkLimits();
+    			if(this.interruption != null)
+    				break;
+    		}
     	}
 
-    	this.solvedGrid = grid.getGrid();
-    	return this.solvedGrid;
+    	this.searchSolutions = solutions;
+    	this.metrics.decisions += search.getDecisions() - decisions;
+    	this.metrics.backtracks += search.getBacktracks() - backtracks;
+    	this.metrics.candidateChecks += search.getCandidateChecks() - candidateChecks;
+    	return solutions;
     }
     
+    /** Start checking a search against a set of limits.
+      * @param limits the bounds on the work the search may do
+      */
+    private void beginSearch(SolveLimits limits) {
+    	this.limits = limits;
+    	this.interruption = null;
+    	this.nextCheck = this.iterations;
+    }
+
+    /** Check the limits of the current search, and schedule the next check.
+      * Called by the searches whenever the node count reaches the next check.
+      * @return the status the search must stop with, or null to continue
+      */
+    private SolveOutcome.Status checkLimits() {
+    	if(this.iterations >= this.limits.getMaxNodes())
+    		return SolveOutcome.Status.BUDGET_EXCEEDED;
+
+    	if(this.limits.isCancelled())
+    		return SolveOutcome.Status.CANCELLED;
+
+    	if(this.limits.isDeadlinePassed())
+    		return SolveOutcome.Status.BUDGET_EXCEEDED;
+
+    	this.nextCheck = Math.min(this.iterations + CHECK_INTERVAL, this.limits.getMaxNodes());
+    	return null;
+    }
+
+    /** Set the order in which empty cells are visited by subsequent solves.
+      * @param searchOrder the order in which empty cells are visited
+      */
+    public void setSearchOrder(SearchOrder searchOrder) {
+    	if(searchOrder == null)
+    		throw new IllegalArgumentException("search order is null");
+
+    	this.searchOrder = searchOrder;
+    }
+
+    /** Get the order in which empty cells are visited.
+      * @return the order in which empty cells are visited
+      */
+    public SearchOrder getSearchOrder() {
+    	return this.searchOrder;
+    }
+
+    /** Set whether searching most constrained cell first propagates
+      * constraints after every decision. Propagation explores far fewer
+      * nodes, at a higher cost per node. The row-major order never propagates.
+      * @param propagating whether to propagate after every decision
+      */
+    public void setPropagating(boolean propagating) {
+    	this.propagating = propagating;
+    }
+
+    /** Get whether searching most constrained cell first propagates
+      * constraints after every decision.
+      * @return true if the search propagates after every decision
+      */
+    public boolean isPropagating() {
+    	return this.propagating;
+    }
+
+    /** Set whether subsequent solves searching most constrained cell first
+      * restart. A restarting solve breaks ties between cells and orders the
+      * candidates of each cell at random, and gives up on a run and starts
+      * over in a new order whenever the run reaches the node limit of the
+      * schedule. The random order is seeded afresh by every solve, so results
+      * are the same for the same seed. Counting solutions and the row-major
+      * order never restart.
+      * @param schedule the node limits of the runs, or null to search in a
+      * fixed order without restarting
+      * @param seed the seed of the random order
+      */
+    public void setRestarts(RestartSchedule schedule, long seed) {
+    	this.restartSchedule = schedule;
+    	this.seed = seed;
+    }
+
+    /** Get the node limits of the runs of a restarting solve.
+      * @return the restart schedule, or null if solves do not restart
+      */
+    public RestartSchedule getRestartSchedule() {
+    	return this.restartSchedule;
+    }
+
+    /** Get the seed of the random order of a restarting solve.
+      * @return the seed
+      */
+    public long getSeed() {
+    	return this.seed;
+    }
+
     /** Move the grid position handle to the next cell.
+      * @return false if the handle is already at the last cell, true otherwise
       */
-    private void stepForward() {
-    	if(this.xy[0] >= 8 && this.xy[1] >= 8)
-    		return;
+    private boolean stepForward() {
+    	int last = this.size - 1;
+    	if(this.xy[0] >= last && this.xy[1] >= last)
+    		return false;
     	
-    	if(this.xy[0] == 8) {
+    	if(this.xy[0] == last) {
     		this.xy[0] = 0;
     		this.xy[1]++;
     	} else {
     		this.xy[0]++;
     	}
+
+    	return true;
     }
     
     /** Move the grid position handle to the previous cell.
+      * @return false if the handle is already at the first cell, true otherwise
       */
-    private void stepBackward() {
+    private boolean stepBackward() {
     	if(xy[0] <= 0 && xy[1] <= 0)
-    		return;
+    		return false;
     	
     	if(xy[0] == 0) {
-    		xy[0] = 8;
+    		xy[0] = this.size - 1;
     		xy[1]--;
     	} else {
     		xy[0]--;
     	}
+
+    	return true;
     }
     
     /** Get the column position of the grid position handle.
@@ -195,11 +770,35 @@ public class SudokuSolver {
     	return this.xy[1];
     }
     
-    /** Get the number of iterations needed to solve the puzzle.
+    /** Get the number of iterations needed to solve the puzzle. Long searches
+      * are capped at Integer.MAX_VALUE; see getMetrics() for the full count.
       * @return the number of iterations needed to solve the puzzle
       */
     public int getIterations() {
-    	return this.iterations;
+    	return (int) Math.min(this.iterations, Integer.MAX_VALUE);
+    }
+
+    /** Get the counters and phase timings of the last solve. The same object
+      * is cleared and refilled by every solve.
+      * @return the metrics of the last solve
+      */
+    public SolverMetrics getMetrics() {
+    	return this.metrics;
+    }
+
+    /** Set the listener notified of search events by subsequent solves. No
+      * events are delivered while the listener is null.
+      * @param listener the listener, or null for none
+      */
+    public void setListener(SearchListener listener) {
+    	this.listener = listener;
+    }
+
+    /** Get the listener notified of search events.
+      * @return the listener, or null if there is none
+      */
+    public SearchListener getListener() {
+    	return this.listener;
     }
     
     /** Get the solved sudoku grid.
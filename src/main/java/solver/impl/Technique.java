@@ -0,0 +1,63 @@
+package solver.impl;
+
+/**
+ * The solving techniques a DifficultyRater tries, in the order it tries them, which is the order of their cost to a
+ * human solver. Each technique has a weight, which is added to the score of a puzzle every time it is used.
+ *
+ * @see DifficultyRater
+ * */
+public enum Technique {
+	/** A cell with a single candidate. */
+	NAKED_SINGLE(10),
+
+	/** A value with a single place in a row, column or quadrant. */
+	HIDDEN_SINGLE(12),
+
+	/** Two cells of a unit sharing the same two candidates. */
+	NAKED_PAIR(30),
+
+	/** Two values of a unit sharing the same two places. */
+	HIDDEN_PAIR(34),
+
+	/** Three cells of a unit whose candidates hold three values together. */
+	NAKED_TRIPLE(36),
+
+	/** Three values of a unit that have three places together. */
+	HIDDEN_TRIPLE(40),
+
+	/** A value confined to one row or column of a quadrant. */
+	POINTING(42),
+
+	/** A value confined to one quadrant within a row or column. */
+	BOX_LINE_REDUCTION(44),
+
+	/** A value confined to the same two columns in two rows, or the same two rows in two columns. */
+	X_WING(50),
+
+	/** A value confined to the same three columns in three rows, or the same three rows in three columns. */
+	SWORDFISH(60),
+
+	/** A cell with candidates ab seeing cells with candidates ac and bc, one of which must hold c. */
+	XY_WING(64),
+
+	/** A chain of cells holding the only two places of a value in a unit, colored alternately. */
+	SIMPLE_COLORING(70),
+
+	/** Guessing, when every other technique is stuck. */
+	SEARCH(100);
+
+	private final int weight;
+
+	Technique(int weight) {
+		this.weight = weight;
+	}
+
+	/**
+	 * Get the weight added to the score of a puzzle for each use of this technique; for SEARCH, for each search node.
+	 *
+	 * @return the weight of the technique
+	 * */
+	public int getWeight() {
+		return this.weight;
+	}
+}
@@ -0,0 +1,24 @@
+package solver.io;
+
+/**
+ * The ways a binary puzzle file can encode its grids. Cells are numbered left to right, top to bottom, and values are
+ * stored in 4-bit nibbles, high nibble first, with 0 for blank cells.
+ *
+ * @see BinaryPuzzleWriter
+ * @see BinaryPuzzleReader
+ * */
+public enum BinaryEncoding {
+	/**
+	 * Every cell in a nibble: 41 bytes per grid, the last nibble unused. Grids are found by their position, so the file
+	 * has no index. Suits solutions and other full grids.
+	 */
+	PACKED,
+
+	/**
+	 * A bitmap of the 81 cells, 11 bytes with the first cell in the highest bit, followed by the values of the cells
+	 * set in the bitmap in nibbles, padded to a whole byte. A puzzle with c clues takes 11 + ceil(c / 2) bytes, about
+	 * 24 bytes for a typical puzzle. Grids vary in size, so the file ends with an index of the offset of every 1024th
+	 * grid.
+	 */
+	CLUES
+}
@@ -0,0 +1,145 @@
+package solver.io;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of binary puzzle files, shared by the reader and the writer.
+ *
+ * A file starts with a 32 byte header, in big-endian order: the magic bytes "SDKB", a version byte, the grid size (9),
+ * the ordinal of the BinaryEncoding, a reserved byte, the number of grids as a long, the offset of the index as a long
+ * (0 if there is none), and the number of grids per index entry as an int, followed by 4 reserved bytes. The grids
+ * follow the header, then the index, as longs.
+ * */
+final class BinaryFormat {
+
+	static final int MAGIC = ('S' << 24) | ('D' << 16) | ('K' << 8) | 'B';
+	static final byte VERSION = 1;
+	static final int HEADER_SIZE = 32;
+
+	static final int SIZE = 9;
+	static final int CELLS = SIZE * SIZE;
+
+	//Number of grids between consecutive index entries of a CLUES file
+	static final int INDEX_INTERVAL = 1024;
+
+	//Bytes of a PACKED grid, and of the clue bitmap of a CLUES grid
+	static final int PACKED_LENGTH = (CELLS + 1) / 2;
+	static final int BITMAP_LENGTH = (CELLS + 7) / 8;
+
+	//Longest encoding of a grid, a CLUES grid without blank cells
+	static final int MAX_LENGTH = BITMAP_LENGTH + PACKED_LENGTH;
+
+	private BinaryFormat() {
+	}
+
+	/**
+	 * Encode a grid into a buffer.
+	 *
+	 * @param cells the values of the cells, row by row, each from 0 to 9
+	 * @param encoding the encoding to use
+	 * @param out the buffer to write to, with at least MAX_LENGTH bytes remaining
+	 * */
+	static void encode(byte[] cells, BinaryEncoding encoding, ByteBuffer out) {
+		if(encoding == BinaryEncoding.PACKED) {
+			for(int cell = 0; cell < CELLS; cell += 2)
+				out.put((byte) (cells[cell] << 4 | (cell + 1 < CELLS ? cells[cell + 1] : 0)));
+
+			return;
+		}
+
+		for(int base = 0; base < CELLS; base += 8) {
+			int bits = 0;
+			for(int cell = base; cell < base + 8; cell++)
+				bits = bits << 1 | (cell < CELLS && cells[cell] != 0 ? 1 : 0);
+
+			out.put((byte) bits);
+		}
+
+		int pending = -1;
+		for(int cell = 0; cell < CELLS; cell++) {
+			if(cells[cell] == 0)
+				continue;
+
+			if(pending < 0) {
+				pending = cells[cell];
+			} else {
+				out.put((byte) (pending << 4 | cells[cell]));
+				pending = -1;
+			}
+		}
+
+		if(pending >= 0)
+			out.put((byte) (pending << 4));
+	}
+
+	/**
+	 * Decode a grid from a buffer, straight into an array of cells.
+	 *
+	 * @param in the buffer to read from, positioned at the start of the grid
+	 * @param encoding the encoding of the grid
+	 * @param cells receives the values of the cells, row by row
+	 * @return false if a value is out of range
+	 * */
+	static boolean decode(ByteBuffer in, BinaryEncoding encoding, byte[] cells) {
+		int invalid = 0;
+		if(encoding == BinaryEncoding.PACKED) {
+			for(int cell = 0; cell < CELLS; cell += 2) {
+				int pair = in.get() & 0xFF;
+				cells[cell] = (byte) (pair >>> 4);
+				invalid |= SIZE - (pair >>> 4);
+				if(cell + 1 < CELLS) {
+					cells[cell + 1] = (byte) (pair & 0xF);
+					invalid |= SIZE - (pair & 0xF);
+				}
+			}
+
+			return invalid >= 0;
+		}
+
+		int bitmapStart = in.position();
+		int digits = bitmapStart + BITMAP_LENGTH;
+		boolean high = true;
+		for(int cell = 0; cell < CELLS; cell++) {
+			if((in.get(bitmapStart + (cell >>> 3)) & (0x80 >>> (cell & 7))) == 0) {
+				cells[cell] = 0;
+				continue;
+			}
+
+			int pair = in.get(digits) & 0xFF;
+			int value = high ? pair >>> 4 : pair & 0xF;
+			if(!high)
+				digits++;
+
+			high = !high;
+			cells[cell] = (byte) value;
+			invalid |= (value - 1) | (SIZE - value);
+		}
+
+		in.position(high ? digits : digits + 1);
+		return invalid >= 0;
+	}
+
+	/**
+	 * Compute the length of the grid at the current position of a buffer, without moving it.
+	 *
+	 * @param in the buffer, positioned at the start of a grid with at least BITMAP_LENGTH bytes remaining
+	 * @param encoding the encoding of the grid
+	 * @return the number of bytes of the grid
+	 * */
+	static int length(ByteBuffer in, BinaryEncoding encoding) {
+		if(encoding == BinaryEncoding.PACKED)
+			return PACKED_LENGTH;
+
+		//Bits past the last cell are padding
+		int clues = 0;
+		for(int index = 0; index < BITMAP_LENGTH; index++) {
+			int bits = in.get(in.position() + index) & 0xFF;
+			if(index == BITMAP_LENGTH - 1)
+				bits &= 0xFF << (BITMAP_LENGTH * 8 - CELLS);
+
+			clues += Integer.bitCount(bits);
+		}
+
+		return BITMAP_LENGTH + (clues + 1) / 2;
+	}
+}
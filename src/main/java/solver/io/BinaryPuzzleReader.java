@@ -0,0 +1,223 @@
+package solver.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads grids from a binary puzzle file written by BinaryPuzzleWriter.
+ *
+ * The file is memory-mapped in fixed-size windows, so files larger than 2GB can be read, and grids are decoded from
+ * the mapping straight into a caller-supplied array. The flat array of cells read by next(byte[]) is the form in which
+ * a SudokuGrid keeps its values, and can be handed to Solver.solve(byte[], byte[]) or SudokuGrid.reset(byte[]) without
+ * building a two-dimensional grid. No objects are created per grid.
+ *
+ * Grids are read in order, starting from any grid chosen with seek(). Seeking a PACKED file computes the offset of
+ * the grid; seeking a CLUES file looks up the index and skips at most 1023 grids.
+ * */
+public class BinaryPuzzleReader implements Closeable {
+
+	//Size of the memory-mapped window into the file
+	private static final long WINDOW_SIZE = 1L << 28;
+
+	private final FileChannel channel;
+	private final BinaryEncoding encoding;
+	private final long count;
+	private final long indexOffset;
+	private final int indexInterval;
+
+	//End of the grids in the file, where the index starts
+	private final long end;
+
+	private final byte[] cells = new byte[BinaryFormat.CELLS];
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long next;
+
+	/**
+	 * Open a binary puzzle file for reading.
+	 *
+	 * @param path the file to read
+	 * @throws IOException if the file cannot be opened or mapped
+	 * @throws IllegalArgumentException if the file is not a binary puzzle file this reader supports
+	 * */
+	public BinaryPuzzleReader(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE);
+			while(header.hasRemaining() && this.channel.read(header, header.position()) >= 0)
+				continue;
+
+			header.flip();
+			if(header.remaining() < BinaryFormat.HEADER_SIZE || header.getInt() != BinaryFormat.MAGIC)
+				throw new IllegalArgumentException("not a binary puzzle file");
+
+			byte version = header.get();
+			if(version != BinaryFormat.VERSION)
+				throw new IllegalArgumentException("unsupported binary puzzle file version: " + version);
+
+			if(header.get() != BinaryFormat.SIZE)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+			int encoding = header.get();
+			if(encoding < 0 || encoding >= BinaryEncoding.values().length)
+				throw new IllegalArgumentException("unknown encoding: " + encoding);
+
+			header.get();
+			this.encoding = BinaryEncoding.values()[encoding];
+			this.count = header.getLong();
+			this.indexOffset = header.getLong();
+			this.indexInterval = header.getInt();
+			this.end = this.indexOffset != 0 ? this.indexOffset : this.channel.size();
+			if(this.count < 0 || this.end > this.channel.size()
+					|| (this.encoding == BinaryEncoding.CLUES && (this.indexOffset == 0 || this.indexInterval < 1)))
+				throw new IllegalArgumentException("corrupt binary puzzle file header");
+
+			this.map(BinaryFormat.HEADER_SIZE);
+		} catch(IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the encoding of the grids of the file.
+	 *
+	 * @return the encoding of the file
+	 * */
+	public BinaryEncoding getEncoding() {
+		return this.encoding;
+	}
+
+	/**
+	 * Get the number of grids in the file.
+	 *
+	 * @return the number of grids
+	 * */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Get the number of the grid the next read returns.
+	 *
+	 * @return the number of the next grid, starting at 0
+	 * */
+	public long getPosition() {
+		return this.next;
+	}
+
+	/**
+	 * Position the reader on a grid, so that the next read returns it.
+	 *
+	 * @param grid the number of the grid, starting at 0; the number of grids positions the reader at the end
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the grid number is out of range
+	 * */
+	public void seek(long grid) throws IOException {
+		if(grid < 0 || grid > this.count)
+			throw new IllegalArgumentException("grid number out of range: " + grid);
+
+		if(this.encoding == BinaryEncoding.PACKED || grid == this.count) {
+			this.map(Math.min(this.end, BinaryFormat.HEADER_SIZE + grid * BinaryFormat.PACKED_LENGTH));
+			this.next = grid;
+			return;
+		}
+
+		long entry = grid / this.indexInterval;
+		ByteBuffer index = ByteBuffer.allocate(Long.BYTES);
+		long position = this.indexOffset + entry * Long.BYTES;
+		while(index.hasRemaining() && this.channel.read(index, position + index.position()) >= 0)
+			continue;
+
+		index.flip();
+		long offset = index.remaining() == Long.BYTES ? index.getLong() : -1;
+		if(offset < BinaryFormat.HEADER_SIZE || offset > this.end)
+			throw new IllegalArgumentException("corrupt binary puzzle file index");
+
+		this.map(offset);
+		this.next = entry * this.indexInterval;
+		while(this.next < grid) {
+			this.ensure();
+			this.window.position(this.window.position() + BinaryFormat.length(this.window, this.encoding));
+			this.next++;
+		}
+	}
+
+	/**
+	 * Read the next grid into a flat array of cells.
+	 *
+	 * @param cells an array of 81 elements that receives the cells, row by row, with 0 for blank cells
+	 * @return true if a grid was read, false if the end of the file was reached
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the array does not have 81 elements, or the grid is corrupt
+	 * */
+	public boolean next(byte[] cells) throws IOException {
+		if(cells == null || cells.length != BinaryFormat.CELLS)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		if(this.next >= this.count)
+			return false;
+
+		this.ensure();
+		if(!BinaryFormat.decode(this.window, this.encoding, cells))
+			throw new IllegalArgumentException("corrupt grid " + this.next);
+
+		this.next++;
+		return true;
+	}
+
+	/**
+	 * Read the next grid into a two-dimensional grid.
+	 *
+	 * @param grid a 9x9 array that receives the grid, with 0 for blank cells
+	 * @return true if a grid was read, false if the end of the file was reached
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the grid is not 9x9, or the grid read is corrupt
+	 * */
+	public boolean next(int[][] grid) throws IOException {
+		if(grid == null || grid.length != BinaryFormat.SIZE)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		for(int[] row : grid) {
+			if(row == null || row.length != BinaryFormat.SIZE)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+		}
+
+		if(!this.next(this.cells))
+			return false;
+
+		for(int cell = 0; cell < BinaryFormat.CELLS; cell++)
+			grid[cell / BinaryFormat.SIZE][cell % BinaryFormat.SIZE] = this.cells[cell];
+
+		return true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	/**
+	 * Make sure the window holds the whole of the next grid, moving it forward if the grid crosses its end.
+	 * */
+	private void ensure() throws IOException {
+		long position = this.windowStart + this.window.position();
+		if(this.window.remaining() < Math.min(BinaryFormat.MAX_LENGTH, this.end - position))
+			this.map(position);
+
+		if(this.window.remaining() < BinaryFormat.BITMAP_LENGTH
+				|| this.window.remaining() < BinaryFormat.length(this.window, this.encoding))
+			throw new IllegalArgumentException("truncated binary puzzle file");
+	}
+
+	private void map(long position) throws IOException {
+		this.windowStart = position;
+		this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position,
+				Math.min(WINDOW_SIZE, this.end - position));
+	}
+}
@@ -0,0 +1,188 @@
+package solver.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writes 9x9 grids to a binary puzzle file, in one of the BinaryEncoding formats. Grids are encoded into an internal
+ * buffer, so no objects are created per grid. The header, with the number of grids, and the index are written when
+ * the writer is closed; a file that was not closed cannot be read.
+ *
+ * @see BinaryPuzzleReader
+ * */
+public class BinaryPuzzleWriter implements Closeable, Flushable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final BinaryEncoding encoding;
+	private final ByteBuffer buffer;
+	private final byte[] cells = new byte[BinaryFormat.CELLS];
+	private long[] index = new long[16];
+	private long count;
+	private long offset;
+	private boolean closed;
+
+	/**
+	 * Create a writer that writes to a file, replacing it if it exists.
+	 *
+	 * @param path the file to write
+	 * @param encoding the encoding of the grids
+	 * @throws IOException if the file cannot be created
+	 * */
+	public BinaryPuzzleWriter(Path path, BinaryEncoding encoding) throws IOException {
+		if(encoding == null)
+			throw new IllegalArgumentException("encoding is null");
+
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		this.encoding = encoding;
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		this.offset = BinaryFormat.HEADER_SIZE;
+		this.channel.position(BinaryFormat.HEADER_SIZE);
+	}
+
+	/**
+	 * Write a grid.
+	 *
+	 * @param grid a 9x9 array, with 0 for blank cells
+	 * @throws IOException if the grid cannot be written
+	 * @throws IllegalArgumentException if the grid is not 9x9 or contains invalid values
+	 * */
+	public void write(int[][] grid) throws IOException {
+		if(grid == null || grid.length != BinaryFormat.SIZE)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		for(int row = 0; row < BinaryFormat.SIZE; row++) {
+			if(grid[row] == null || grid[row].length != BinaryFormat.SIZE)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+			for(int col = 0; col < BinaryFormat.SIZE; col++) {
+				int value = grid[row][col];
+				if(value < 0 || value > BinaryFormat.SIZE)
+					throw new IllegalArgumentException("provided grid has invalid cell; value: " + value);
+
+				this.cells[row * BinaryFormat.SIZE + col] = (byte) value;
+			}
+		}
+
+		this.append(this.cells);
+	}
+
+	/**
+	 * Write a grid given as a flat array of cells, as held by a SudokuGrid or solved by Solver.solve(byte[], byte[]).
+	 *
+	 * @param cells the 81 cells of the grid, row by row, with 0 for blank cells
+	 * @throws IOException if the grid cannot be written
+	 * @throws IllegalArgumentException if the array does not hold 81 cells or contains invalid values
+	 * */
+	public void write(byte[] cells) throws IOException {
+		if(cells == null || cells.length != BinaryFormat.CELLS)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		for(byte value : cells) {
+			if(value < 0 || value > BinaryFormat.SIZE)
+				throw new IllegalArgumentException("provided grid has invalid cell; value: " + value);
+		}
+
+		this.append(cells);
+	}
+
+	/**
+	 * Write a grid of blank cells, marking a puzzle for which there is no solution.
+	 *
+	 * @throws IOException if the grid cannot be written
+	 * */
+	public void writeBlank() throws IOException {
+		Arrays.fill(this.cells, (byte) 0);
+		this.append(this.cells);
+	}
+
+	/**
+	 * Get the number of grids written so far.
+	 *
+	 * @return the number of grids written
+	 * */
+	public long getCount() {
+		return this.count;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		this.buffer.flip();
+		while(this.buffer.hasRemaining())
+			this.channel.write(this.buffer);
+
+		this.buffer.clear();
+	}
+
+	/**
+	 * Write the remaining grids, the index and the header, and close the file. Closing a closed writer has no effect.
+	 *
+	 * @throws IOException if the file cannot be written
+	 * */
+	@Override
+	public void close() throws IOException {
+		if(this.closed)
+			return;
+
+		this.closed = true;
+		try {
+			long indexOffset = 0;
+			if(this.encoding == BinaryEncoding.CLUES) {
+				indexOffset = this.offset;
+				long entries = (this.count + BinaryFormat.INDEX_INTERVAL - 1) / BinaryFormat.INDEX_INTERVAL;
+				for(int entry = 0; entry < entries; entry++) {
+					if(this.buffer.remaining() < Long.BYTES)
+						this.flush();
+
+					this.buffer.putLong(this.index[entry]);
+				}
+			}
+
+			this.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(BinaryFormat.HEADER_SIZE);
+			header.putInt(BinaryFormat.MAGIC);
+			header.put(BinaryFormat.VERSION);
+			header.put((byte) BinaryFormat.SIZE);
+			header.put((byte) this.encoding.ordinal());
+			header.put((byte) 0);
+			header.putLong(this.count);
+			header.putLong(indexOffset);
+			header.putInt(BinaryFormat.INDEX_INTERVAL);
+			header.putInt(0);
+			header.flip();
+
+			long position = 0;
+			while(header.hasRemaining())
+				position += this.channel.write(header, position);
+		} finally {
+			this.channel.close();
+		}
+	}
+
+	private void append(byte[] cells) throws IOException {
+		if(this.buffer.remaining() < BinaryFormat.MAX_LENGTH)
+			this.flush();
+
+		if(this.encoding == BinaryEncoding.CLUES && this.count % BinaryFormat.INDEX_INTERVAL == 0) {
+			int entry = (int) (this.count / BinaryFormat.INDEX_INTERVAL);
+			if(entry == this.index.length)
+				this.index = Arrays.copyOf(this.index, entry * 2);
+
+			this.index[entry] = this.offset;
+		}
+
+		int start = this.buffer.position();
+		BinaryFormat.encode(cells, this.encoding, this.buffer);
+		this.offset += this.buffer.position() - start;
+		this.count++;
+	}
+}
@@ -0,0 +1,118 @@
+package solver.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads puzzles from a file in the one-line 81 character format, as described by TextFormat.
+ *
+ * The file is memory-mapped in fixed-size windows, so files larger than 2GB can be read, and puzzles are parsed
+ * straight into a caller-supplied grid. No objects are created per puzzle.
+ * */
+public class PuzzleReader implements Closeable {
+
+	//Size of the memory-mapped window into the file
+	private static final long WINDOW_SIZE = 1L << 28;
+
+	private final FileChannel channel;
+	private final long size;
+	private final byte[] buffer;
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long line;
+
+	/**
+	 * Open a puzzle file for reading.
+	 *
+	 * @param path the file to read
+	 * @throws IOException if the file cannot be opened or mapped
+	 * */
+	public PuzzleReader(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			this.size = this.channel.size();
+			this.buffer = new byte[TextFormat.CELLS + 1];
+			this.line = 1;
+			this.map(0);
+		} catch(IOException | RuntimeException e) {
+			this.channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Read the next puzzle into a grid.
+	 *
+	 * @param grid a 9x9 array that receives the puzzle, with 0 for blank cells
+	 * @return true if a puzzle was read, false if the end of the file was reached
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if the grid is not 9x9, or the next line is not a valid puzzle
+	 * */
+	public boolean next(int[][] grid) throws IOException {
+		if(grid == null || grid.length != 9)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		for(int[] row : grid) {
+			if(row == null || row.length != 9)
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+		}
+
+		while(true) {
+			int character = this.read();
+			if(character < 0)
+				return false;
+
+			//Only the start of a line is kept; anything past the cells is ignored
+			int length = 0;
+			while(character >= 0 && character != '\n') {
+				if(length < this.buffer.length)
+					this.buffer[length++] = (byte) character;
+
+				character = this.read();
+			}
+
+			long number = this.line;
+			if(character == '\n')
+				this.line++;
+
+			if(TextFormat.parseLine(this.buffer, 0, length, grid, number))
+				return true;
+		}
+	}
+
+	/**
+	 * Get the number of the line the reader is positioned on.
+	 *
+	 * @return the current line number, starting at 1
+	 * */
+	public long getLineNumber() {
+		return this.line;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+
+	private int read() throws IOException {
+		if(!this.window.hasRemaining()) {
+			long next = this.windowStart + this.window.limit();
+			if(next >= this.size)
+				return -1;
+
+			this.map(next);
+		}
+
+		return this.window.get() & 0xFF;
+	}
+
+	private void map(long position) throws IOException {
+		this.windowStart = position;
+		this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position,
+				Math.min(WINDOW_SIZE, this.size - position));
+	}
+}
@@ -0,0 +1,170 @@
+package solver.io;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes grids in the one-line 81 character format, one grid per line, with '.' for blank cells. Output is encoded
+ * into an internal buffer, so no objects are created per grid.
+ * */
+public class PuzzleWriter implements Closeable, Flushable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+	private static final int LINE_LENGTH = 82;
+
+	private final OutputStream out;
+	private final byte[] buffer;
+	private int position;
+
+	/**
+	 * Create a writer that writes to a stream.
+	 *
+	 * @param out the stream to write to
+	 * */
+	public PuzzleWriter(OutputStream out) {
+		if(out == null)
+			throw new IllegalArgumentException("output stream is null");
+
+		this.out = out;
+		this.buffer = new byte[BUFFER_SIZE];
+	}
+
+	/**
+	 * Create a writer that writes to a file, replacing it if it exists.
+	 *
+	 * @param path the file to write
+	 * @throws IOException if the file cannot be created
+	 * */
+	public PuzzleWriter(Path path) throws IOException {
+		this(Files.newOutputStream(path));
+	}
+
+	/**
+	 * Write a grid as a single line.
+	 *
+	 * @param grid a 9x9 array, with 0 for blank cells
+	 * @throws IOException if the grid cannot be written
+	 * @throws IllegalArgumentException if the grid is not 9x9 or contains invalid values
+	 * */
+	public void write(int[][] grid) throws IOException {
+		this.write(grid, null);
+	}
+
+	/**
+	 * Write a grid as a single line, followed by a space and a note. Readers ignore anything after the 81 cells of a
+	 * line, so the output can still be read as a puzzle file.
+	 *
+	 * @param grid a 9x9 array, with 0 for blank cells
+	 * @param note printable ASCII text to append to the line, or null for none
+	 * @throws IOException if the grid cannot be written
+	 * @throws IllegalArgumentException if the grid is not 9x9 or contains invalid values, or the note is too long or
+	 * is not printable ASCII
+	 * */
+	public void write(int[][] grid, CharSequence note) throws IOException {
+		if(grid == null || grid.length != 9)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		int noteLength = note == null ? 0 : note.length() + 1;
+		if(noteLength > BUFFER_SIZE - LINE_LENGTH)
+			throw new IllegalArgumentException("note is too long");
+
+		this.ensureCapacity(LINE_LENGTH + noteLength);
+		int start = this.position;
+		for(int[] row : grid) {
+			if(row == null || row.length != 9) {
+				this.position = start;
+				throw new IllegalArgumentException("provided grid has invalid dimensions");
+			}
+
+			for(int value : row) {
+				if(value < 0 || value > 9) {
+					this.position = start;
+					throw new IllegalArgumentException("provided grid has invalid cell; value: " + value);
+				}
+
+				this.buffer[this.position++] = (byte) (value == 0 ? '.' : '0' + value);
+			}
+		}
+
+		if(note != null) {
+			this.buffer[this.position++] = ' ';
+			for(int index = 0; index < note.length(); index++) {
+				char character = note.charAt(index);
+				if(character < ' ' || character > '~') {
+					this.position = start;
+					throw new IllegalArgumentException("note is not printable ASCII");
+				}
+
+				this.buffer[this.position++] = (byte) character;
+			}
+		}
+
+		this.buffer[this.position++] = '\n';
+	}
+
+	/**
+	 * Write a grid given as a flat array of cells as a single line.
+	 *
+	 * @param cells the 81 cells of the grid, row by row, with 0 for blank cells
+	 * @throws IOException if the grid cannot be written
+	 * @throws IllegalArgumentException if the array does not hold 81 cells or contains invalid values
+	 * */
+	public void write(byte[] cells) throws IOException {
+		if(cells == null || cells.length != 81)
+			throw new IllegalArgumentException("provided grid has invalid dimensions");
+
+		this.ensureCapacity(LINE_LENGTH);
+		int start = this.position;
+		for(byte value : cells) {
+			if(value < 0 || value > 9) {
+				this.position = start;
+				throw new IllegalArgumentException("provided grid has invalid cell; value: " + value);
+			}
+
+			this.buffer[this.position++] = (byte) (value == 0 ? '.' : '0' + value);
+		}
+
+		this.buffer[this.position++] = '\n';
+	}
+
+	/**
+	 * Write a line of 81 blank cells, marking a puzzle for which there is no solution.
+	 *
+	 * @throws IOException if the line cannot be written
+	 * */
+	public void writeBlank() throws IOException {
+		this.ensureCapacity(LINE_LENGTH);
+		for(int cell = 0; cell < 81; cell++)
+			this.buffer[this.position++] = '.';
+
+		this.buffer[this.position++] = '\n';
+	}
+
+	@Override
+	public void flush() throws IOException {
+		this.out.write(this.buffer, 0, this.position);
+		this.position = 0;
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.flush();
+		} finally {
+			this.out.close();
+		}
+	}
+
+	private void ensureCapacity(int length) throws IOException {
+		if(this.position + length <= this.buffer.length)
+			return;
+
+		this.out.write(this.buffer, 0, this.position);
+		this.position = 0;
+	}
+}
@@ -0,0 +1,52 @@
+package solver.io;
+
+/**
+ * Rules of the one-line 81 character puzzle format, shared by PuzzleReader and the solve server. Each puzzle is a line
+ * of 81 cells, left to right and top to bottom, where blank cells are written as '0' or '.'. Anything following the
+ * 81 cells on a line is ignored, as are empty lines and lines starting with '#'. A line may end with "\r\n".
+ * */
+public final class TextFormat {
+
+	//Number of bytes of a line that are parsed; anything past the cells is ignored
+	static final int CELLS = 81;
+
+	private TextFormat() {
+	}
+
+	/**
+	 * Parse one line of a puzzle file.
+	 *
+	 * @param buffer the bytes holding the line
+	 * @param from the index of the first byte of the line
+	 * @param to the index past the last byte of the line, not counting its '\n'
+	 * @param grid a 9x9 array that receives the puzzle, with 0 for blank cells
+	 * @param line the number of the line, reported if it is not a valid puzzle
+	 * @return true if a puzzle was read, false if the line is empty or a comment
+	 * @throws IllegalArgumentException if the line is not a valid puzzle
+	 * */
+	public static boolean parseLine(byte[] buffer, int from, int to, int[][] grid, long line) {
+		if(to > from && buffer[to - 1] == '\r')
+			to--;
+
+		if(to == from || buffer[from] == '#')
+			return false;
+
+		if(to - from < CELLS)
+			throw new IllegalArgumentException("malformed puzzle on line " + line);
+
+		for(int cell = 0; cell < CELLS; cell++) {
+			byte character = buffer[from + cell];
+			int value;
+			if(character == '.' || character == '0')
+				value = 0;
+			else if(character >= '1' && character <= '9')
+				value = character - '0';
+			else
+				throw new IllegalArgumentException("malformed puzzle on line " + line);
+
+			grid[cell / 9][cell % 9] = value;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,105 @@
+package solver.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies, in buckets whose bounds double from one microsecond up: bucket 0 counts latencies of up to
+ * 1us, bucket k latencies above 2^(k-1)us and up to 2^k us. Percentiles are reported as the upper bound of the bucket
+ * they fall in, so they are accurate to within a factor of two.
+ *
+ * Recording is lock free and safe from any thread.
+ * */
+public class LatencyHistogram {
+
+	//Enough buckets for latencies of almost a week
+	private static final int BUCKETS = 40;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * Record a latency.
+	 *
+	 * @param nanos the latency, in nanoseconds
+	 * */
+	public void record(long nanos) {
+		long micros = (Math.max(nanos, 0) + 999) / 1000;
+		int bucket = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+		this.counts.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+	}
+
+	/**
+	 * Get the number of latencies recorded.
+	 *
+	 * @return the number of latencies recorded
+	 * */
+	public long getCount() {
+		long count = 0;
+		for(int bucket = 0; bucket < BUCKETS; bucket++)
+			count += this.counts.get(bucket);
+
+		return count;
+	}
+
+	/**
+	 * Get the latency below which a given fraction of the recorded latencies fall.
+	 *
+	 * @param percentile the fraction of latencies, from 0 to 100
+	 * @param unit the unit of the result
+	 * @return the upper bound of the bucket holding the percentile, or 0 if nothing was recorded
+	 * */
+	public long getPercentile(double percentile, TimeUnit unit) {
+		if(percentile < 0 || percentile > 100)
+			throw new IllegalArgumentException("percentile out of range: " + percentile);
+
+		if(unit == null)
+			throw new IllegalArgumentException("time unit is null");
+
+		long[] snapshot = new long[BUCKETS];
+		long count = 0;
+		for(int bucket = 0; bucket < BUCKETS; bucket++) {
+			snapshot[bucket] = this.counts.get(bucket);
+			count += snapshot[bucket];
+		}
+
+		if(count == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		int bucket = 0;
+		while(bucket < BUCKETS - 1 && (seen += snapshot[bucket]) < rank)
+			bucket++;
+
+		return unit.convert(1L << bucket, TimeUnit.MICROSECONDS);
+	}
+
+	/**
+	 * Forget every recorded latency.
+	 * */
+	public void clear() {
+		for(int bucket = 0; bucket < BUCKETS; bucket++)
+			this.counts.set(bucket, 0);
+	}
+
+	/**
+	 * Describe the histogram: the count and main percentiles, then one line per non-empty bucket giving its upper bound
+	 * in microseconds and its count.
+	 * */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("count=").append(this.getCount())
+				.append(" p50=").append(this.getPercentile(50, TimeUnit.MICROSECONDS)).append("us")
+				.append(" p99=").append(this.getPercentile(99, TimeUnit.MICROSECONDS)).append("us")
+				.append(" p999=").append(this.getPercentile(99.9, TimeUnit.MICROSECONDS)).append("us\n");
+
+		for(int bucket = 0; bucket < BUCKETS; bucket++) {
+			long count = this.counts.get(bucket);
+			if(count > 0)
+				builder.append("<=").append(1L << bucket).append("us ").append(count).append('\n');
+		}
+
+		return builder.toString();
+	}
+}
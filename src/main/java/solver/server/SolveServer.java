@@ -0,0 +1,493 @@
+package solver.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import solver.Solver;
+import solver.impl.BatchSolver;
+import solver.impl.SudokuSolver;
+import solver.io.PuzzleWriter;
+import solver.io.TextFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A local HTTP server that solves puzzles, built on the HTTP server of the JDK.
+ *
+ * <pre>
+ * POST /solve
+ *     The body holds one or more puzzles in the one-line 81 character format, one per line. The response holds one
+ *     line per puzzle, in order: its solution, or a line of blank cells if it has none.
+ *
+ * GET /stats
+ *     The number of requests, puzzles, batches and rejected requests, and the latency histogram of solve requests.
+ * </pre>
+ *
+ * Puzzles of concurrent requests are grouped into micro-batches: once a request arrives, the server waits for up to
+ * the batch delay for more, until the batch holds the maximum number of puzzles, and then solves the batch on a
+ * BatchSolver with a fixed number of workers. Each worker reuses one solver for every puzzle it handles. The number of
+ * puzzles admitted but not yet answered is bounded; a request that would exceed the bound is turned away with 503
+ * Service Unavailable, and should be retried later.
+ *
+ * Settings take effect when the server is started.
+ * */
+public class SolveServer implements Closeable {
+
+	//Number of threads handling requests per worker; requests wait on their batch, so there are more than workers
+	private static final int HANDLERS_PER_WORKER = 8;
+
+	//Largest request body accepted, in bytes
+	private static final int MAX_BODY_SIZE = 1 << 26;
+
+	private final InetSocketAddress address;
+	private final int workers;
+	private final Supplier<? extends Solver> solverFactory;
+	private int maxBatchSize = 256;
+	private long batchDelay = TimeUnit.MILLISECONDS.toNanos(1);
+	private int maxPendingPuzzles = 4096;
+
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong answeredPuzzles = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+
+	private final LinkedBlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+	private Semaphore pending;
+	private HttpServer server;
+	private ExecutorService handlers;
+	private ForkJoinPool pool;
+	private BatchSolver batchSolver;
+	private Thread dispatcher;
+	private volatile boolean running;
+
+	/**
+	 * Constructs a server solving with a most-constrained-first SudokuSolver per worker.
+	 *
+	 * @param address the address to listen on; a port of 0 picks a free port
+	 * @param workers the number of threads solving puzzles
+	 * */
+	public SolveServer(InetSocketAddress address, int workers) {
+		this(address, workers, () -> new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED));
+	}
+
+	/**
+	 * Constructs a server.
+	 *
+	 * @param address the address to listen on; a port of 0 picks a free port
+	 * @param workers the number of threads solving puzzles
+	 * @param solverFactory creates the solver used by each worker
+	 * */
+	public SolveServer(InetSocketAddress address, int workers, Supplier<? extends Solver> solverFactory) {
+		if(address == null)
+			throw new IllegalArgumentException("address is null");
+
+		if(workers < 1)
+			throw new IllegalArgumentException("worker count must be positive");
+
+		if(solverFactory == null)
+			throw new IllegalArgumentException("solver factory is null");
+
+		this.address = address;
+		this.workers = workers;
+		this.solverFactory = solverFactory;
+	}
+
+	/**
+	 * Set the number of puzzles at which a batch is solved without waiting for more requests. A single request larger
+	 * than this is still solved as one batch.
+	 *
+	 * @param maxBatchSize the number of puzzles of a full batch
+	 * */
+	public void setMaxBatchSize(int maxBatchSize) {
+		if(maxBatchSize < 1)
+			throw new IllegalArgumentException("batch size must be positive");
+
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Set how long a batch waits for more requests after its first one arrived.
+	 *
+	 * @param delay the time to wait, 0 to solve every batch as soon as it is taken
+	 * @param unit the unit of the delay
+	 * */
+	public void setBatchDelay(long delay, TimeUnit unit) {
+		if(unit == null)
+			throw new IllegalArgumentException("time unit is null");
+
+		if(delay < 0)
+			throw new IllegalArgumentException("batch delay must not be negative");
+
+		this.batchDelay = unit.toNanos(delay);
+	}
+
+	/**
+	 * Set the number of puzzles that may be admitted but not yet answered. Requests beyond it are rejected with 503,
+	 * and a request with more puzzles than this is rejected with 413.
+	 *
+	 * @param maxPendingPuzzles the number of puzzles that may be pending
+	 * */
+	public void setMaxPendingPuzzles(int maxPendingPuzzles) {
+		if(maxPendingPuzzles < 1)
+			throw new IllegalArgumentException("pending puzzle count must be positive");
+
+		this.maxPendingPuzzles = maxPendingPuzzles;
+	}
+
+	/**
+	 * Start listening and solving.
+	 *
+	 * @throws IOException if the server cannot listen on its address
+	 * @throws IllegalStateException if the server was already started
+	 * */
+	public synchronized void start() throws IOException {
+		if(this.server != null)
+			throw new IllegalStateException("server already started");
+
+		this.server = HttpServer.create(this.address, 0);
+		this.pending = new Semaphore(this.maxPendingPuzzles);
+		this.pool = new ForkJoinPool(this.workers);
+		this.batchSolver = new BatchSolver(this.pool, this.solverFactory);
+		this.handlers = Executors.newFixedThreadPool(this.workers * HANDLERS_PER_WORKER);
+		this.server.setExecutor(this.handlers);
+		this.server.createContext("/solve", this::handleSolve);
+		this.server.createContext("/stats", this::handleStats);
+
+		this.running = true;
+		this.dispatcher = new Thread(this::dispatch, "solve-server-dispatcher");
+		this.dispatcher.setDaemon(true);
+		this.dispatcher.start();
+		this.server.start();
+	}
+
+	/**
+	 * Get the address the server listens on, with the port picked if it was started on port 0.
+	 *
+	 * @return the address of the server
+	 * @throws IllegalStateException if the server was not started
+	 * */
+	public synchronized InetSocketAddress getAddress() {
+		if(this.server == null)
+			throw new IllegalStateException("server not started");
+
+		return this.server.getAddress();
+	}
+
+	/**
+	 * Get the histogram of the latencies of answered solve requests, from arrival to response.
+	 *
+	 * @return the latency histogram
+	 * */
+	public LatencyHistogram getLatencies() {
+		return this.latencies;
+	}
+
+	/**
+	 * Get the number of solve requests answered with solutions.
+	 *
+	 * @return the number of requests answered
+	 * */
+	public long getRequestCount() {
+		return this.requests.get();
+	}
+
+	/**
+	 * Get the number of batches solved.
+	 *
+	 * @return the number of batches solved
+	 * */
+	public long getBatchCount() {
+		return this.batches.get();
+	}
+
+	/**
+	 * Get the number of solve requests rejected because too many puzzles were pending.
+	 *
+	 * @return the number of requests rejected with 503
+	 * */
+	public long getRejectedCount() {
+		return this.rejected.get();
+	}
+
+	/**
+	 * Get the number of puzzles admitted but not yet answered.
+	 *
+	 * @return the number of pending puzzles
+	 * */
+	public int getPendingPuzzles() {
+		Semaphore pending = this.pending;
+		return pending == null ? 0 : this.maxPendingPuzzles - pending.availablePermits();
+	}
+
+	/**
+	 * Stop the server. Requests still waiting for their batch are answered with 503.
+	 * */
+	@Override
+	public synchronized void close() {
+		if(this.server == null || !this.running)
+			return;
+
+		this.running = false;
+		this.server.stop(0);
+		this.dispatcher.interrupt();
+		try {
+			this.dispatcher.join();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		for(Job job = this.queue.poll(); job != null; job = this.queue.poll())
+			job.done.countDown();
+
+		this.handlers.shutdown();
+		this.pool.shutdown();
+	}
+
+	private void handleSolve(HttpExchange exchange) throws IOException {
+		long start = System.nanoTime();
+		try {
+			if(!"POST".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, "method not allowed\n");
+				return;
+			}
+
+			byte[] body = readBody(exchange.getRequestBody());
+			if(body == null) {
+				send(exchange, 413, "request too large\n");
+				return;
+			}
+
+			int[][][] puzzles;
+			try {
+				puzzles = parse(body);
+			} catch(IllegalArgumentException e) {
+				send(exchange, 400, e.getMessage() + "\n");
+				return;
+			}
+
+			if(puzzles.length == 0) {
+				send(exchange, 400, "no puzzle given\n");
+				return;
+			}
+
+			if(puzzles.length > this.maxPendingPuzzles) {
+				send(exchange, 413, "too many puzzles; at most " + this.maxPendingPuzzles + " per request\n");
+				return;
+			}
+
+			if(!this.pending.tryAcquire(puzzles.length)) {
+				this.rejected.incrementAndGet();
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				send(exchange, 503, "too many pending puzzles\n");
+				return;
+			}
+
+			Job job = new Job(puzzles);
+			try {
+				this.queue.add(job);
+				if(!this.running)
+					job.done.countDown();
+
+				job.done.await();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				this.pending.release(puzzles.length);
+			}
+
+			if(!job.answered) {
+				send(exchange, 503, "server is shutting down\n");
+				return;
+			}
+
+			ByteArrayOutputStream response = new ByteArrayOutputStream(puzzles.length * 82);
+			PuzzleWriter writer = new PuzzleWriter(response);
+			for(int index = 0; index < puzzles.length; index++) {
+				if(job.solved[index])
+					writer.write(job.solutions[index]);
+				else
+					writer.writeBlank();
+			}
+
+			writer.flush();
+			send(exchange, 200, response.toByteArray());
+			this.requests.incrementAndGet();
+			this.answeredPuzzles.addAndGet(puzzles.length);
+			this.latencies.record(System.nanoTime() - start);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private void handleStats(HttpExchange exchange) throws IOException {
+		try {
+			if(!"GET".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, "method not allowed\n");
+				return;
+			}
+
+			send(exchange, 200, "requests=" + this.requests.get()
+					+ " puzzles=" + this.answeredPuzzles.get()
+					+ " batches=" + this.batches.get()
+					+ " rejected=" + this.rejected.get()
+					+ " pending=" + this.getPendingPuzzles() + "\n"
+					+ this.latencies);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Take jobs from the queue in batches and solve them, until the server is closed.
+	 * */
+	private void dispatch() {
+		List<Job> batch = new ArrayList<>();
+		int[][][] batchPuzzles = new int[this.maxBatchSize][][];
+		int[][][] batchSolutions = new int[this.maxBatchSize][][];
+		boolean[] batchSolved = new boolean[this.maxBatchSize];
+		while(this.running) {
+			try {
+				Job job = this.queue.take();
+				batch.add(job);
+				int count = job.puzzles.length;
+				long deadline = System.nanoTime() + this.batchDelay;
+				while(count < this.maxBatchSize) {
+					long wait = deadline - System.nanoTime();
+					Job next = wait > 0 ? this.queue.poll(wait, TimeUnit.NANOSECONDS) : this.queue.poll();
+					if(next == null)
+						break;
+
+					batch.add(next);
+					count += next.puzzles.length;
+				}
+
+				if(count > batchPuzzles.length) {
+					batchPuzzles = new int[count][][];
+					batchSolutions = new int[count][][];
+					batchSolved = new boolean[count];
+				}
+
+				int index = 0;
+				for(Job member : batch) {
+					System.arraycopy(member.puzzles, 0, batchPuzzles, index, member.puzzles.length);
+					System.arraycopy(member.solutions, 0, batchSolutions, index, member.puzzles.length);
+					index += member.puzzles.length;
+				}
+
+				this.batchSolver.solveAll(batchPuzzles, batchSolutions, batchSolved, count);
+				this.batches.incrementAndGet();
+
+				index = 0;
+				for(Job member : batch) {
+					System.arraycopy(batchSolved, index, member.solved, 0, member.puzzles.length);
+					index += member.puzzles.length;
+					member.answered = true;
+				}
+			} catch(InterruptedException e) {
+				break;
+			} finally {
+				for(Job member : batch)
+					member.done.countDown();
+
+				batch.clear();
+				Arrays.fill(batchPuzzles, null);
+				Arrays.fill(batchSolutions, null);
+			}
+		}
+	}
+
+	/**
+	 * Read a request body, up to the largest size accepted.
+	 *
+	 * @return the body, or null if it is too large
+	 * */
+	private static byte[] readBody(InputStream in) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		for(int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+			if(body.size() + read > MAX_BODY_SIZE)
+				return null;
+
+			body.write(buffer, 0, read);
+		}
+
+		return body.toByteArray();
+	}
+
+	/**
+	 * Parse the puzzles of a request body, one per line, in the format read by PuzzleReader.
+	 *
+	 * @throws IllegalArgumentException if a line is not a valid puzzle
+	 * */
+	private static int[][][] parse(byte[] body) {
+		List<int[][]> puzzles = new ArrayList<>();
+		int[][] puzzle = new int[9][9];
+		int line = 1;
+		int position = 0;
+		while(position < body.length) {
+			int end = position;
+			while(end < body.length && body[end] != '\n')
+				end++;
+
+			if(TextFormat.parseLine(body, position, end, puzzle, line)) {
+				puzzles.add(puzzle);
+				puzzle = new int[9][9];
+			}
+
+			position = end + 1;
+			line++;
+		}
+
+		return puzzles.toArray(new int[0][][]);
+	}
+
+	private static void send(HttpExchange exchange, int status, String body) throws IOException {
+		send(exchange, status, body.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+		exchange.sendResponseHeaders(status, body.length);
+		try(OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	/**
+	 * The puzzles of one request, and their solutions once its batch is solved.
+	 * */
+	private static final class Job {
+
+		final int[][][] puzzles;
+		final int[][][] solutions;
+		final boolean[] solved;
+		final CountDownLatch done = new CountDownLatch(1);
+
+		//Set before done is counted down when the batch was solved; left false when the server is closed first
+		volatile boolean answered;
+
+		Job(int[][][] puzzles) {
+			this.puzzles = puzzles;
+			this.solutions = new int[puzzles.length][9][9];
+			this.solved = new boolean[puzzles.length];
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package solver;
+
+import org.junit.Test;
+import solver.impl.BatchResult;
+import solver.impl.BatchSolver;
+import solver.impl.SudokuSolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static solver.TestGrids.*;
+
+public class BatchSolverTest
+{
+	@Test
+	public void testResultOrder()
+	{
+		//More puzzles than are solved together, so the results of several chunks are joined
+		int count = 5000;
+		List<BatchResult> results = new BatchSolver().solveAll(
+				IntStream.range(0, count).mapToObj(BatchSolverTest::puzzle));
+		assertEquals("every puzzle should have a result", count, results.size());
+
+		for(int index = 0; index < count; index++)
+		{
+			BatchResult result = results.get(index);
+			assertEquals("results should be in input order", index, result.getIndex());
+			assertTrue("puzzle should be solved", result.isSolved());
+			assertTrue("solution should keep the clues of its puzzle",
+					keepsClues(puzzle(index), result.getSolvedGrid()));
+		}
+	}
+
+	@Test
+	public void testFailureDoesNotStopBatch()
+	{
+		int[][] unsolvable = unsolvable();
+
+		List<int[][]> puzzles = new ArrayList<>();
+		for(int index = 0; index < 40; index++)
+			puzzles.add(index == 17 ? unsolvable : puzzle(index));
+
+		List<BatchResult> results = new ArrayList<>();
+		new BatchSolver().solveAll(puzzles.iterator(), results::add);
+		assertEquals("every puzzle should have a result", puzzles.size(), results.size());
+
+		for(BatchResult result : results)
+		{
+			if(result.getIndex() == 17)
+			{
+				assertFalse("unsolvable puzzle should fail", result.isSolved());
+				assertNull("failed puzzle has no solution", result.getSolvedGrid());
+				assertTrue("failure should be kept", result.getFailure() instanceof IllegalArgumentException);
+			}
+			else
+			{
+				assertTrue("other puzzles should be solved", result.isSolved());
+				assertNull("solved puzzle has no failure", result.getFailure());
+			}
+		}
+	}
+
+	@Test
+	public void testWorkerReusesSolver()
+	{
+		AtomicInteger created = new AtomicInteger();
+		AtomicInteger solves = new AtomicInteger();
+		Map<Thread, Solver> owners = new ConcurrentHashMap<>();
+		boolean[] shared = new boolean[1];
+		Supplier<Solver> factory = () ->
+		{
+			created.incrementAndGet();
+			return new Solver()
+			{
+				private final SudokuSolver solver = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+
+				@Override
+				public int[][] solve(int[][] initGrid)
+				{
+					solves.incrementAndGet();
+					Solver owner = owners.putIfAbsent(Thread.currentThread(), this);
+					if(owner != null && owner != this)
+						shared[0] = true;
+
+					return this.solver.solve(initGrid);
+				}
+			};
+		};
+
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try
+		{
+			List<int[][]> puzzles = new ArrayList<>();
+			for(int index = 0; index < 500; index++)
+				puzzles.add(puzzle(index));
+
+			new BatchSolver(pool, factory).solveAll(puzzles);
+			assertEquals("every puzzle should be solved once", 500, solves.get());
+			assertFalse("a worker should always use the same solver", shared[0]);
+			assertEquals("each worker should create one solver", owners.size(), created.get());
+			assertTrue("solvers should be reused", created.get() < solves.get());
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Build a distinct puzzle for each index, by relabelling the values of the solution and blanking some cells.
+	 * */
+	private static int[][] puzzle(int index)
+	{
+		int[][] puzzle = new int[9][9];
+		for(int cell = 0; cell < 81; cell++)
+		{
+			boolean blank = (cell + index) % 3 == 0;
+			puzzle[cell / 9][cell % 9] = blank ? 0 : (SOLUTION[cell / 9][cell % 9] - 1 + index) % 9 + 1;
+		}
+
+		return puzzle;
+	}
+
+	private static boolean keepsClues(int[][] puzzle, int[][] solved)
+	{
+		for(int cell = 0; cell < 81; cell++)
+		{
+			int clue = puzzle[cell / 9][cell % 9];
+			if(clue != 0 && clue != solved[cell / 9][cell % 9])
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,126 @@
+package solver;
+
+import org.junit.Test;
+import solver.impl.SudokuSolver;
+import solver.io.BinaryEncoding;
+import solver.io.BinaryPuzzleReader;
+import solver.io.BinaryPuzzleWriter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static solver.TestGrids.*;
+
+public class BinaryPuzzleFormatTest
+{
+	@Test
+	public void testReadWrite() throws IOException
+	{
+		byte[] puzzle = new byte[81];
+		byte[] solution = new byte[81];
+		for(int cell = 0; cell < 81; cell++)
+		{
+			puzzle[cell] = (byte) PUZZLE[cell / 9][cell % 9];
+			solution[cell] = (byte) SOLUTION[cell / 9][cell % 9];
+		}
+
+		byte[] solved = new SudokuSolver().solve(puzzle, new byte[81]);
+		assertArrayEquals("byte solution does not match", solution, solved);
+
+		int count = 3000;
+		for(BinaryEncoding encoding : BinaryEncoding.values())
+		{
+			Path file = Files.createTempFile("puzzles", ".bin");
+			try
+			{
+				try(BinaryPuzzleWriter writer = new BinaryPuzzleWriter(file, encoding))
+				{
+					//Alternate puzzles and solutions so that CLUES grids vary in length
+					for(int index = 0; index < count; index++)
+					{
+						if(index % 3 == 2)
+							writer.writeBlank();
+						else
+							writer.write(index % 3 == 0 ? PUZZLE : SOLUTION);
+					}
+				}
+
+				try(BinaryPuzzleReader reader = new BinaryPuzzleReader(file))
+				{
+					assertEquals("encoding does not match", encoding, reader.getEncoding());
+					assertEquals("count does not match", count, reader.getCount());
+
+					byte[] cells = new byte[81];
+					int read = 0;
+					while(reader.next(cells))
+					{
+						if(read % 3 == 2)
+							assertArrayEquals("blank grid does not match", new byte[81], cells);
+						else
+							assertArrayEquals("grid " + read + " does not match", read % 3 == 0 ? puzzle : solution,
+									cells);
+
+						read++;
+					}
+
+					assertEquals("all grids should be read", count, read);
+
+					int[][] grid = new int[9][9];
+					reader.seek(2050);
+					assertTrue("grid after seek should be read", reader.next(grid));
+					assertArrayEquals("grid after seek does not match", SOLUTION, grid);
+					assertEquals("position does not match", 2051, reader.getPosition());
+
+					reader.seek(3);
+					assertTrue("grid after seek should be read", reader.next(cells));
+					assertArrayEquals("grid after seek does not match", puzzle, cells);
+
+					reader.seek(count);
+					assertFalse("no grid past the end", reader.next(cells));
+
+					try
+					{
+						reader.seek(count + 1);
+						fail("seek past the end should throw");
+					}
+					catch(IllegalArgumentException e){}
+				}
+			}
+			finally
+			{
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Test
+	public void testCloseTwice() throws IOException
+	{
+		for(BinaryEncoding encoding : BinaryEncoding.values())
+		{
+			Path file = Files.createTempFile("puzzles", ".bin");
+			try
+			{
+				BinaryPuzzleWriter writer = new BinaryPuzzleWriter(file, encoding);
+				writer.write(PUZZLE);
+				writer.close();
+				writer.close();
+
+				try(BinaryPuzzleReader reader = new BinaryPuzzleReader(file))
+				{
+					assertEquals("count does not match", 1, reader.getCount());
+
+					int[][] grid = new int[9][9];
+					assertTrue("grid should be read", reader.next(grid));
+					assertArrayEquals("grid does not match", PUZZLE, grid);
+				}
+			}
+			finally
+			{
+				Files.delete(file);
+			}
+		}
+	}
+}
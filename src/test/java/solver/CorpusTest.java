@@ -0,0 +1,48 @@
+package solver;
+
+import org.junit.Test;
+import solver.impl.SudokuSolver;
+import solver.io.PuzzleReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static solver.TestGrids.*;
+
+public class CorpusTest
+{
+	private static final Path CORPUS = Paths.get("src", "jmh", "resources", "corpus");
+
+	private static final String[] NAMES = new String[]{"easy", "hard", "minimal17", "pathological"};
+
+	@Test
+	public void testCorpora() throws IOException
+	{
+		SudokuSolver solver = new SudokuSolver();
+		Map<String, String> seen = new HashMap<>();
+		for(String name : NAMES)
+		{
+			int puzzles = 0;
+			try(PuzzleReader reader = new PuzzleReader(CORPUS.resolve(name + ".txt")))
+			{
+				int[][] puzzle = new int[9][9];
+				while(reader.next(puzzle))
+				{
+					assertTrue(name + " puzzle should have a unique solution",
+							solver.countSolutions(puzzle, 2).isUnique());
+
+					//Each corpus measures different inputs
+					String other = seen.put(toLine(puzzle), name);
+					assertNull("puzzle of " + name + " is also in " + other, other);
+					puzzles++;
+				}
+			}
+
+			assertTrue(name + " corpus should not be empty", puzzles > 0);
+		}
+	}
+}
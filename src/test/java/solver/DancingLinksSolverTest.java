@@ -0,0 +1,106 @@
+package solver;
+
+import org.junit.Test;
+import solver.impl.DancingLinksSolver;
+
+import static org.junit.Assert.*;
+import static solver.TestGrids.*;
+
+public class DancingLinksSolverTest
+{
+	//Built to defeat left-to-right backtracking
+	private static final int[][] EASTER_MONSTER = new int[][]
+	{
+		{1,0,0,0,0,0,0,0,2},
+		{0,9,0,4,0,0,0,5,0},
+		{0,0,6,0,0,0,7,0,0},
+		{0,5,0,9,0,3,0,0,0},
+		{0,0,0,0,7,0,0,0,0},
+		{0,0,0,8,5,0,0,4,0},
+		{7,0,0,0,0,0,6,0,0},
+		{0,3,0,0,0,9,0,8,0},
+		{0,0,2,0,0,0,0,0,1}
+	};
+
+	@Test
+	public void testSolve()
+	{
+		DancingLinksSolver solver = new DancingLinksSolver();
+		assertArrayEquals("solution does not match", SOLUTION, solver.solve(PUZZLE));
+		assertTrue("search should explore nodes", solver.getIterations() > 0);
+
+		int[][] solved = solver.solve(EASTER_MONSTER);
+		assertTrue("hard puzzle should be solved", isSolution(EASTER_MONSTER, solved));
+
+		//The arena is restored after every solve, including failed ones
+		for(int[][] invalid : new int[][][]{unsolvable(), new int[][]{{1,1,0,0},{0,0,0,0},{0,0,0,0},{0,0,0,0}}})
+		{
+			try
+			{
+				solver.solve(invalid);
+				fail("unsolvable grid should be rejected");
+			}
+			catch(IllegalArgumentException e){}
+		}
+
+		assertArrayEquals("solver not reusable", SOLUTION, solver.solve(PUZZLE));
+	}
+
+	@Test
+	public void testSolveOtherSizes()
+	{
+		DancingLinksSolver solver = new DancingLinksSolver(4);
+		int[][] small = new int[][]{{1,0,0,0},{0,0,3,0},{0,4,0,0},{0,0,0,2}};
+		assertTrue("4x4 solution is not valid", isSolution(small, solver.solve(small)));
+
+		int[][] large = new int[16][16];
+		for(int col = 0; col < 16; col++)
+			large[0][col] = col + 1;
+
+		assertTrue("16x16 solution is not valid", isSolution(large, solver.solve(large)));
+		assertArrayEquals("solver not reusable across sizes", SOLUTION, solver.solve(PUZZLE));
+
+		for(int[][] invalid : new int[][][]{null, new int[9][8], new int[5][5]})
+		{
+			try
+			{
+				solver.solve(invalid);
+				fail("grid with invalid dimensions should be rejected");
+			}
+			catch(IllegalArgumentException e){}
+		}
+	}
+
+	@Test
+	public void testSolverInterface()
+	{
+		//The default methods copy the solution of solve(int[][])
+		Solver solver = grid -> SOLUTION;
+
+		int[][] solution = new int[9][9];
+		assertSame("solution should be written into the buffer", solution, solver.solve(PUZZLE, solution));
+		assertArrayEquals("solution does not match", SOLUTION, solution);
+
+		byte[] cells = new byte[81];
+		for(int cell = 0; cell < 81; cell++)
+			cells[cell] = (byte) PUZZLE[cell / 9][cell % 9];
+
+		byte[] solved = solver.solve(cells, new byte[81]);
+		for(int cell = 0; cell < 81; cell++)
+			assertEquals("flat solution does not match", SOLUTION[cell / 9][cell % 9], solved[cell]);
+
+		try
+		{
+			solver.solve(PUZZLE, new int[9][8]);
+			fail("buffer with invalid dimensions should be rejected");
+		}
+		catch(IllegalArgumentException e){}
+
+		try
+		{
+			solver.solve(new byte[80], new byte[80]);
+			fail("flat grid with invalid length should be rejected");
+		}
+		catch(IllegalArgumentException e){}
+	}
+}
@@ -0,0 +1,60 @@
+package solver;
+
+import org.junit.Test;
+import solver.impl.DifficultyRater;
+import solver.impl.DifficultyRating;
+import solver.impl.Technique;
+
+import static org.junit.Assert.*;
+import static solver.TestGrids.*;
+
+public class DifficultyRaterTest
+{
+	@Test
+	public void testRate()
+	{
+		int[][] xWing = new int[][]
+		{
+			{0,5,2,0,7,0,0,0,1},
+			{0,0,0,0,0,0,0,4,0},
+			{0,0,0,4,0,3,2,0,0},
+			{0,0,0,0,0,1,0,0,3},
+			{0,7,8,9,0,0,0,1,0},
+			{0,0,9,0,0,0,6,0,2},
+			{9,0,0,0,0,4,0,0,0},
+			{0,4,0,0,0,0,5,0,9},
+			{0,1,0,3,0,8,0,0,0}
+		};
+
+		DifficultyRater rater = new DifficultyRater();
+		DifficultyRating easy = rater.rate(SOLUTION);
+		assertNull("solved grid needs no technique", easy.getHardestTechnique());
+		assertEquals("solved grid should score 0", 0, easy.getScore());
+
+		DifficultyRating logic = rater.rate(xWing);
+		assertEquals("puzzle should need an x-wing", Technique.X_WING, logic.getHardestTechnique());
+		assertTrue("puzzle should be solved by logic", logic.isSolvedByLogic());
+		assertTrue("x-wing should be counted", logic.getDeductions(Technique.X_WING) > 0);
+		assertEquals("logic should not search", 0, logic.getSearchNodes());
+
+		DifficultyRating search = rater.rate(PUZZLE);
+		assertEquals("puzzle should need search", Technique.SEARCH, search.getHardestTechnique());
+		assertTrue("search nodes should be counted", search.getSearchNodes() > 0);
+		assertTrue("ratings should be ordered", easy.compareTo(logic) < 0 && logic.compareTo(search) < 0);
+		assertEquals("rating should be repeatable", 0, search.compareTo(rater.rate(PUZZLE)));
+
+		int[][] unsolvable = unsolvable();
+		DifficultyRating[] ratings = new DifficultyRating[2];
+		assertEquals("one puzzle should be rated", 1,
+				DifficultyRater.rateAll(new int[][][]{xWing, unsolvable}, ratings, 2));
+		assertEquals("batch rating does not match", 0, logic.compareTo(ratings[0]));
+		assertNull("unsolvable puzzle should not be rated", ratings[1]);
+
+		try
+		{
+			rater.rate(unsolvable);
+			fail("unsolvable grid should be rejected");
+		}
+		catch(IllegalArgumentException e){}
+	}
+}
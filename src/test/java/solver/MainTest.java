@@ -0,0 +1,117 @@
+package solver;
+
+import org.junit.Test;
+import solver.io.BinaryPuzzleReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MainTest
+{
+	private static final String PUZZLE =
+			"8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+
+	private static final String SOLUTION =
+			"812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+	//Row 1 leaves only 9 for its last cell, but column 9 already holds a 9
+	private static final String UNSOLVABLE =
+			"12345678.........9...............................................................";
+
+	private static final String BLANK =
+			".................................................................................";
+
+	@Test
+	public void testSolve() throws IOException
+	{
+		Path input = Files.createTempFile("puzzles", ".txt");
+		Path output = Files.createTempFile("solutions", ".txt");
+		try
+		{
+			Files.write(input, Arrays.asList("# puzzles", PUZZLE, UNSOLVABLE, PUZZLE.replace('.', '0')),
+					StandardCharsets.US_ASCII);
+
+			for(String engine : new String[]{"most-constrained", "dancing-links", "clause-learning"})
+			{
+				Main.main(new String[]{"solve", input.toString(), output.toString(), engine});
+
+				List<String> lines = Files.readAllLines(output, StandardCharsets.US_ASCII);
+				assertEquals("every puzzle should have a line", Arrays.asList(SOLUTION, BLANK, SOLUTION), lines);
+			}
+		}
+		finally
+		{
+			Files.delete(input);
+			Files.delete(output);
+		}
+	}
+
+	@Test
+	public void testSolveBinary() throws IOException
+	{
+		Path input = Files.createTempFile("puzzles", ".txt");
+		Path packed = Files.createTempFile("puzzles", ".bin");
+		Path solutions = Files.createTempFile("solutions", ".bin");
+		Path output = Files.createTempFile("solutions", ".txt");
+		try
+		{
+			Files.write(input, Arrays.asList(PUZZLE, UNSOLVABLE, PUZZLE), StandardCharsets.US_ASCII);
+
+			//Solving text or binary input into a binary file writes a blank grid for the unsolvable puzzle
+			Main.main(new String[]{"pack", input.toString(), packed.toString()});
+			for(Path puzzles : new Path[]{input, packed})
+			{
+				Main.main(new String[]{"solve", puzzles.toString(), solutions.toString()});
+				try(BinaryPuzzleReader reader = new BinaryPuzzleReader(solutions))
+				{
+					assertEquals("every puzzle should have a grid", 3, reader.getCount());
+				}
+
+				Main.main(new String[]{"unpack", solutions.toString(), output.toString()});
+				assertEquals("solutions do not match", Arrays.asList(SOLUTION, BLANK, SOLUTION),
+						Files.readAllLines(output, StandardCharsets.US_ASCII));
+			}
+
+			//Binary input solved into a text file
+			Main.main(new String[]{"solve", packed.toString(), output.toString()});
+			assertEquals("solutions do not match", Arrays.asList(SOLUTION, BLANK, SOLUTION),
+					Files.readAllLines(output, StandardCharsets.US_ASCII));
+		}
+		finally
+		{
+			Files.delete(input);
+			Files.delete(packed);
+			Files.delete(solutions);
+			Files.delete(output);
+		}
+	}
+
+	@Test
+	public void testRate() throws IOException
+	{
+		Path input = Files.createTempFile("puzzles", ".txt");
+		Path output = Files.createTempFile("ratings", ".txt");
+		try
+		{
+			Files.write(input, Arrays.asList(PUZZLE, SOLUTION, UNSOLVABLE), StandardCharsets.US_ASCII);
+			Main.main(new String[]{"rate", input.toString(), output.toString()});
+
+			List<String> lines = Files.readAllLines(output, StandardCharsets.US_ASCII);
+			assertEquals("every puzzle should have a line", 3, lines.size());
+			assertTrue("rating should follow the puzzle", lines.get(0).startsWith(PUZZLE + " "));
+			assertEquals("full grid needs no technique", SOLUTION + " 0 none", lines.get(1));
+			assertEquals("unsolvable puzzle should be marked", UNSOLVABLE + " unsolvable", lines.get(2));
+		}
+		finally
+		{
+			Files.delete(input);
+			Files.delete(output);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package solver;
+
+import org.junit.Test;
+import solver.impl.SudokuGrid;
+
+import static org.junit.Assert.*;
+
+public class PropagatorTest
+{
+	@Test
+	public void testNakedPair()
+	{
+		//Columns 0 and 3 hold 3..9 in rows 1..7, leaving 1 and 2 for rows 0 and 8 of both columns
+		int[][] grid = new int[9][9];
+		for(int row = 1; row < 8; row++)
+		{
+			grid[row][0] = row + 2;
+			grid[row][3] = row % 7 + 3;
+		}
+
+		int[][] eliminated = new int[9][9];
+		for(int col : new int[]{1, 2, 4, 5, 6, 7, 8})
+		{
+			eliminated[0][col] = 0b11;
+			eliminated[8][col] = 0b11;
+		}
+
+		assertEliminated(grid, eliminated);
+	}
+
+	@Test
+	public void testHiddenPair()
+	{
+		//1 and 2 are excluded from rows 1 and 2 and from column 2, leaving cells 0 and 1 of row 0 for both
+		int[][] grid = new int[9][9];
+		grid[1][3] = 1;
+		grid[2][4] = 2;
+		grid[1][6] = 2;
+		grid[2][7] = 1;
+		grid[3][2] = 1;
+		grid[4][2] = 2;
+
+		int[][] eliminated = new int[9][9];
+		eliminated[0][0] = 0x1FF & ~0b11;
+		eliminated[0][1] = 0x1FF & ~0b11;
+
+		assertEliminated(grid, eliminated);
+	}
+
+	@Test
+	public void testPointing()
+	{
+		//The first quadrant can only hold 1 in row 0, so 1 leaves the rest of the row
+		int[][] grid = new int[9][9];
+		grid[1][4] = 1;
+		grid[2][0] = 2;
+		grid[2][1] = 3;
+		grid[2][2] = 4;
+
+		int[][] eliminated = new int[9][9];
+		for(int col = 6; col < 9; col++)
+			eliminated[0][col] = 0b1;
+
+		assertEliminated(grid, eliminated);
+	}
+
+	@Test
+	public void testBoxLineReduction()
+	{
+		//Row 0 holds 2..7 outside the first quadrant, so 1, 8 and 9 of the row are in the quadrant
+		int[][] grid = new int[9][9];
+		for(int col = 3; col < 9; col++)
+			grid[0][col] = col - 1;
+
+		int[][] eliminated = new int[9][9];
+		for(int row = 1; row < 3; row++)
+		{
+			for(int col = 0; col < 3; col++)
+				eliminated[row][col] = 0b110000001;
+		}
+
+		assertEliminated(grid, eliminated);
+	}
+
+	//Simplification should leave every empty cell with what its peers allow, minus exactly the eliminated candidates
+	private static void assertEliminated(int[][] grid, int[][] eliminated)
+	{
+		SudokuGrid sudokuGrid = new SudokuGrid(grid);
+		assertEquals("no value should be deduced", 0, sudokuGrid.getSimplifiedCellCount());
+
+		for(int row = 0; row < 9; row++)
+		{
+			for(int col = 0; col < 9; col++)
+			{
+				if(grid[row][col] != 0)
+					continue;
+
+				int used = sudokuGrid.getRowMask(row) | sudokuGrid.getColMask(col)
+						| sudokuGrid.getQuadrantMask(sudokuGrid.getQuadrantId(col, row));
+				assertEquals("candidates of row " + row + ", column " + col + " do not match",
+						0x1FF & ~used & ~eliminated[row][col], sudokuGrid.getPossibleCellMask(col, row));
+			}
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package solver;
+
+import org.junit.Test;
+import solver.impl.PuzzleGenerator;
+import solver.impl.SudokuSolver;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PuzzleGeneratorTest
+{
+	@Test
+	public void testGenerate()
+	{
+		SudokuSolver solver = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+		PuzzleGenerator generator = new PuzzleGenerator(9, 42);
+		int[][] puzzle = generator.generate(0);
+		assertTrue("generated puzzle should be unique", solver.countSolutions(puzzle, 2).isUnique());
+		assertTrue("puzzle should be minimal", generator.isMinimal());
+		assertArrayEquals("solution does not match", generator.getSolution(), solver.solve(puzzle));
+
+		puzzle = generator.generate(40);
+		assertEquals("puzzle should stop at the target", 40, generator.getClueCount());
+		assertTrue("generated puzzle should be unique", solver.countSolutions(puzzle, 2).isUnique());
+
+		generator.setSeed(7);
+		int[][] first = generator.generate(0);
+		assertArrayEquals("same seed should generate the same puzzle", first, new PuzzleGenerator(9, 7).generate(0));
+
+		List<int[][]> puzzles = PuzzleGenerator.generateAll(4, 8, 0, 3);
+		assertEquals("puzzle count does not match", 8, puzzles.size());
+		for(int index = 0; index < puzzles.size(); index++)
+		{
+			assertTrue("generated puzzle should be unique", solver.countSolutions(puzzles.get(index), 2).isUnique());
+			assertArrayEquals("parallel generation should be reproducible", puzzles.get(index),
+					PuzzleGenerator.generateAll(4, 8, 0, 3).get(index));
+		}
+	}
+}
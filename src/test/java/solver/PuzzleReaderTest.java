@@ -0,0 +1,143 @@
+package solver;
+
+import org.junit.Test;
+import solver.io.PuzzleReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class PuzzleReaderTest
+{
+	private static final String PUZZLE_DOTS =
+			"8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+
+	private static final String PUZZLE_ZEROS =
+			"800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+
+	private static final String SOLUTION =
+			"812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+	@Test
+	public void testFormat() throws IOException
+	{
+		String content = "# puzzles\r\n"
+				+ PUZZLE_DOTS + "\r\n"
+				+ "\n"
+				+ "#" + SOLUTION + "\n"
+				+ PUZZLE_ZEROS + " trailing text\n"
+				+ SOLUTION;
+
+		try(PuzzleReader reader = new PuzzleReader(write(content)))
+		{
+			int[][] grid = new int[9][9];
+			assertTrue("first puzzle should be read", reader.next(grid));
+			assertEquals("'.' blanks should be read", PUZZLE_ZEROS, toLine(grid));
+			assertEquals("line number does not match", 3, reader.getLineNumber());
+
+			assertTrue("puzzle after a comment should be read", reader.next(grid));
+			assertEquals("'0' blanks should be read", PUZZLE_ZEROS, toLine(grid));
+			assertEquals("line number does not match", 6, reader.getLineNumber());
+
+			assertTrue("last line without a line break should be read", reader.next(grid));
+			assertEquals("solution does not match", SOLUTION, toLine(grid));
+			assertFalse("no puzzle past the end", reader.next(grid));
+			assertFalse("no puzzle past the end", reader.next(grid));
+		}
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException
+	{
+		for(String content : new String[]{"", "\n\r\n", "# only a comment\n"})
+		{
+			try(PuzzleReader reader = new PuzzleReader(write(content)))
+			{
+				assertFalse("file should hold no puzzle", reader.next(new int[9][9]));
+			}
+		}
+	}
+
+	@Test
+	public void testMalformedLines() throws IOException
+	{
+		String[] lines = new String[]{
+				PUZZLE_DOTS.substring(0, 80),
+				PUZZLE_DOTS.substring(0, 40) + "x" + PUZZLE_DOTS.substring(41),
+				PUZZLE_DOTS.substring(0, 40) + " " + PUZZLE_DOTS.substring(41)
+		};
+
+		for(String line : lines)
+		{
+			try(PuzzleReader reader = new PuzzleReader(write("# header\n" + SOLUTION + "\n\n" + line + "\n")))
+			{
+				int[][] grid = new int[9][9];
+				assertTrue("valid line should be read", reader.next(grid));
+				try
+				{
+					reader.next(grid);
+					fail("malformed line should be rejected");
+				}
+				catch(IllegalArgumentException e)
+				{
+					assertEquals("error should name the line", "malformed puzzle on line 4", e.getMessage());
+				}
+			}
+		}
+
+		//A short last line ends at the end of the file
+		try(PuzzleReader reader = new PuzzleReader(write(PUZZLE_DOTS.substring(0, 50))))
+		{
+			reader.next(new int[9][9]);
+			fail("short line should be rejected");
+		}
+		catch(IllegalArgumentException e)
+		{
+			assertEquals("error should name the line", "malformed puzzle on line 1", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInvalidGrid() throws IOException
+	{
+		int[][] nullRow = new int[9][];
+		for(int row = 0; row < 8; row++)
+			nullRow[row] = new int[9];
+
+		try(PuzzleReader reader = new PuzzleReader(write(SOLUTION)))
+		{
+			for(int[][] grid : new int[][][]{null, new int[8][9], new int[9][8], nullRow})
+			{
+				try
+				{
+					reader.next(grid);
+					fail("grid with invalid dimensions should be rejected");
+				}
+				catch(IllegalArgumentException e){}
+			}
+		}
+	}
+
+	private static Path write(String content) throws IOException
+	{
+		Path file = Files.createTempFile("puzzles", ".txt");
+		file.toFile().deleteOnExit();
+		Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+		return file;
+	}
+
+	private static String toLine(int[][] grid)
+	{
+		StringBuilder line = new StringBuilder();
+		for(int[] row : grid)
+		{
+			for(int value : row)
+				line.append((char) ('0' + value));
+		}
+
+		return line.toString();
+	}
+}
@@ -0,0 +1,117 @@
+package solver;
+
+import org.junit.Test;
+import solver.io.PuzzleReader;
+import solver.io.PuzzleWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static solver.TestGrids.*;
+
+public class PuzzleWriterTest
+{
+	private static final String PUZZLE_LINE =
+			"8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..";
+
+	private static final String SOLUTION_LINE =
+			"812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+	private static final String BLANK_LINE =
+			".................................................................................";
+
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		byte[] cells = new byte[81];
+		for(int cell = 0; cell < 81; cell++)
+			cells[cell] = (byte) SOLUTION[cell / 9][cell % 9];
+
+		Path file = Files.createTempFile("puzzles", ".txt");
+		try
+		{
+			try(PuzzleWriter writer = new PuzzleWriter(file))
+			{
+				writer.write(PUZZLE);
+				writer.write(cells);
+				writer.writeBlank();
+				writer.write(SOLUTION, "rating 3");
+			}
+
+			String expected = PUZZLE_LINE + "\n" + SOLUTION_LINE + "\n" + BLANK_LINE + "\n"
+					+ SOLUTION_LINE + " rating 3\n";
+			assertEquals("output does not match",
+					expected, new String(Files.readAllBytes(file), StandardCharsets.US_ASCII));
+
+			try(PuzzleReader reader = new PuzzleReader(file))
+			{
+				int[][] grid = new int[9][9];
+				assertTrue("puzzle should be read back", reader.next(grid));
+				assertArrayEquals("puzzle does not match", PUZZLE, grid);
+				assertTrue("flat grid should be read back", reader.next(grid));
+				assertArrayEquals("flat grid does not match", SOLUTION, grid);
+				assertTrue("blank line should be read back", reader.next(grid));
+				assertArrayEquals("blank line should be an empty grid", new int[9][9], grid);
+				assertTrue("grid with a note should be read back", reader.next(grid));
+				assertArrayEquals("grid with a note does not match", SOLUTION, grid);
+				assertFalse("no more grids", reader.next(grid));
+			}
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testInvalidGrid() throws IOException
+	{
+		int[][] nullRow = new int[9][];
+		for(int row = 0; row < 8; row++)
+			nullRow[row] = new int[9];
+
+		int[][] invalidValue = new int[9][9];
+		invalidValue[8][8] = 10;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(PuzzleWriter writer = new PuzzleWriter(out))
+		{
+			for(int[][] grid : new int[][][]{null, new int[8][9], new int[9][8], nullRow, invalidValue})
+			{
+				try
+				{
+					writer.write(grid);
+					fail("invalid grid should be rejected");
+				}
+				catch(IllegalArgumentException e){}
+			}
+
+			for(byte[] cells : new byte[][]{null, new byte[80], {-1}})
+			{
+				try
+				{
+					writer.write(cells);
+					fail("invalid flat grid should be rejected");
+				}
+				catch(IllegalArgumentException e){}
+			}
+
+			try
+			{
+				writer.write(SOLUTION, "tab\tin note");
+				fail("note that is not printable ASCII should be rejected");
+			}
+			catch(IllegalArgumentException e){}
+
+			//A rejected grid leaves nothing behind
+			writer.write(PUZZLE);
+		}
+
+		assertEquals("only the valid grid should be written",
+				PUZZLE_LINE + "\n", new String(out.toByteArray(), StandardCharsets.US_ASCII));
+	}
+}
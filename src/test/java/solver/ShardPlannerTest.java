@@ -0,0 +1,54 @@
+package solver;
+
+import org.junit.Test;
+import solver.impl.Shard;
+import solver.impl.ShardPlanner;
+import solver.impl.SudokuSolver;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static solver.TestGrids.*;
+
+public class ShardPlannerTest
+{
+	@Test
+	public void testShardPlanner()
+	{
+		//The first two rows and four columns of the solution leave a few hundred solutions
+		int[][] sparse = new int[9][9];
+		for(int row = 0; row < 9; row++)
+		{
+			for(int col = 0; col < 9; col++)
+				sparse[row][col] = row < 2 || col < 4 ? SOLUTION[row][col] : 0;
+		}
+
+		SudokuSolver solver = new SudokuSolver();
+		long full = solver.countSolutions(sparse, Long.MAX_VALUE).getCount();
+
+		List<Shard> plan = new ShardPlanner(1).plan(sparse, 4);
+		assertEquals("plan should have every shard", 4, plan.size());
+		assertTrue("same seed should give the same plan",
+				plan.get(0).getEstimate() == new ShardPlanner(1).plan(sparse, 4).get(0).getEstimate());
+
+		Set<String> solutions = new HashSet<>();
+		long counted = 0;
+		for(Shard shard : plan)
+		{
+			assertFalse("shard should not be empty", shard.getPuzzles().isEmpty());
+			for(int[][] puzzle : shard.getPuzzles())
+			{
+				counted += solver.countSolutions(puzzle, Long.MAX_VALUE).getCount();
+				solver.streamSolutions(puzzle).forEach(solved -> solutions.add(toLine(solved)));
+			}
+		}
+
+		assertEquals("shard counts should add up to the count", full, counted);
+		assertEquals("shards should be disjoint", full, solutions.size());
+
+		assertTrue("unique puzzle should have one subtree",
+				new ShardPlanner(1).plan(PUZZLE, 3).stream().mapToInt(shard -> shard.getPuzzles().size()).sum() == 1);
+	}
+}
@@ -0,0 +1,100 @@
+package solver;
+
+import org.junit.Test;
+import solver.server.SolveServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static solver.TestGrids.*;
+
+public class SolveServerTest
+{
+	@Test
+	public void testSolve() throws Exception
+	{
+		SolveServer server = new SolveServer(new InetSocketAddress("127.0.0.1", 0), 2);
+		server.setMaxPendingPuzzles(2);
+		server.setBatchDelay(200, TimeUnit.MILLISECONDS);
+		server.start();
+		try
+		{
+			String[] response = request(server, "POST", "/solve", toLine(PUZZLE));
+			assertEquals("puzzle should be solved", "200", response[0]);
+			assertEquals("solution does not match", toLine(SOLUTION) + "\n", response[1]);
+
+			//Requests follow the puzzle file format, so comments, empty lines and trailing text are skipped
+			response = request(server, "POST", "/solve",
+					"# batch\r\n" + toLine(PUZZLE) + "\r\n\r\n" + toLine(unsolvable()) + " unsolvable\n");
+			assertEquals("batch should be solved", "200", response[0]);
+			assertEquals("batch solutions do not match",
+					toLine(SOLUTION) + "\n" + new String(new char[81]).replace('\0', '.') + "\n", response[1]);
+
+			//Fill the pending puzzles, then check that a further request is turned away
+			final String twice = toLine(PUZZLE) + "\n" + toLine(PUZZLE) + "\n";
+			final String[][] first = new String[1][];
+			Thread thread = new Thread(() -> first[0] = request(server, "POST", "/solve", twice));
+			thread.start();
+			while(server.getPendingPuzzles() < 2 && thread.isAlive())
+				Thread.sleep(1);
+
+			response = request(server, "POST", "/solve", toLine(PUZZLE));
+			assertEquals("full server should reject requests", "503", response[0]);
+			thread.join();
+			assertEquals("pending request should be solved", "200", first[0][0]);
+			assertEquals("rejection should be counted", 1, server.getRejectedCount());
+
+			response = request(server, "POST", "/solve", twice + toLine(PUZZLE));
+			assertEquals("oversized request should be rejected", "413", response[0]);
+			assertEquals("malformed puzzle should be rejected", "400", request(server, "POST", "/solve", "123")[0]);
+			assertEquals("stats should be served", "200", request(server, "GET", "/stats", null)[0]);
+			assertEquals("latencies should be recorded", 3, server.getLatencies().getCount());
+		}
+		finally
+		{
+			server.close();
+		}
+	}
+
+	private static String[] request(SolveServer server, String method, String path, String body)
+	{
+		try
+		{
+			InetSocketAddress address = server.getAddress();
+			URL url = new URL("http", address.getHostString(), address.getPort(), path);
+			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+			connection.setRequestMethod(method);
+			if(body != null)
+			{
+				connection.setDoOutput(true);
+				try(OutputStream out = connection.getOutputStream())
+				{
+					out.write(body.getBytes(StandardCharsets.US_ASCII));
+				}
+			}
+
+			int status = connection.getResponseCode();
+			ByteArrayOutputStream response = new ByteArrayOutputStream();
+			try(InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream())
+			{
+				byte[] buffer = new byte[4096];
+				for(int read = in.read(buffer); read >= 0; read = in.read(buffer))
+					response.write(buffer, 0, read);
+			}
+
+			return new String[]{String.valueOf(status), new String(response.toByteArray(), StandardCharsets.US_ASCII)};
+		}
+		catch(IOException e)
+		{
+			throw new AssertionError("request failed", e);
+		}
+	}
+}
@@ -2,8 +2,10 @@ package solver;
 
 import org.junit.Test;
 import solver.impl.SudokuGrid;
+import solver.impl.SudokuSolver;
 
 import static org.junit.Assert.*;
+import static solver.TestGrids.*;
 
 public class SudokuGridTest
 {
@@ -90,7 +92,147 @@ public class SudokuGridTest
 		
 		sudokuGrid = new SudokuGrid(grid);
 		assertFalse("grid array parameter value not recognized", sudokuGrid.isCellModifiable(3, 0));
-		assertTrue("grid array parameter value not recognized", sudokuGrid.getCell(3, 0) == 7);
+		assertTrue("grid array parameter value not recognized", sudokuGrid.getCellValue(3, 0) == 7);
 		assertNull("grid array parameter value not recognized", sudokuGrid.getPossibleCellValues(3, 0));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testMasks()
+	{
+		int[][] grid = new int[9][9];
+		grid[0][0] = 1;
+		grid[0][4] = 2;
+		grid[4][1] = 3;
+		SudokuGrid sudokuGrid = new SudokuGrid(grid);
+
+		assertEquals("row mask does not match", 0b11, sudokuGrid.getRowMask(0));
+		assertEquals("column mask does not match", 0b1, sudokuGrid.getColMask(0));
+		assertEquals("column mask does not match", 0b100, sudokuGrid.getColMask(1));
+		assertEquals("quadrant mask does not match", 0b1, sudokuGrid.getQuadrantMask(0));
+		assertEquals("quadrant mask does not match", 0b100, sudokuGrid.getQuadrantMask(3));
+		assertEquals("given cell has no candidates", 0, sudokuGrid.getCandidateMask(0, 0));
+		assertEquals("candidates should exclude row, column and quadrant", 0x1FF & ~0b111,
+				sudokuGrid.getCandidateMask(1, 0));
+		assertEquals("candidates should exclude the row", 0x1FF & ~0b11, sudokuGrid.getCandidateMask(8, 0));
+
+		sudokuGrid.setCellValue(8, 8, 5);
+		assertEquals("placed value should be in the row mask", 0b10000, sudokuGrid.getRowMask(8));
+		assertEquals("placed value should be in the column mask", 0b10000, sudokuGrid.getColMask(8));
+		assertEquals("placed value should be in the quadrant mask", 0b10000, sudokuGrid.getQuadrantMask(8));
+		assertEquals("placed value should be found", 1, sudokuGrid.rowContains(8, 5, true));
+		assertEquals("placed value should not be a candidate of a peer", 0,
+				sudokuGrid.getCandidateMask(8, 0) & 0b10000);
+
+		//A repeated value is counted, and stays in the masks until its last occurrence is reset
+		sudokuGrid.setCellValue(7, 8, 5);
+		assertEquals("repeated value should be counted", 2, sudokuGrid.rowContains(8, 5, false));
+		sudokuGrid.resetCellValue(8, 8);
+		assertEquals("remaining value should be kept", 0b10000, sudokuGrid.getRowMask(8));
+		assertEquals("reset value should leave the column", 0, sudokuGrid.getColMask(8));
+		sudokuGrid.resetCellValue(7, 8);
+		assertEquals("reset value should leave the row", 0, sudokuGrid.getRowMask(8));
+		assertEquals("reset value should leave the quadrant", 0, sudokuGrid.getQuadrantMask(8));
+		assertEquals("reset value should be a candidate again", 0x1FF, sudokuGrid.getCandidateMask(8, 8));
+	}
+
+	@Test
+	public void testSolvedState()
+	{
+		SudokuGrid sudokuGrid = new SudokuGrid(new int[9][9]);
+		assertEquals("empty grid has no filled cells", 0, sudokuGrid.getFilledCellCount());
+		assertEquals("empty grid has no conflicts", 0, sudokuGrid.getConflictCount());
+
+		//A value repeated in a row and quadrant
+		sudokuGrid.setCellValue(0, 0, 5);
+		sudokuGrid.setCellValue(1, 0, 5);
+		assertEquals("filled cells do not match", 2, sudokuGrid.getFilledCellCount());
+		assertEquals("conflicts do not match", 2, sudokuGrid.getConflictCount());
+		assertFalse("grid with conflicts is not valid", sudokuGrid.isValid());
+		sudokuGrid.resetCellValue(1, 0);
+		assertEquals("filled cells do not match", 1, sudokuGrid.getFilledCellCount());
+		assertEquals("reset should remove the conflicts", 0, sudokuGrid.getConflictCount());
+
+		for(int row = 0; row < 9; row++)
+		{
+			for(int col = 0; col < 9; col++)
+			{
+				sudokuGrid.setCellValue(col, row, SOLUTION[row][col]);
+				assertEquals("grid should be solved once it is full", row == 8 && col == 8, sudokuGrid.isSolved());
+			}
+		}
+
+		assertEquals("every cell should be filled", 81, sudokuGrid.getFilledCellCount());
+		assertTrue("full grid should be solved", sudokuGrid.isSolved());
+		assertTrue("full grid should pass validation", sudokuGrid.isSolvedByValidation());
+
+		//1 is already in the row, column and quadrant of the first cell
+		sudokuGrid.setCellValue(0, 0, 1);
+		assertEquals("filled cells should not change", 81, sudokuGrid.getFilledCellCount());
+		assertEquals("conflicts do not match", 3, sudokuGrid.getConflictCount());
+		assertFalse("grid with conflicts is not solved", sudokuGrid.isSolved());
+		assertFalse("grid with conflicts fails validation", sudokuGrid.isSolvedByValidation());
+
+		sudokuGrid.setCellValue(0, 0, SOLUTION[0][0]);
+		assertTrue("restored grid should be solved", sudokuGrid.isSolved());
+	}
+
+	@Test
+	public void testLargerGrids()
+	{
+		for(int size : new int[]{4, 16, 25})
+		{
+			int boxSize = (int) Math.sqrt(size);
+			int all = (1 << size) - 1;
+
+			//The first row holds 1..size, so the last cell of the row is the only one left for the largest value
+			int[][] grid = new int[size][size];
+			for(int col = 0; col < size - 1; col++)
+				grid[0][col] = col + 1;
+
+			SudokuGrid sudokuGrid = new SudokuGrid(grid);
+			assertEquals("grid size does not match", size, sudokuGrid.getSize());
+			assertEquals("single candidate should be filled in", size, sudokuGrid.getCellValue(size - 1, 0));
+			assertEquals("row mask does not match", all, sudokuGrid.getRowMask(0));
+			assertEquals("quadrant does not match", 1, sudokuGrid.getQuadrantId(boxSize, 0));
+			assertEquals("quadrant does not match", boxSize + 1, sudokuGrid.getQuadrantId(boxSize, boxSize));
+			assertEquals("quadrant does not match", size - 1, sudokuGrid.getQuadrantId(size - 1, size - 1));
+			assertEquals("candidates should exclude the first quadrant", all & ~((1 << boxSize) - 1),
+					sudokuGrid.getCandidateMask(0, 1));
+			assertEquals("candidates should exclude the column", all & ~1, sudokuGrid.getCandidateMask(0, boxSize));
+
+			try
+			{
+				grid[1][0] = size + 1;
+				new SudokuGrid(grid);
+				fail("value larger than the grid should be rejected");
+			}
+			catch(IllegalArgumentException e){}
+
+			//Clear a third of a pattern solution, which leaves the search little to guess
+			for(int row = 0; row < size; row++)
+			{
+				int shift = boxSize * (row % boxSize) + row / boxSize;
+				for(int col = 0; col < size; col++)
+					grid[row][col] = (row + col) % 3 == 0 ? 0 : (shift + col) % size + 1;
+			}
+
+			int[][] solved = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED).solve(grid);
+			assertTrue(size + "x" + size + " solution is not valid", isSolution(grid, solved));
+
+			sudokuGrid = new SudokuGrid(solved);
+			assertEquals("every cell should be filled", size * size, sudokuGrid.getFilledCellCount());
+			assertTrue("solution should be solved", sudokuGrid.isSolved());
+			assertTrue("solution should pass validation", sudokuGrid.isSolvedByValidation());
+		}
+
+		for(int[][] grid : new int[][][]{new int[1][1], new int[5][5], new int[36][36], new int[16][9]})
+		{
+			try
+			{
+				new SudokuGrid(grid);
+				fail("grid with invalid dimensions should be rejected");
+			}
+			catch(IllegalArgumentException e){}
+		}
+	}
+}
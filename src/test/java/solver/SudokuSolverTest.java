@@ -0,0 +1,459 @@
+package solver;
+
+import org.junit.Test;
+import solver.impl.CachingSolver;
+import solver.impl.ClauseLearningSolver;
+import solver.impl.DancingLinksSolver;
+import solver.impl.ParallelSolver;
+import solver.impl.RestartSchedule;
+import solver.impl.CancellationToken;
+import solver.impl.SearchCheckpoint;
+import solver.impl.SearchListener;
+import solver.impl.SolutionSpliterator;
+import solver.impl.SolutionCount;
+import solver.impl.SolveLimits;
+import solver.impl.SolveOutcome;
+import solver.impl.SolverMetrics;
+import solver.impl.SudokuSolver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.Assert.*;
+import static solver.TestGrids.*;
+
+public class SudokuSolverTest
+{
+	@Test
+	public void testSolve()
+	{
+		assertArrayEquals("row major solution does not match",
+				SOLUTION, new SudokuSolver(SudokuSolver.SearchOrder.ROW_MAJOR).solve(PUZZLE));
+		assertArrayEquals("most constrained solution does not match",
+				SOLUTION, new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED).solve(PUZZLE));
+		assertArrayEquals("dancing links solution does not match",
+				SOLUTION, new DancingLinksSolver().solve(PUZZLE));
+		assertArrayEquals("clause learning solution does not match",
+				SOLUTION, new ClauseLearningSolver().solve(PUZZLE));
+		assertArrayEquals("parallel solution does not match",
+				SOLUTION, new ParallelSolver().solve(PUZZLE));
+
+		SudokuSolver solver = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+		solver.setPropagating(true);
+		assertArrayEquals("propagating solution does not match", SOLUTION, solver.solve(PUZZLE));
+
+		solver = new SudokuSolver();
+		solver.solve(PUZZLE);
+		assertArrayEquals("solver not reusable", SOLUTION, solver.solve(PUZZLE));
+	}
+
+	@Test
+	public void testMostConstrainedOrder()
+	{
+		SudokuSolver rowMajor = new SudokuSolver(SudokuSolver.SearchOrder.ROW_MAJOR);
+		assertArrayEquals("row major solution does not match", SOLUTION, rowMajor.solve(PUZZLE));
+
+		SudokuSolver solver = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+		assertArrayEquals("most constrained solution does not match", SOLUTION, solver.solve(PUZZLE));
+		int iterations = solver.getIterations();
+		assertTrue("most constrained order should explore fewer nodes",
+				iterations > 0 && iterations < rowMajor.getIterations());
+
+		//Ties between cells are broken the same way every time, so the search is reproducible
+		assertArrayEquals("solver not reusable", SOLUTION, solver.solve(PUZZLE));
+		assertEquals("repeated search should explore the same nodes", iterations, solver.getIterations());
+		SudokuSolver other = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+		other.solve(PUZZLE);
+		assertEquals("new solver should explore the same nodes", iterations, other.getIterations());
+
+		try
+		{
+			solver.solve(unsolvable());
+			fail("unsolvable grid should be rejected");
+		}
+		catch(IllegalArgumentException e){}
+
+		assertArrayEquals("solver not reusable after a failed search", SOLUTION, solver.solve(PUZZLE));
+	}
+
+	@Test
+	public void testSolveLargerGrids()
+	{
+		int[][] grid = new int[16][16];
+		grid[0] = new int[]{1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16};
+
+		int[][] solved = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED).solve(grid);
+		assertTrue("16x16 solution is not valid", isSolution(grid, solved));
+
+		solved = new DancingLinksSolver().solve(grid);
+		assertTrue("16x16 solution is not valid", isSolution(grid, solved));
+
+		solved = new ClauseLearningSolver().solve(grid);
+		assertTrue("16x16 solution is not valid", isSolution(grid, solved));
+
+		solved = new ParallelSolver().solve(grid);
+		assertTrue("16x16 solution is not valid", isSolution(grid, solved));
+	}
+
+	@Test
+	public void testClauseLearningSolver()
+	{
+		ClauseLearningSolver solver = new ClauseLearningSolver();
+		assertArrayEquals("solution does not match", SOLUTION, solver.solve(PUZZLE));
+
+		int[][] grid = new int[25][25];
+		for(int col = 0; col < 25; col++)
+			grid[0][col] = col + 1;
+
+		assertTrue("25x25 solution is not valid", isSolution(grid, solver.solve(grid)));
+		assertArrayEquals("solver not reusable across sizes", SOLUTION, solver.solve(PUZZLE));
+
+		byte[] cells = new byte[81];
+		for(int cell = 0; cell < 81; cell++)
+			cells[cell] = (byte) PUZZLE[cell / 9][cell % 9];
+
+		byte[] solved = solver.solve(cells, new byte[81]);
+		for(int cell = 0; cell < 81; cell++)
+			assertEquals("flat solution does not match", SOLUTION[cell / 9][cell % 9], solved[cell]);
+
+		//A wrong clue that does not repeat a value in its row, column or quadrant
+		int[][] unsolvable = new int[9][];
+		for(int row = 0; row < 9; row++)
+			unsolvable[row] = PUZZLE[row].clone();
+
+		unsolvable[0][1] = 2;
+		try
+		{
+			solver.solve(unsolvable);
+			fail("unsolvable grid should be rejected");
+		}
+		catch(IllegalArgumentException e){}
+
+		assertArrayEquals("solver not reusable after an unsolvable grid", SOLUTION, solver.solve(PUZZLE));
+	}
+
+	@Test
+	public void testCountSolutions()
+	{
+		SudokuSolver solver = new SudokuSolver();
+
+		SolutionCount count = solver.countSolutions(PUZZLE, 2);
+		assertEquals("puzzle should have a unique solution", 1, count.getCount());
+		assertTrue("puzzle should have a unique solution", count.isUnique());
+
+		count = solver.countSolutions(new int[9][9], 2);
+		assertEquals("empty grid should reach the limit", 2, count.getCount());
+		assertTrue("empty grid should reach the limit", count.isLimitReached());
+
+		count = solver.countSolutions(new int[4][4], 1000);
+		assertEquals("number of 4x4 grids does not match", 288, count.getCount());
+
+		//Limits past the range of an int are kept as they are
+		count = solver.countSolutions(new int[4][4], Long.MAX_VALUE);
+		assertEquals("number of 4x4 grids does not match", 288, count.getCount());
+		assertEquals("limit does not match", Long.MAX_VALUE, count.getLimit());
+		assertFalse("limit should not be reached", count.isLimitReached());
+
+		solver.setPropagating(true);
+		count = solver.countSolutions(new int[4][4], 1000);
+		assertEquals("number of 4x4 grids does not match with propagation", 288, count.getCount());
+		solver.setPropagating(false);
+
+		int[][] grid = new int[9][9];
+		grid[0] = new int[]{1,2,3,4,5,6,7,8,0};
+		grid[1][8] = 9;
+		count = solver.countSolutions(grid, 2);
+		assertTrue("grid should be unsolvable", count.isUnsolvable());
+	}
+
+	@Test
+	public void testSolutionEnumeration()
+	{
+		SudokuSolver solver = new SudokuSolver();
+		List<int[][]> solutions = solver.streamSolutions(PUZZLE).collect(Collectors.toList());
+		assertEquals("puzzle should have a unique solution", 1, solutions.size());
+		assertArrayEquals("solution does not match", SOLUTION, solutions.get(0));
+
+		assertEquals("number of 4x4 grids does not match", 288, solver.streamSolutions(new int[4][4]).count());
+		assertEquals("number of parallel 4x4 grids does not match",
+				288, solver.streamSolutions(new int[4][4]).parallel().map(TestGrids::toLine).distinct().count());
+
+		solver.setPropagating(true);
+		assertEquals("number of propagated 4x4 grids does not match",
+				288, solver.streamSolutions(new int[4][4]).parallel().map(TestGrids::toLine).distinct().count());
+
+		int[][] empty = new int[9][9];
+		assertEquals("empty grid solutions should be distinct",
+				1000, solver.streamSolutions(empty).limit(1000).map(TestGrids::toLine).distinct().count());
+		assertTrue("empty grid solutions should be valid",
+				solver.streamSolutions(empty).parallel().limit(1000).allMatch(solved -> isSolution(empty, solved)));
+
+		int[][] unsolvable = unsolvable();
+		assertFalse("unsolvable grid has no solutions", solver.solutions(unsolvable).tryAdvance(solved -> {}));
+	}
+
+	@Test
+	public void testSearchCheckpoint() throws IOException
+	{
+		Path file = Files.createTempFile("search", ".checkpoint");
+		try
+		{
+			for(boolean propagating : new boolean[]{false, true})
+			{
+				SudokuSolver solver = new SudokuSolver();
+				solver.setPropagating(propagating);
+				SolutionCount full = solver.countSolutions(new int[4][4], 1000);
+
+				//Count in slices of a few nodes, going through a file between slices
+				SolveLimits limits = new SolveLimits();
+				limits.setMaxNodes(20);
+				SudokuSolver counter = solver;
+				SolutionCount count = counter.countSolutions(new int[4][4], 1000, limits);
+				long size = -1;
+				int slices = 0;
+				while(count.isInterrupted())
+				{
+					counter.checkpoint().write(file);
+					assertTrue("checkpoints should have a fixed size", size < 0 || size == Files.size(file));
+					size = Files.size(file);
+
+					SearchCheckpoint checkpoint = SearchCheckpoint.read(file);
+					assertEquals("checkpoint count does not match", count.getCount(), checkpoint.getSolutions());
+					counter = new SudokuSolver();
+					count = counter.resumeCount(checkpoint, 1000, limits);
+					slices++;
+				}
+
+				assertTrue("count should be interrupted", slices > 1);
+				assertEquals("resumed count does not match", 288, count.getCount());
+				assertEquals("resumed nodes do not match", full.getNodes(), count.getNodes());
+
+				List<String> all = solver.streamSolutions(new int[4][4]).map(TestGrids::toLine)
+						.collect(Collectors.toList());
+				SolutionSpliterator solutions = solver.solutions(new int[4][4]);
+				for(int index = 0; index < 100; index++)
+					assertTrue("solution should be enumerated", solutions.tryAdvance(solved -> {}));
+
+				solutions.checkpoint().write(file);
+				List<String> rest = StreamSupport.stream(solver.solutions(SearchCheckpoint.read(file)), false)
+						.map(TestGrids::toLine).collect(Collectors.toList());
+				assertEquals("resumed solutions do not match", all.subList(100, all.size()), rest);
+			}
+
+			try
+			{
+				new SudokuSolver(SudokuSolver.SearchOrder.ROW_MAJOR).checkpoint();
+				fail("solver without a search should not checkpoint");
+			}
+			catch(IllegalStateException e){}
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testMetrics()
+	{
+		final long[] events = new long[3];
+		SearchListener listener = new SearchListener()
+		{
+			@Override
+			public void decision(int col, int row, int value)
+			{
+				events[0]++;
+			}
+
+			@Override
+			public void backtrack(int col, int row)
+			{
+				events[1]++;
+			}
+
+			@Override
+			public void solution(Grid grid)
+			{
+				events[2]++;
+				assertTrue("grid should be solved", grid.isSolved());
+			}
+		};
+
+		for(SudokuSolver.SearchOrder order : SudokuSolver.SearchOrder.values())
+		{
+			SudokuSolver solver = new SudokuSolver(order);
+			solver.setListener(listener);
+			events[0] = events[1] = events[2] = 0;
+			solver.solve(PUZZLE);
+
+			SolverMetrics metrics = solver.getMetrics();
+			assertTrue("search should make decisions", metrics.getDecisions() > 0);
+			assertTrue("search should backtrack", metrics.getBacktracks() > 0);
+			assertTrue("search should check candidates", metrics.getCandidateChecks() >= metrics.getDecisions());
+			assertEquals("nodes do not match iterations", solver.getIterations(), metrics.getNodes());
+			assertEquals("decision events do not match", metrics.getDecisions(), events[0]);
+			assertEquals("backtrack events do not match", metrics.getBacktracks(), events[1]);
+			assertEquals("solution events do not match", 1, events[2]);
+		}
+	}
+
+	@Test
+	public void testSolveLimits()
+	{
+		int[][] unsolvable = unsolvable();
+
+		for(SudokuSolver.SearchOrder order : SudokuSolver.SearchOrder.values())
+		{
+			SudokuSolver solver = new SudokuSolver(order);
+			SolveOutcome outcome = solver.solve(PUZZLE, new SolveLimits());
+			assertEquals("puzzle should be solved", SolveOutcome.Status.SOLVED, outcome.getStatus());
+			assertArrayEquals("solution does not match", SOLUTION, outcome.getSolution());
+
+			outcome = solver.solve(unsolvable, new SolveLimits());
+			assertEquals("grid should be unsolvable", SolveOutcome.Status.UNSOLVABLE, outcome.getStatus());
+			assertNull("unsolvable grid has no solution", outcome.getSolution());
+
+			SolveLimits limits = new SolveLimits();
+			limits.setMaxNodes(10);
+			outcome = solver.solve(PUZZLE, limits);
+			assertEquals("node budget should run out", SolveOutcome.Status.BUDGET_EXCEEDED, outcome.getStatus());
+			assertEquals("node budget exceeded", 10, outcome.getMetrics().getNodes());
+
+			limits = new SolveLimits();
+			limits.setTimeout(0, TimeUnit.NANOSECONDS);
+			outcome = solver.solve(PUZZLE, limits);
+			assertEquals("deadline should pass", SolveOutcome.Status.BUDGET_EXCEEDED, outcome.getStatus());
+
+			CancellationToken token = new CancellationToken();
+			token.cancel();
+			limits = new SolveLimits();
+			limits.setCancellationToken(token);
+			outcome = solver.solve(PUZZLE, limits);
+			assertEquals("solve should be cancelled", SolveOutcome.Status.CANCELLED, outcome.getStatus());
+		}
+
+		try
+		{
+			new SudokuSolver().solve(unsolvable);
+			fail("unsolvable grid should be rejected");
+		}
+		catch(IllegalArgumentException e){}
+	}
+
+	@Test
+	public void testRestarts()
+	{
+		long[] luby = new long[]{1,1,2,1,1,2,4,1,1,2,1,1,2,4,8};
+		for(int run = 0; run < luby.length; run++)
+			assertEquals("luby schedule does not match", 3 * luby[run], RestartSchedule.luby(3).getNodeLimit(run));
+
+		assertEquals("geometric schedule does not match", 40, RestartSchedule.geometric(10, 2).getNodeLimit(2));
+		assertEquals("schedule should never restart", Long.MAX_VALUE, RestartSchedule.never().getNodeLimit(5));
+
+		int[][] unsolvable = unsolvable();
+
+		RestartSchedule[] schedules = new RestartSchedule[]{RestartSchedule.luby(1), RestartSchedule.geometric(2, 1.5)};
+		for(RestartSchedule schedule : schedules)
+		{
+			for(boolean propagating : new boolean[]{false, true})
+			{
+				SudokuSolver solver = new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED);
+				solver.setPropagating(propagating);
+				solver.setRestarts(schedule, 42);
+				SolveOutcome outcome = solver.solve(PUZZLE, new SolveLimits());
+				assertEquals("puzzle should be solved", SolveOutcome.Status.SOLVED, outcome.getStatus());
+				assertArrayEquals("solution does not match", SOLUTION, outcome.getSolution());
+
+				SolverMetrics metrics = outcome.getMetrics();
+				assertTrue("search should have restarted", metrics.getRestarts() > 0);
+				SolverMetrics again = solver.solve(PUZZLE, new SolveLimits()).getMetrics();
+				assertEquals("same seed should give the same search", metrics.getNodes(), again.getNodes());
+				assertEquals("same seed should give the same restarts", metrics.getRestarts(), again.getRestarts());
+
+				assertEquals("grid should be unsolvable", SolveOutcome.Status.UNSOLVABLE,
+						solver.solve(unsolvable, new SolveLimits()).getStatus());
+
+				SolveLimits limits = new SolveLimits();
+				limits.setMaxNodes(10);
+				assertEquals("node budget should run out", SolveOutcome.Status.BUDGET_EXCEEDED,
+						solver.solve(PUZZLE, limits).getStatus());
+			}
+		}
+
+		try
+		{
+			RestartSchedule.geometric(10, 1);
+			fail("restart factor of 1 should be rejected");
+		}
+		catch(IllegalArgumentException e){}
+	}
+
+	@Test
+	public void testSolveIntoBuffer()
+	{
+		Solver[] solvers = new Solver[]{
+				new SudokuSolver(SudokuSolver.SearchOrder.ROW_MAJOR),
+				new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED),
+				new DancingLinksSolver(),
+				new ClauseLearningSolver(),
+				new ParallelSolver()
+		};
+
+		for(Solver solver : solvers)
+		{
+			int[][] solution = new int[9][9];
+			for(int run = 0; run < 2; run++)
+			{
+				assertSame("solution should be written into the buffer", solution, solver.solve(PUZZLE, solution));
+				assertArrayEquals("solution does not match", SOLUTION, solution);
+			}
+
+			try
+			{
+				solver.solve(PUZZLE, new int[4][4]);
+				fail("buffer with invalid dimensions should be rejected");
+			}
+			catch(IllegalArgumentException e){}
+		}
+	}
+
+	@Test
+	public void testCachingSolver()
+	{
+		CachingSolver solver = new CachingSolver(new SudokuSolver(SudokuSolver.SearchOrder.MOST_CONSTRAINED), 1);
+		assertArrayEquals("solution does not match", SOLUTION, solver.solve(PUZZLE));
+
+		//Transpose, swap the first two bands and relabel every value
+		int[][] transformed = new int[9][9];
+		for(int row = 0; row < 9; row++)
+		{
+			for(int col = 0; col < 9; col++)
+			{
+				int source = row < 3 ? row + 3 : row < 6 ? row - 3 : row;
+				int value = PUZZLE[col][source];
+				transformed[row][col] = value == 0 ? 0 : 10 - value;
+			}
+		}
+
+		int[][] solved = solver.solve(transformed);
+		assertTrue("transformed puzzle should be solved", isSolution(transformed, solved));
+		assertEquals("transformed puzzle should be found in the cache", 1, solver.getCache().getHits());
+		assertEquals("first puzzle should miss", 1, solver.getCache().getMisses());
+
+		solver.solve(new int[9][9]);
+		assertEquals("cache should hold one solution", 1, solver.getCache().size());
+		assertEquals("first solution should be evicted", 1, solver.getCache().getEvictions());
+
+		try
+		{
+			new CachingSolver(new DancingLinksSolver(), 0);
+			fail("capacity must be positive");
+		}
+		catch(IllegalArgumentException e){}
+	}
+}
@@ -0,0 +1,92 @@
+package solver;
+
+/**
+ * Grids shared by the tests. The arrays must not be modified; copy them first.
+ * */
+final class TestGrids
+{
+	static final int[][] PUZZLE = new int[][]
+	{
+		{8,0,0,0,0,0,0,0,0},
+		{0,0,3,6,0,0,0,0,0},
+		{0,7,0,0,9,0,2,0,0},
+		{0,5,0,0,0,7,0,0,0},
+		{0,0,0,0,4,5,7,0,0},
+		{0,0,0,1,0,0,0,3,0},
+		{0,0,1,0,0,0,0,6,8},
+		{0,0,8,5,0,0,0,1,0},
+		{0,9,0,0,0,0,4,0,0}
+	};
+
+	static final int[][] SOLUTION = new int[][]
+	{
+		{8,1,2,7,5,3,6,4,9},
+		{9,4,3,6,8,2,1,7,5},
+		{6,7,5,4,9,1,2,8,3},
+		{1,5,4,2,3,7,8,9,6},
+		{3,6,9,8,4,5,7,2,1},
+		{2,8,7,1,6,9,5,3,4},
+		{5,2,1,9,7,4,3,6,8},
+		{4,3,8,5,2,6,9,1,7},
+		{7,9,6,3,1,8,4,5,2}
+	};
+
+	private TestGrids()
+	{
+	}
+
+	/**
+	 * Build a grid without a solution, whose givens do not repeat a value: the first row leaves only 9 for its last
+	 * cell, but the last column already holds a 9.
+	 * */
+	static int[][] unsolvable()
+	{
+		int[][] grid = new int[9][9];
+		grid[0] = new int[]{1,2,3,4,5,6,7,8,0};
+		grid[1][8] = 9;
+		return grid;
+	}
+
+	/**
+	 * Write a 9x9 grid as an 81 character line, with '.' for blank cells.
+	 * */
+	static String toLine(int[][] grid)
+	{
+		StringBuilder line = new StringBuilder();
+		for(int[] row : grid)
+		{
+			for(int value : row)
+				line.append(value == 0 ? '.' : (char) ('0' + value));
+		}
+
+		return line.toString();
+	}
+
+	/**
+	 * Check that a grid of any size is solved and keeps the givens of its puzzle.
+	 * */
+	static boolean isSolution(int[][] puzzle, int[][] solved)
+	{
+		int size = puzzle.length;
+		int box = (int) Math.sqrt(size);
+		for(int unit = 0; unit < size; unit++)
+		{
+			int row = 0, col = 0, quadrant = 0;
+			for(int index = 0; index < size; index++)
+			{
+				if(puzzle[unit][index] != 0 && puzzle[unit][index] != solved[unit][index])
+					return false;
+
+				row |= 1 << solved[unit][index];
+				col |= 1 << solved[index][unit];
+				quadrant |= 1 << solved[(unit / box) * box + index / box][(unit % box) * box + index % box];
+			}
+
+			int all = (1 << (size + 1)) - 2;
+			if(row != all || col != all || quadrant != all)
+				return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,80 @@
+package solver.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SudokuGridTrailTest
+{
+	@Test
+	public void testRestore()
+	{
+		int[][] grid = new int[9][9];
+		grid[0] = new int[]{1,2,3,0,0,0,0,0,0};
+		grid[4][4] = 5;
+		SudokuGrid sudokuGrid = new SudokuGrid(grid, false);
+		sudokuGrid.setCandidates(10, 0b111000000);
+		int[] initial = snapshot(sudokuGrid);
+
+		int first = sudokuGrid.checkpoint();
+		sudokuGrid.placeValue(3, 4);
+		sudokuGrid.placeValue(80, 9);
+		sudokuGrid.setCandidates(10, 0b11000000);
+		sudokuGrid.setCandidates(11, 0b1000);
+		int[] placed = snapshot(sudokuGrid);
+
+		//A value repeated in a row, a value placed twice and candidates narrowed twice
+		int second = sudokuGrid.checkpoint();
+		assertEquals("checkpoints do not match", 2, sudokuGrid.getCheckpointCount());
+		sudokuGrid.placeValue(8, 1);
+		sudokuGrid.placeValue(3, 6);
+		sudokuGrid.placeValue(3, 7);
+		sudokuGrid.setCandidates(10, 0b10000000);
+		sudokuGrid.setCandidates(10, 0);
+		assertEquals("conflicts do not match", 1, sudokuGrid.getConflictCount());
+		assertEquals("filled cells do not match", 7, sudokuGrid.getFilledCellCount());
+
+		sudokuGrid.restore(second);
+		assertArrayEquals("grid should be back to the second checkpoint", placed, snapshot(sudokuGrid));
+		assertEquals("restored checkpoint should be kept", 2, sudokuGrid.getCheckpointCount());
+
+		sudokuGrid.restore(first);
+		assertArrayEquals("grid should be back to the first checkpoint", initial, snapshot(sudokuGrid));
+		assertEquals("later checkpoints should be discarded", 1, sudokuGrid.getCheckpointCount());
+
+		//The first checkpoint can be restored again after further changes
+		sudokuGrid.placeValue(3, 4);
+		sudokuGrid.setCandidates(11, 0);
+		sudokuGrid.restore(first);
+		assertArrayEquals("grid should be back to the first checkpoint", initial, snapshot(sudokuGrid));
+
+		//Changes are no longer recorded once the trail is cleared
+		sudokuGrid.clearTrail();
+		sudokuGrid.placeValue(3, 4);
+		assertEquals("checkpoints should be forgotten", 0, sudokuGrid.getCheckpointCount());
+		assertEquals("placed value should be kept", 4, sudokuGrid.getCellValue(3, 0));
+	}
+
+	//Values, candidates, masks and counts of a 9x9 grid
+	private static int[] snapshot(SudokuGrid sudokuGrid)
+	{
+		int[] snapshot = new int[81 * 2 + 9 * 3 + 2];
+		int index = 0;
+		for(int cell = 0; cell < 81; cell++)
+		{
+			snapshot[index++] = sudokuGrid.getCellValue(cell % 9, cell / 9);
+			snapshot[index++] = sudokuGrid.getCandidates(cell);
+		}
+
+		for(int unit = 0; unit < 9; unit++)
+		{
+			snapshot[index++] = sudokuGrid.getRowMask(unit);
+			snapshot[index++] = sudokuGrid.getColMask(unit);
+			snapshot[index++] = sudokuGrid.getQuadrantMask(unit);
+		}
+
+		snapshot[index++] = sudokuGrid.getFilledCellCount();
+		snapshot[index] = sudokuGrid.getConflictCount();
+		return snapshot;
+	}
+}